@@ -16,17 +16,147 @@
  *		avoiding searching subtrees of moves which won't be selected. It accomplishes 
  *		the same task as normal minimax, but reduces the size of the search space 
  *		by pruning the tree. 
+ *
+ *	Principal Variation Search:
+ *		With good move ordering the first move of a node is usually its best, and 
+ *		every other move only has to be proven worse. Selecting SearchEngine.PVS 
+ *		searches the first move of each node with the full window, and the rest 
+ *		with a null window around the best value so far, which cuts off as soon as 
+ *		the move is proven no better. Only a move that turns out better is searched 
+ *		again with the full window.
+ *
+ *	MTD(f):
+ *		Selecting SearchEngine.MTDF finds the value of the root with null window 
+ *		searches only. Each search of the root asks whether its value is above a 
+ *		test value, and the answer (a fail high or fail low) raises the lower or 
+ *		lowers the upper bound on it. The test value starts at a first guess (the 
+ *		previous iteration's or move's score, see setFirstGuess) and follows the 
+ *		bounds until they meet. Every pass relies on the transposition table to 
+ *		not search again what the previous passes already proved, and MTD(f) 
+ *		searches fail soft so that a pass moves the bounds as far as it can.
+ *
+ *	Quiescence:
+ *		A fixed depth search stops wherever the depth runs out, often in the middle 
+ *		of an exchange of blitzes, and the heuristic then scores a state where the 
+ *		opponent is about to conquer several pieces. With setQuiescenceSearch, alpha 
+ *		beta keeps searching past its depth, but only blitzes which conquer something, 
+ *		until the state is quiet. See quiescence.
+ *
+ *	Forward Pruning:
+ *		With setForwardPruning, alpha beta also skips work that can not change its 
+ *		result, or is unlikely to. A node is cut off when even the best final score 
+ *		the board still allows (see BitBoard.getSettledValue) can not reach the window, 
+ *		and a move one ply above the depth limit is skipped when the score it leaves 
+ *		can not. Late para drops into low value grid spaces are searched a ply shallower 
+ *		with a null window, and only searched in full if they turn out better. The first 
+ *		two only hold for heuristics which stay within the score bounds, so they are only 
+ *		made with the score difference heuristic.
+ *
+ *	Transposition Table:
+ *		Different orders of moves frequently lead to the same game state (a 
+ *		para drop at A then B is the same board as B then A). When a 
+ *		transposition table is supplied, the result of searching each state is 
+ *		stored under the zobrist hash of the state, and both minimax and alpha 
+ *		beta will reuse a stored result rather than searching the state again.
+ *
+ *	In Place Moves:
+ *		Both searches walk the tree on the single root state, making each move 
+ *		in place, searching the resulting state and then unmaking the move. No 
+ *		board is ever copied during a search, and the root state is left exactly 
+ *		as it was found once the search completes. Moves are generated as packed 
+ *		ints into per ply buffers that are reused from node to node, so once the 
+ *		buffers have grown to the search depth a search allocates nothing.
+ *
+ *	Move Ordering:
+ *		Alpha beta searches the moves of each node best first, ranked by the 
+ *		transposition table move, the value conquered by blitzes, killer moves and 
+ *		the history heuristic. See scoreMoves.
+ *
+ *	Heuristics:
+ *		States where the search stops before the end of the game are scored by the 
+ *		Heuristic given to the constructor, the score difference by default. See 
+ *		Heuristic for the others.
+ *
+ *	Symmetry:
+ *		On a board whose values are unchanged by some rotation or reflection (see 
+ *		BoardTopology), states are keyed in the transposition table by their canonical 
+ *		hash, so a state and its images share one entry, with the stored move mapped 
+ *		to match. At the root, a move to an image of the state an earlier root move 
+ *		led to is worth exactly the same, and is skipped. On an empty board with all 
+ *		eight symmetries this leaves one root move in eight.
+ *
+ *	Endgame:
+ *		With setEndgameSolver, a root with few enough empty grid spaces left is not 
+ *		searched to a depth at all, but solved to the end of the game, and the score 
+ *		is the exact final margin. See EndgameSolver.
+ *
+ *	Lazy SMP:
+ *		A third search mode, selected with setLazySMPThreads. The root is searched 
+ *		by several threads at once, each running its own iterative deepening alpha 
+ *		beta on its own copy of the state, and sharing only the transposition table. 
+ *		See LazySMPSearch.
  * 
  * @author dcyoung3
  */
-import java.util.ArrayList;
-
 public class AdversarialSearch {
 	private GameStateNode root;
 	private int miniMaxDepthLimit;
 	private int alphaBetaDepthLimit;
+	private SearchEngine engine;
 	private boolean bUseAlphaBeta;
+	private boolean bUsePVS;
+	private boolean bUseMTDF;
+	//fail soft nodes return their true best value when it falls outside the window, rather than the window's edge
+	private boolean bFailSoft;
+	private int firstGuess;
+	private boolean bHasFirstGuess;
+	private int numMTDFPasses;
+	//quiescence state, the search stops at the depth limit unless bUseQuiescence is set
+	private static final int MAX_QUIESCENCE_PLIES = 8;
+	private boolean bUseQuiescence;
+	private int[][] quiescenceMoveBuffers;
+	private int[][] quiescenceScoreBuffers;
+	private int numQuiescenceNodes;
+	//forward pruning state, see setForwardPruning
+	private static final int LMR_FIRST_MOVE = 3;
+	private static final int LMR_MIN_DEPTH = 3;
+	private boolean bUseForwardPruning;
+	//true if every evaluation is the score difference, which the bound pruning relies on
+	private boolean bScoreBounded;
+	private int numReductions;
+	private int numReductionResearches;
+	private int numBoundPrunes;
 	private int numExpandedNodes;
+	private TranspositionTable transpositionTable;
+	private Heuristic heuristic;
+	private int numTableProbes;
+	private int numTableHits;
+	private int numTableCutoffs;
+	//move ordering state
+	private static final int TABLE_MOVE_SCORE = 1 << 30;
+	private static final int CAPTURE_SCORE = 1 << 28;
+	private static final int KILLER_SCORE = 1 << 27;
+	private static final int MAX_HISTORY_SCORE = 1 << 26;
+	private int[][] killerMoves;
+	//per ply move buffers, indexed by remaining depth like the killer moves
+	private int[][] moveBuffers;
+	private int[][] moveScoreBuffers;
+	private int[][] historyTable;
+	//canonical hashes of the states the root moves searched so far led to, see searchRoot
+	private long[] rootChildHashes;
+	private int numSymmetricRootMoves;
+	private int numCutoffs;
+	private int numFirstMoveCutoffs;
+	//limits after which a search gives up, see setSearchLimits
+	private long searchDeadlineMillis = Long.MAX_VALUE;
+	private long nodeLimit = Long.MAX_VALUE;
+	private boolean bSearchAborted;
+	//set from another thread to abort the search, see requestStop
+	private volatile boolean bStopRequested;
+	//when set, bestMove is handed to a lazy SMP search over several threads
+	private LazySMPSearch lazySMPSearch;
+	//when set, bestMove is handed to the solver once it can solve the root
+	private EndgameSolver endgameSolver;
 	
 	/**
 	 * Constructor
@@ -35,11 +165,63 @@ public class AdversarialSearch {
 	 * @param useAlphaBetaPruning
 	 */
 	public AdversarialSearch(GameStateNode root, int miniMaxDepthLimit, int alphaBetaDepthLimit, boolean useAlphaBetaPruning){
+		this(root, miniMaxDepthLimit, alphaBetaDepthLimit, useAlphaBetaPruning, null);
+	}
+	
+	/**
+	 * Constructor
+	 * @param root
+	 * @param miniMaxDepthLimit
+	 * @param alphaBetaDepthLimit
+	 * @param useAlphaBetaPruning
+	 * @param transpositionTable - table of previously searched states, may be 
+	 * 			shared between searches. null disables the table.
+	 */
+	public AdversarialSearch(GameStateNode root, int miniMaxDepthLimit, int alphaBetaDepthLimit, boolean useAlphaBetaPruning, TranspositionTable transpositionTable){
+		this(root, miniMaxDepthLimit, alphaBetaDepthLimit, useAlphaBetaPruning, transpositionTable, new ScoreDifferenceHeuristic());
+	}
+	
+	/**
+	 * Constructor
+	 * @param root
+	 * @param miniMaxDepthLimit
+	 * @param alphaBetaDepthLimit
+	 * @param useAlphaBetaPruning
+	 * @param transpositionTable - table of previously searched states, may be 
+	 * 			shared between searches. null disables the table.
+	 * @param heuristic - scores the states where the search stops
+	 */
+	public AdversarialSearch(GameStateNode root, int miniMaxDepthLimit, int alphaBetaDepthLimit, boolean useAlphaBetaPruning, TranspositionTable transpositionTable, Heuristic heuristic){
+		this(root, miniMaxDepthLimit, alphaBetaDepthLimit, useAlphaBetaPruning ? SearchEngine.ALPHA_BETA : SearchEngine.MINIMAX, transpositionTable, heuristic);
+	}
+	
+	/**
+	 * Constructor
+	 * @param root
+	 * @param miniMaxDepthLimit
+	 * @param alphaBetaDepthLimit - the depth of every engine but minimax
+	 * @param engine - which search to conduct
+	 * @param transpositionTable - table of previously searched states, may be 
+	 * 			shared between searches. null disables the table.
+	 * @param heuristic - scores the states where the search stops
+	 */
+	public AdversarialSearch(GameStateNode root, int miniMaxDepthLimit, int alphaBetaDepthLimit, SearchEngine engine, TranspositionTable transpositionTable, Heuristic heuristic){
 		this.root = root;
-		this.bUseAlphaBeta = useAlphaBetaPruning;
+		this.heuristic = heuristic;
+		this.engine = engine;
+		this.bUseAlphaBeta = engine.usesAlphaBeta();
+		this.bUsePVS = engine == SearchEngine.PVS;
+		this.bUseMTDF = engine == SearchEngine.MTDF;
+		this.bFailSoft = this.bUseMTDF;
+		this.bScoreBounded = heuristic instanceof ScoreDifferenceHeuristic;
 		this.miniMaxDepthLimit = miniMaxDepthLimit;
 		this.alphaBetaDepthLimit = alphaBetaDepthLimit;
 		this.numExpandedNodes = 0;
+		this.transpositionTable = transpositionTable;
+		this.killerMoves = new int[0][];
+		this.moveBuffers = new int[0][];
+		this.moveScoreBuffers = new int[0][];
+		this.historyTable = new int[2][root.getBoardState().getNumGridRows() * root.getBoardState().getNumGridCols()];
 	}
 	
 	/**
@@ -47,9 +229,11 @@ public class AdversarialSearch {
 	 * @return
 	 */
 	public int conductSearch(){
-		this.numExpandedNodes = 0;
+		this.resetSearchStatistics();
 		int result; 
-		if(this.bUseAlphaBeta){
+		if(this.bUseAlphaBeta && this.lazySMPSearch != null){
+			result = this.lazySMPSearch.bestMove(this.root, new SearchLimits(this.alphaBetaDepthLimit)).getScore();
+		}else if(this.bUseAlphaBeta){
 			result = alphaBeta(this.root, this.alphaBetaDepthLimit, Integer.MIN_VALUE, Integer.MAX_VALUE, true);
 		}else{
 			result = minimax(this.root, this.miniMaxDepthLimit, true); 
@@ -57,6 +241,333 @@ public class AdversarialSearch {
 		return result;
 	}
 	
+	/**
+	 * Chooses a move for the maximizing player of a state. Root moves are made 
+	 * in place one at a time, best ranked first, and all of them share a single 
+	 * alpha beta window, so a good early move tightens the bounds every later 
+	 * root move is searched with. Nothing is copied and no child states are held 
+	 * in memory.
+	 * @param state - the state to move in, its maximizing player is the player to move
+	 * @param limits - depth (counting the root move), window and time/node limits
+	 * @return the chosen move, its score and the total number of nodes expanded
+	 */
+	public SearchResult bestMove(GameStateNode state, SearchLimits limits){
+		if(this.endgameSolver != null && this.endgameSolver.canSolve(state)){
+			this.resetSearchStatistics();
+			SearchResult result = this.endgameSolver.bestMove(state, limits);
+			this.bSearchAborted = result.isAborted();
+			return result;
+		}
+		if(this.bUseAlphaBeta && this.lazySMPSearch != null){
+			return this.lazySMPSearch.bestMove(state, limits);
+		}
+		this.resetSearchStatistics();
+		this.setSearchLimits(limits.getDeadlineMillis(), limits.getNodeLimit());
+		int depthLimit = Math.max(1, limits.getDepthLimit());
+		if(this.bUseMTDF){
+			return this.mtdf(state, depthLimit, limits.getAlpha(), limits.getBeta());
+		}
+		return this.searchRoot(state, depthLimit, limits.getAlpha(), limits.getBeta());
+	}
+	
+	/**
+	 * MTD(f):
+	 * 		Converges on the value of the root with null window searches of the root. 
+	 * 		A pass which fails high proves the value is at least what it returned, 
+	 * 		and one which fails low that it is at most what it returned. The next pass 
+	 * 		tests the bound just proven, until the lower and upper bounds meet.
+	 * 
+	 * 		With a good first guess and integer scores this takes only a few passes, 
+	 * 		and the transposition table keeps each pass from repeating the last.
+	 * @param state - the state to move in, its maximizing player is the player to move
+	 * @param depthLimit - depth, counting the root move
+	 * @param alpha - the bounds start at the window, so a value outside it is only
+	 * @param beta - reported as a bound, like any other search of the window
+	 * @return the move of the last pass which failed high, the value of the root and 
+	 * 			the number of nodes expanded by every pass
+	 */
+	private SearchResult mtdf(GameStateNode state, int depthLimit, int alpha, int beta){
+		int guess = this.bHasFirstGuess ? this.firstGuess : this.evaluate(state, true);
+		guess = Math.max(alpha, Math.min(beta, guess));
+		int lowerBound = alpha;
+		int upperBound = beta;
+		Move bestMove = null;
+		this.numMTDFPasses = 0;
+		while(lowerBound < upperBound){
+			int testValue = (guess == lowerBound) ? guess + 1 : guess;
+			SearchResult pass = this.searchRoot(state, depthLimit, testValue - 1, testValue);
+			this.numMTDFPasses++;
+			if(this.bSearchAborted){
+				break;
+			}
+			guess = pass.getScore();
+			if(guess < testValue){
+				upperBound = guess;
+			}
+			else{
+				//only a pass which failed high has proven its move reaches the bound
+				lowerBound = guess;
+				bestMove = pass.getBestMove();
+			}
+		}
+		return new SearchResult(bestMove, guess, this.numExpandedNodes, this.bSearchAborted);
+	}
+	
+	/**
+	 * Searches the root moves with a window, see bestMove. Keeps counting nodes from 
+	 * where the previous search of the root left off.
+	 * @param state
+	 * @param depthLimit - depth, counting the root move
+	 * @param alpha
+	 * @param beta
+	 * @return the chosen move (null if none scored above alpha), its score and the 
+	 * 			number of nodes expanded since the statistics were reset
+	 */
+	private SearchResult searchRoot(GameStateNode state, int depthLimit, int alpha, int beta){
+		Player activePlayer = state.getMaximizingPlayer();
+		
+		//the root's own table entry, if any, suggests which move to search first
+		long hashKey = 0;
+		int tableMoveCode = TranspositionTable.NO_MOVE;
+		if(this.transpositionTable != null){
+			hashKey = state.getZobristHash(activePlayer);
+			long entry = this.probeTranspositionTable(hashKey);
+			if(entry != TranspositionTable.NO_ENTRY){
+				tableMoveCode = this.getTableMove(state, entry);
+			}
+		}
+		
+		int playerIndex = state.getPlayerIndex(activePlayer);
+		this.growPlyBuffers(state, depthLimit);
+		int[] moves = this.moveBuffers[depthLimit];
+		int[] moveScores = this.moveScoreBuffers[depthLimit];
+		int numMoves = state.getBoardState().generateMoves(playerIndex, moves);
+		this.scoreMoves(state, moves, moveScores, numMoves, tableMoveCode, depthLimit, playerIndex);
+		boolean bSymmetricBoard = state.getBoardState().getTopology().getNumSymmetries() > 0;
+		if(bSymmetricBoard && (this.rootChildHashes == null || this.rootChildHashes.length < numMoves)){
+			this.rootChildHashes = new long[state.getBoardState().getMaxNumMoves()];
+		}
+		int numRootChildren = 0;
+		
+		//the root is a max node, minimax simply ignores the window
+		int miniMaxValue = (this.bUseAlphaBeta && !this.bFailSoft) ? alpha : Integer.MIN_VALUE;
+		int bestMoveCode = TranspositionTable.NO_MOVE;
+		for(int moveIndex = 0; moveIndex < numMoves; moveIndex++){
+			int move = this.selectNextMove(moves, moveScores, numMoves, moveIndex);
+			int madeMove = state.makeMove(move, playerIndex);
+			if(bSymmetricBoard){
+				//a rotation or reflection of a state already searched is worth the same
+				long childHash = state.getBoardState().getCanonicalHash();
+				if(containsHash(this.rootChildHashes, numRootChildren, childHash)){
+					state.unmakeMove(madeMove, playerIndex);
+					this.numSymmetricRootMoves++;
+					continue;
+				}
+				this.rootChildHashes[numRootChildren++] = childHash;
+			}
+			this.numExpandedNodes++;
+			int childValue;
+			if(this.bUsePVS && moveIndex > 0){
+				childValue = this.nullWindowSearch(state, depthLimit-1, Math.max(alpha, miniMaxValue), beta, false);
+			}
+			else if(this.bUseAlphaBeta){
+				childValue = alphaBeta(state, depthLimit-1, Math.max(alpha, miniMaxValue), beta, false);
+			}
+			else{
+				childValue = minimax(state, depthLimit-1, false);
+			}
+			state.unmakeMove(madeMove, playerIndex);
+			if(this.bSearchAborted){
+				break;
+			}
+			if(childValue > miniMaxValue){
+				miniMaxValue = childValue;
+				bestMoveCode = move;
+			}
+			if(this.bUseAlphaBeta && beta <= miniMaxValue){
+				this.recordCutoff(move, moveIndex, depthLimit, playerIndex);
+				break;
+			}
+		}
+		
+		Move bestMove = null;
+		if(bestMoveCode != TranspositionTable.NO_MOVE){
+			if(this.bUseAlphaBeta){
+				this.storeBoundedResult(state, hashKey, depthLimit, miniMaxValue, alpha, beta, bestMoveCode);
+			}
+			else{
+				this.storeInTranspositionTable(state, hashKey, depthLimit, miniMaxValue, TranspositionTable.EXACT, bestMoveCode);
+			}
+			//failing soft, the best of the moves may still be no better than alpha
+			if(!this.bFailSoft || miniMaxValue > alpha){
+				bestMove = state.getMove(bestMoveCode, playerIndex);
+			}
+		}
+		return new SearchResult(bestMove, miniMaxValue, this.numExpandedNodes, this.bSearchAborted);
+	}
+	
+	/**
+	 * Ranks a player's moves the way alpha beta would search them, for callers
+	 * that search the moves themselves (ie: splitting the root between threads).
+	 * @param state
+	 * @param activePlayer - the player to move
+	 * @param depthLimit - remaining depth, which selects the killer moves
+	 * @param orderedMoves - receives the allowable packed moves of the player, best ranked 
+	 * 			first, and must hold at least BoardState.getMaxNumMoves() moves
+	 * @return the number of moves written
+	 */
+	public int getOrderedMoves(GameStateNode state, Player activePlayer, int depthLimit, int[] orderedMoves){
+		int tableMoveCode = TranspositionTable.NO_MOVE;
+		if(this.transpositionTable != null){
+			long entry = this.transpositionTable.probe(state.getZobristHash(activePlayer));
+			if(entry != TranspositionTable.NO_ENTRY){
+				tableMoveCode = this.getTableMove(state, entry);
+			}
+		}
+		int playerIndex = state.getPlayerIndex(activePlayer);
+		int[] moves = new int[state.getBoardState().getMaxNumMoves()];
+		int[] moveScores = new int[moves.length];
+		int numMoves = state.getBoardState().generateMoves(playerIndex, moves);
+		this.scoreMoves(state, moves, moveScores, numMoves, tableMoveCode, depthLimit, playerIndex);
+		boolean bSymmetricBoard = state.getBoardState().getTopology().getNumSymmetries() > 0;
+		long[] childHashes = new long[numMoves];
+		int numChildren = 0;
+		int numOrderedMoves = 0;
+		for(int moveIndex = 0; moveIndex < numMoves; moveIndex++){
+			int move = this.selectNextMove(moves, moveScores, numMoves, moveIndex);
+			if(bSymmetricBoard){
+				//like searchRoot, leaves out moves to a rotation or reflection of an earlier move's state
+				int madeMove = state.makeMove(move, playerIndex);
+				long childHash = state.getBoardState().getCanonicalHash();
+				state.unmakeMove(madeMove, playerIndex);
+				if(containsHash(childHashes, numChildren, childHash)){
+					continue;
+				}
+				childHashes[numChildren++] = childHash;
+			}
+			orderedMoves[numOrderedMoves++] = move;
+		}
+		return numOrderedMoves;
+	}
+	
+	/**
+	 * @param hashes
+	 * @param numHashes - number of hashes in use at the start of the array
+	 * @param hash
+	 * @return true if the hash is one of the hashes in use
+	 */
+	private static boolean containsHash(long[] hashes, int numHashes, long hash){
+		for(int hashIndex = 0; hashIndex < numHashes; hashIndex++){
+			if(hashes[hashIndex] == hash){
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Zeroes the node counters and clears any earlier abort, ready for a new search
+	 */
+	public void resetSearchStatistics(){
+		this.numExpandedNodes = 0;
+		this.numTableProbes = 0;
+		this.numTableHits = 0;
+		this.numTableCutoffs = 0;
+		this.numCutoffs = 0;
+		this.numFirstMoveCutoffs = 0;
+		this.numQuiescenceNodes = 0;
+		this.numReductions = 0;
+		this.numReductionResearches = 0;
+		this.numBoundPrunes = 0;
+		this.numSymmetricRootMoves = 0;
+		this.bSearchAborted = false;
+	}
+	
+	/**
+	 * Bounds the amount of work a search may do. Once either limit is passed the
+	 * search is aborted: every node returns immediately (unmaking its moves on the 
+	 * way out), nothing more is stored in the transposition table, and the value 
+	 * returned is meaningless. Callers must check isSearchAborted.
+	 * @param searchDeadlineMillis - wall clock time (System.currentTimeMillis) to stop at
+	 * @param nodeLimit - number of expanded nodes to stop at
+	 */
+	public void setSearchLimits(long searchDeadlineMillis, long nodeLimit){
+		this.searchDeadlineMillis = searchDeadlineMillis;
+		this.nodeLimit = nodeLimit;
+	}
+	
+	/**
+	 * Aborts the search in progress from another thread, and every later search 
+	 * made with this object. Safe to call from any thread.
+	 */
+	public void requestStop(){
+		this.bStopRequested = true;
+	}
+	
+	/**
+	 * Selects the lazy SMP search mode for alpha beta searches. The transposition 
+	 * table given to the constructor is shared by the threads, or a new one is 
+	 * made if there is none.
+	 * @param numThreads - number of threads searching each root, one returns to 
+	 * 			a single threaded search
+	 */
+	public void setLazySMPThreads(int numThreads){
+		if(this.lazySMPSearch != null){
+			this.lazySMPSearch.shutdown();
+			this.lazySMPSearch = null;
+		}
+		if(numThreads > 1){
+			TranspositionTable sharedTable = this.transpositionTable != null ? this.transpositionTable : new TranspositionTable();
+			this.lazySMPSearch = new LazySMPSearch(numThreads, sharedTable, this.heuristic);
+		}
+	}
+	
+	/**
+	 * Solves roots close to the end of the game exactly, instead of searching them to 
+	 * the depth limit. Only bestMove hands over to the solver.
+	 * @param endgameSolver - decides which roots it can solve, null (the default) never solves
+	 */
+	public void setEndgameSolver(EndgameSolver endgameSolver){
+		this.endgameSolver = endgameSolver;
+	}
+	
+	/**
+	 * @return the endgame solver, or null
+	 */
+	public EndgameSolver getEndgameSolver(){
+		return this.endgameSolver;
+	}
+	
+	/**
+	 * @return the lazy SMP search, holding the thread statistics of the last search, or null
+	 */
+	public LazySMPSearch getLazySMPSearch(){
+		return this.lazySMPSearch;
+	}
+	
+	/**
+	 * @return true if the last search ran out of time or nodes before finishing
+	 */
+	public boolean isSearchAborted(){
+		return this.bSearchAborted;
+	}
+	
+	/**
+	 * Checks the search limits. The clock is only read every 1024 nodes.
+	 * @return true if the search should stop
+	 */
+	private boolean checkSearchLimits(){
+		if(!this.bSearchAborted){
+			if(this.numExpandedNodes >= this.nodeLimit || this.bStopRequested){
+				this.bSearchAborted = true;
+			}
+			else if((this.numExpandedNodes & 1023) == 0 && System.currentTimeMillis() >= this.searchDeadlineMillis){
+				this.bSearchAborted = true;
+			}
+		}
+		return this.bSearchAborted;
+	}
+	
 	/**
 	 * minimax:
 	 * 		The minimax algorithm is a way of finding an optimal move in a 
@@ -84,50 +595,82 @@ public class AdversarialSearch {
 	 */
 	public int minimax(GameStateNode root, int depthLimit, boolean bIsMaxNode){
 		//if the node is a leaf node report its utility,
+		if( this.checkSearchLimits() ){
+			return 0;
+		}
 		if( root.isLeafNode() || depthLimit == 0 ){
 			//treat deep enough nodes as leaf nodes (this will be a utility estimate though) 
 			return evaluate(root, bIsMaxNode);
 		}
 		else{
-			ArrayList<Move> allowableMoves;
-			Move move;
-			GameStateNode child;
+			//a previous search of this state to at least the same depth can be reused as is
+			Player activePlayer = bIsMaxNode ? root.getMaximizingPlayer() : root.getMinimizingPlayer();
+			long hashKey = 0;
+			if(this.transpositionTable != null){
+				hashKey = root.getZobristHash(activePlayer);
+				long entry = this.probeTranspositionTable(hashKey);
+				if(entry != TranspositionTable.NO_ENTRY && TranspositionTable.getDepth(entry) >= depthLimit 
+						&& TranspositionTable.getBound(entry) == TranspositionTable.EXACT){
+					this.numTableCutoffs++;
+					return TranspositionTable.getScore(entry);
+				}
+			}
+			
+			int playerIndex = root.getPlayerIndex(activePlayer);
+			this.growPlyBuffers(root, depthLimit);
+			int[] moves = this.moveBuffers[depthLimit];
+			int numMoves = root.getBoardState().generateMoves(playerIndex, moves);
+			int move;
+			int madeMove;
 			int childMiniMaxValue;
+			int bestMoveCode = TranspositionTable.NO_MOVE;
 			
 			if(bIsMaxNode){
 				//n is a max node
 				int miniMaxValue = Integer.MIN_VALUE;
 				
-				//get the allowable moves for the current state
-				allowableMoves = root.getAllowableMoves(root.getMaximizingPlayer());
 				//consider every child state resulting from one of the allowable moves
-				for(int moveIndex = 0; moveIndex < allowableMoves.size(); moveIndex++){
-					move = allowableMoves.get(moveIndex);
-					child = root.getChildStateAfterMove(root.getMaximizingPlayer(), move);
-					//evaluate the child
+				for(int moveIndex = 0; moveIndex < numMoves; moveIndex++){
+					move = moves[moveIndex];
+					//evaluate the child state by making the move in place, then take it back
+					madeMove = root.makeMove(move, playerIndex);
 					this.numExpandedNodes++;
-					childMiniMaxValue = minimax(child, depthLimit-1, false);
+					childMiniMaxValue = minimax(root, depthLimit-1, false);
+					root.unmakeMove(madeMove, playerIndex);
+					if(this.bSearchAborted){
+						return 0;
+					}
 					//n is a max node, its minimax value will be the max of all its children
-					miniMaxValue = Math.max(miniMaxValue, childMiniMaxValue);
+					if(childMiniMaxValue > miniMaxValue){
+						miniMaxValue = childMiniMaxValue;
+						bestMoveCode = move;
+					}
 				}
+				this.storeInTranspositionTable(root, hashKey, depthLimit, miniMaxValue, TranspositionTable.EXACT, bestMoveCode);
 				return miniMaxValue;
 			}
 			else{ 
 				//n is a min node
 				int miniMaxValue = Integer.MAX_VALUE;
 				
-				//get the allowable moves for the current state
-				allowableMoves = root.getAllowableMoves(root.getMinimizingPlayer());
 				//consider every child state resulting from one of the allowable moves
-				for(int moveIndex = 0; moveIndex < allowableMoves.size(); moveIndex++){
-					move = allowableMoves.get(moveIndex);
-					child = root.getChildStateAfterMove(root.getMinimizingPlayer(), move);
-					//evaluate the child
+				for(int moveIndex = 0; moveIndex < numMoves; moveIndex++){
+					move = moves[moveIndex];
+					//evaluate the child state by making the move in place, then take it back
+					madeMove = root.makeMove(move, playerIndex);
 					this.numExpandedNodes++;
-					childMiniMaxValue = minimax(child, depthLimit-1, true);
+					childMiniMaxValue = minimax(root, depthLimit-1, true);
+					root.unmakeMove(madeMove, playerIndex);
+					if(this.bSearchAborted){
+						return 0;
+					}
 					//n is a min node, its minimax value will be the min of all its children
-					miniMaxValue = Math.min(miniMaxValue, childMiniMaxValue);
+					if(childMiniMaxValue < miniMaxValue){
+						miniMaxValue = childMiniMaxValue;
+						bestMoveCode = move;
+					}
 				}
+				this.storeInTranspositionTable(root, hashKey, depthLimit, miniMaxValue, TranspositionTable.EXACT, bestMoveCode);
 				return miniMaxValue;
 			}
 		}
@@ -169,158 +712,660 @@ public class AdversarialSearch {
 	 * 			assuming the opponent plays optimally
 	 */
 	public int alphaBeta(GameStateNode root, int depthLimit, int alpha, int beta, boolean bIsMaxNode){
+		if( this.checkSearchLimits() ){
+			return 0;
+		}
+		if( depthLimit == 0 && this.bUseQuiescence ){
+			return quiescence(root, alpha, beta, bIsMaxNode, 0);
+		}
 		if( root.isLeafNode() || depthLimit == 0 ){
 			return evaluate(root, bIsMaxNode);
 		}
 		else{
+			//a game already decided either way, as far as the window is concerned, needs no search
+			int scoreDifference = 0;
+			boolean bBoundPruning = this.bUseForwardPruning && this.bScoreBounded;
+			if(bBoundPruning){
+				BitBoard bitBoard = root.getBoardState().getBitBoard();
+				int maxScore = root.getMaximizingPlayer().getCurrentScore();
+				int minScore = root.getMinimizingPlayer().getCurrentScore();
+				int maxPlayerIndex = root.getPlayerIndex(root.getMaximizingPlayer());
+				int boardValue = maxScore + minScore + bitBoard.getEmptyValue();
+				int upperBound = boardValue - 2 * bitBoard.getSettledValue(1 - maxPlayerIndex);
+				int lowerBound = 2 * bitBoard.getSettledValue(maxPlayerIndex) - boardValue;
+				if(upperBound <= alpha){
+					this.numBoundPrunes++;
+					return this.bFailSoft ? upperBound : alpha;
+				}
+				if(lowerBound >= beta){
+					this.numBoundPrunes++;
+					return this.bFailSoft ? lowerBound : beta;
+				}
+				scoreDifference = maxScore - minScore;
+			}
+			
+			//a previous search of this state to at least the same depth may settle this node
+			Player activePlayer = bIsMaxNode ? root.getMaximizingPlayer() : root.getMinimizingPlayer();
+			long hashKey = 0;
+			int tableMoveCode = TranspositionTable.NO_MOVE;
+			if(this.transpositionTable != null){
+				hashKey = root.getZobristHash(activePlayer);
+				long entry = this.probeTranspositionTable(hashKey);
+				if(entry != TranspositionTable.NO_ENTRY){
+					//even a shallower result still suggests which move to try first
+					tableMoveCode = this.getTableMove(root, entry);
+					if(TranspositionTable.getDepth(entry) >= depthLimit){
+						int storedValue = TranspositionTable.getScore(entry);
+						byte bound = TranspositionTable.getBound(entry);
+						if( bound == TranspositionTable.EXACT 
+								|| (bound == TranspositionTable.LOWER_BOUND && storedValue >= beta)
+								|| (bound == TranspositionTable.UPPER_BOUND && storedValue <= alpha) ){
+							this.numTableCutoffs++;
+							return storedValue;
+						}
+					}
+				}
+			}
+			int originalAlpha = alpha;
+			int originalBeta = beta;
+			int bestMoveCode = TranspositionTable.NO_MOVE;
 			
-			//get all the allowable moves for this state
-			ArrayList<Move> allowableMoves;
-			GameStateNode childStateNode;
+			//get all the allowable moves for this state, and rank them so the likely best are tried first
+			int playerIndex = root.getPlayerIndex(activePlayer);
+			this.growPlyBuffers(root, depthLimit);
+			int[] moves = this.moveBuffers[depthLimit];
+			int[] moveScores = this.moveScoreBuffers[depthLimit];
+			int numMoves = root.getBoardState().generateMoves(playerIndex, moves);
+			this.scoreMoves(root, moves, moveScores, numMoves, tableMoveCode, depthLimit, playerIndex);
+			int move;
+			int madeMove;
 			
 			if(bIsMaxNode){
-				//get the allowable moves for the current state
-				allowableMoves = root.getAllowableMoves(root.getMaximizingPlayer());
 				//n is a max node
-				int miniMaxValue = alpha;
+				int miniMaxValue = this.bFailSoft ? Integer.MIN_VALUE : alpha;
 				int childValue;
 				
 				//consider every child state resulting from an allowable move
-				for(int moveIndex = 0; moveIndex < allowableMoves.size(); moveIndex++){
-					childStateNode = root.getChildStateAfterMove(root.getMaximizingPlayer(), allowableMoves.get(moveIndex));
-					//evaluate the child state
+				for(int moveIndex = 0; moveIndex < numMoves; moveIndex++){
+					move = this.selectNextMove(moves, moveScores, numMoves, moveIndex);
+					//futility, just above the depth limit the child is worth at most the score the move leaves
+					if(bBoundPruning && depthLimit == 1){
+						int optimisticValue = scoreDifference + this.getScoreGain(root, move, playerIndex);
+						if(optimisticValue <= alpha){
+							this.numBoundPrunes++;
+							miniMaxValue = Math.max(miniMaxValue, optimisticValue);
+							continue;
+						}
+					}
+					//evaluate the child state by making the move in place, then take it back
+					madeMove = root.makeMove(move, playerIndex);
 					this.numExpandedNodes++;
-					childValue = alphaBeta(childStateNode, depthLimit-1, miniMaxValue, beta, false);
+					if(this.isReducible(root, move, moveScores[moveIndex], moveIndex, depthLimit)){
+						childValue = this.reducedSearch(root, depthLimit-1, alpha, beta, false);
+					}
+					else if(this.bUsePVS && moveIndex > 0){
+						childValue = this.nullWindowSearch(root, depthLimit-1, alpha, beta, false);
+					}
+					else{
+						childValue = alphaBeta(root, depthLimit-1, alpha, beta, false);
+					}
+					root.unmakeMove(madeMove, playerIndex);
+					if(this.bSearchAborted){
+						return 0;
+					}
 					//n is a max node, its minimax value will be the max of its children
-					miniMaxValue = Math.max(miniMaxValue, childValue);
+					if(childValue > miniMaxValue){
+						miniMaxValue = childValue;
+						bestMoveCode = move;
+					}
 					
 					//update alpha and check if alpha and beta crossed
 					alpha = Math.max(alpha, miniMaxValue);
-					if(beta < alpha){
+					if(beta <= alpha){
 						//break;
-						return alpha;
+						this.recordCutoff(move, moveIndex, depthLimit, playerIndex);
+						this.storeInTranspositionTable(root, hashKey, depthLimit, miniMaxValue, TranspositionTable.LOWER_BOUND, bestMoveCode);
+						return miniMaxValue;
 					}
 				}
+				this.storeBoundedResult(root, hashKey, depthLimit, miniMaxValue, originalAlpha, originalBeta, bestMoveCode);
 				return miniMaxValue;
 			}
 			else{ 
-				allowableMoves = root.getAllowableMoves(root.getMinimizingPlayer());
 				//n is a min node
-				int miniMaxValue = beta;
+				int miniMaxValue = this.bFailSoft ? Integer.MAX_VALUE : beta;
 				int childValue;
 				
 				//consider every child state resulting from an allowable move
-				for(int moveIndex = 0; moveIndex < allowableMoves.size(); moveIndex++){
-					childStateNode = root.getChildStateAfterMove(root.getMinimizingPlayer(), allowableMoves.get(moveIndex));
-					//evaluate the child state
+				for(int moveIndex = 0; moveIndex < numMoves; moveIndex++){
+					move = this.selectNextMove(moves, moveScores, numMoves, moveIndex);
+					//futility, just above the depth limit the child is worth at least the score the move leaves
+					if(bBoundPruning && depthLimit == 1){
+						int optimisticValue = scoreDifference - this.getScoreGain(root, move, playerIndex);
+						if(optimisticValue >= beta){
+							this.numBoundPrunes++;
+							miniMaxValue = Math.min(miniMaxValue, optimisticValue);
+							continue;
+						}
+					}
+					//evaluate the child state by making the move in place, then take it back
+					madeMove = root.makeMove(move, playerIndex);
 					this.numExpandedNodes++;
-					childValue = alphaBeta(childStateNode, depthLimit-1, alpha, miniMaxValue, true);
-					miniMaxValue = Math.min(miniMaxValue, childValue);
+					if(this.isReducible(root, move, moveScores[moveIndex], moveIndex, depthLimit)){
+						childValue = this.reducedSearch(root, depthLimit-1, alpha, beta, true);
+					}
+					else if(this.bUsePVS && moveIndex > 0){
+						childValue = this.nullWindowSearch(root, depthLimit-1, alpha, beta, true);
+					}
+					else{
+						childValue = alphaBeta(root, depthLimit-1, alpha, beta, true);
+					}
+					root.unmakeMove(madeMove, playerIndex);
+					if(this.bSearchAborted){
+						return 0;
+					}
+					if(childValue < miniMaxValue){
+						miniMaxValue = childValue;
+						bestMoveCode = move;
+					}
 					beta = Math.min(beta,  miniMaxValue);
-					if(beta < alpha){
-						return beta;
+					if(beta <= alpha){
+						this.recordCutoff(move, moveIndex, depthLimit, playerIndex);
+						this.storeInTranspositionTable(root, hashKey, depthLimit, miniMaxValue, TranspositionTable.UPPER_BOUND, bestMoveCode);
+						return miniMaxValue;
 						//break;
 					}
 				}
+				this.storeBoundedResult(root, hashKey, depthLimit, miniMaxValue, originalAlpha, originalBeta, bestMoveCode);
 				return miniMaxValue;
 			}
 		}
 	}
 	
 	/**
-	 * need to scale this somehow by the possibility of being blitzed... 
-	 * should add a check for blitzable neighbors and tally the potential score
-	 * to be stolen, weighting the score difference by the proportion that could
-	 * be stolen maybe???
+	 * Late move reductions apply to para drops ranked by history alone (not the table 
+	 * move, a capture or a killer), after the first few moves of a node with depth 
+	 * to spare, into a grid space worth no more than the average empty grid space.
+	 * @param state - the state after the move
+	 * @param move
+	 * @param moveScore - the ranking score of the move, see scoreMoves
+	 * @param moveIndex - how many moves were searched before it
+	 * @param depthLimit - remaining depth of the node making the move
+	 * @return true if the move is searched a ply shallower first
+	 */
+	private boolean isReducible(GameStateNode state, int move, int moveScore, int moveIndex, int depthLimit){
+		if(!this.bUseForwardPruning || depthLimit < LMR_MIN_DEPTH || moveIndex < LMR_FIRST_MOVE || moveScore > MAX_HISTORY_SCORE || Move.isBlitz(move)){
+			return false;
+		}
+		BitBoard bitBoard = state.getBoardState().getBitBoard();
+		//the move has been made, so its grid space is added back to the empty ones to take the average
+		int gridSpaceValue = bitBoard.getGridSpaceValue(Move.getGridSpaceIndex(move));
+		return gridSpaceValue * (bitBoard.getNumEmptyGridSpaces() + 1) <= bitBoard.getEmptyValue() + gridSpaceValue;
+	}
+	
+	/**
+	 * Late move reduction of a move, with the move already made. The child is first 
+	 * searched a ply shallower with a null window, which only answers whether the move 
+	 * is better than the parent's best so far. Only if it is, is the child searched 
+	 * again to its full depth, as it would have been without the reduction.
+	 * @param state - the state after the move
+	 * @param depthLimit - full remaining depth of the child
+	 * @param alpha
+	 * @param beta
+	 * @param bIsMaxNode - true if the child is a max node, ie: the parent is a min node
+	 * @return the value of the child, or the bound the reduced search proved on it
+	 */
+	private int reducedSearch(GameStateNode state, int depthLimit, int alpha, int beta, boolean bIsMaxNode){
+		this.numReductions++;
+		int childValue;
+		if(!bIsMaxNode){
+			childValue = alphaBeta(state, depthLimit-1, alpha, alpha + 1, false);
+			if(childValue <= alpha || this.bSearchAborted){
+				return childValue;
+			}
+		}
+		else{
+			childValue = alphaBeta(state, depthLimit-1, beta - 1, beta, true);
+			if(childValue >= beta || this.bSearchAborted){
+				return childValue;
+			}
+		}
+		this.numReductionResearches++;
+		if(this.bUsePVS){
+			return this.nullWindowSearch(state, depthLimit, alpha, beta, bIsMaxNode);
+		}
+		return alphaBeta(state, depthLimit, alpha, beta, bIsMaxNode);
+	}
+	
+	/**
+	 * @param state - the state before the move
+	 * @param move
+	 * @param playerIndex - the player making the move
+	 * @return how much the move adds to the player's lead, the value of the grid 
+	 * 			space plus twice the value a blitz conquers
+	 */
+	private int getScoreGain(GameStateNode state, int move, int playerIndex){
+		BitBoard bitBoard = state.getBoardState().getBitBoard();
+		int gridSpaceIndex = Move.getGridSpaceIndex(move);
+		int scoreGain = bitBoard.getGridSpaceValue(gridSpaceIndex);
+		if(Move.isBlitz(move)){
+			scoreGain += 2 * bitBoard.getNeighborValue(gridSpaceIndex, 1 - playerIndex);
+		}
+		return scoreGain;
+	}
+	
+	/**
+	 * Principal variation search of a move after the first, with the move already made.
+	 * The child is first searched with a null window just around the parent's best value 
+	 * so far, which only answers whether the move is better. If it is, and by less than 
+	 * the far side of the window would cut off anyway, it is searched again with the 
+	 * full window to find out by how much.
+	 * @param state - the state after the move
+	 * @param depthLimit - remaining depth of the child
+	 * @param alpha - the parent's window, alpha is the best value so far of a max parent
+	 * @param beta - and beta the best value so far of a min parent
+	 * @param bIsMaxNode - true if the child is a max node, ie: the parent is a min node
+	 * @return the value of the child, as alphaBeta would have returned it
+	 */
+	private int nullWindowSearch(GameStateNode state, int depthLimit, int alpha, int beta, boolean bIsMaxNode){
+		if(!bIsMaxNode){
+			//the max parent asks whether the move beats alpha
+			int childValue = alphaBeta(state, depthLimit, alpha, alpha + 1, false);
+			if(childValue > alpha && childValue < beta && !this.bSearchAborted){
+				childValue = alphaBeta(state, depthLimit, alpha, beta, false);
+			}
+			return childValue;
+		}
+		//the min parent asks whether the move comes in under beta
+		int childValue = alphaBeta(state, depthLimit, beta - 1, beta, true);
+		if(childValue < beta && childValue > alpha && !this.bSearchAborted){
+			childValue = alphaBeta(state, depthLimit, alpha, beta, true);
+		}
+		return childValue;
+	}
+	
+	/**
+	 * quiescence:
+	 * 		Searches past the depth limit of alpha beta, but only the blitzes which 
+	 * 		conquer something, so the heuristic is only trusted in a quiet state.
+	 * 
+	 * 		Stand pat: the player to move is never forced to blitz, and is assumed to 
+	 * 		have a quiet move at least as good as the heuristic value of the state. So 
+	 * 		that value bounds the node, and on its own may already cut the node off. 
+	 * 
+	 * 		Capture value cutoff: a blitz changes the score difference by the value 
+	 * 		of the grid space plus twice the value it conquers. A blitz which could 
+	 * 		not lift the stand pat value past the window even so is not searched. 
+	 * 		Blitzes are searched most valuable first, so once one can not the rest 
+	 * 		can not either.
+	 * 
+	 * 		Nothing is stored in the transposition table, and the search stops after 
+	 * 		MAX_QUIESCENCE_PLIES blitzes however loud the state still is.
 	 * @param state
-	 * @return
+	 * @param alpha
+	 * @param beta
+	 * @param bIsMaxNode
+	 * @param ply - blitzes made since the depth limit
+	 * @return the value of the state to the max player once the blitzes have played out
 	 */
-	public int evaluate(GameStateNode state, boolean bIsMaxNode){
-		int maxPlyrScore = state.getMaximizingPlayer().getCurrentScore();
-		int minPlyrScore = state.getMinimizingPlayer().getCurrentScore();
-		
-		int heuristic;
-		int scoreDifference = maxPlyrScore - minPlyrScore;
-		
-		
-		//default heuristic
-		heuristic = scoreDifference;
-		return heuristic;
-		
+	private int quiescence(GameStateNode state, int alpha, int beta, boolean bIsMaxNode, int ply){
+		if( this.checkSearchLimits() ){
+			return 0;
+		}
+		int standPat = evaluate(state, bIsMaxNode);
+		if( state.isLeafNode() || ply == MAX_QUIESCENCE_PLIES ){
+			return standPat;
+		}
+		if( bIsMaxNode ? standPat >= beta : standPat <= alpha ){
+			if(this.bFailSoft){
+				return standPat;
+			}
+			return bIsMaxNode ? beta : alpha;
+		}
 		
-		//Custom Heuristic #1: Secured Portion Weighting
-		/*int portionSecuredForActivePlayer;
+		//rank the blitzes by how much they change the score difference
+		Player activePlayer = bIsMaxNode ? state.getMaximizingPlayer() : state.getMinimizingPlayer();
+		int playerIndex = state.getPlayerIndex(activePlayer);
+		if(this.quiescenceMoveBuffers == null){
+			int maxNumMoves = state.getBoardState().getMaxNumMoves();
+			this.quiescenceMoveBuffers = new int[MAX_QUIESCENCE_PLIES][maxNumMoves];
+			this.quiescenceScoreBuffers = new int[MAX_QUIESCENCE_PLIES][maxNumMoves];
+		}
+		int[] moves = this.quiescenceMoveBuffers[ply];
+		int[] moveGains = this.quiescenceScoreBuffers[ply];
+		BitBoard bitBoard = state.getBoardState().getBitBoard();
+		int numMoves = state.getBoardState().generateCaptures(playerIndex, moves);
+		for(int moveIndex = 0; moveIndex < numMoves; moveIndex++){
+			int gridSpaceIndex = Move.getGridSpaceIndex(moves[moveIndex]);
+			moveGains[moveIndex] = bitBoard.getGridSpaceValue(gridSpaceIndex) + 2 * bitBoard.getNeighborValue(gridSpaceIndex, 1 - playerIndex);
+		}
 		
-		if (bIsMaxNode) {
-			//it is the max player's turn... best case is positive score difference and large portion secured
-			if( maxPlyrScore > 0 ){
-				int maxPlyrVulnPoints = state.getBoardState().getVulnerablePoints(state.getMaximizingPlayer().getPlayerID());
-				portionSecuredForActivePlayer = 1 - ( maxPlyrVulnPoints / maxPlyrScore );
+		int miniMaxValue;
+		if(bIsMaxNode){
+			miniMaxValue = this.bFailSoft ? standPat : Math.max(alpha, standPat);
+			alpha = Math.max(alpha, standPat);
+		}
+		else{
+			miniMaxValue = this.bFailSoft ? standPat : Math.min(beta, standPat);
+			beta = Math.min(beta, standPat);
+		}
+		for(int moveIndex = 0; moveIndex < numMoves; moveIndex++){
+			int move = this.selectNextMove(moves, moveGains, numMoves, moveIndex);
+			int optimisticValue = bIsMaxNode ? standPat + moveGains[moveIndex] : standPat - moveGains[moveIndex];
+			if( bIsMaxNode ? optimisticValue <= alpha : optimisticValue >= beta ){
+				//failing soft, the node is still bounded by what the skipped blitzes could have reached
+				if(this.bFailSoft){
+					miniMaxValue = bIsMaxNode ? Math.max(miniMaxValue, optimisticValue) : Math.min(miniMaxValue, optimisticValue);
+				}
+				break;
 			}
-			else{
-				portionSecuredForActivePlayer = 1;
+			int madeMove = state.makeMove(move, playerIndex);
+			this.numExpandedNodes++;
+			this.numQuiescenceNodes++;
+			int childValue = quiescence(state, alpha, beta, !bIsMaxNode, ply + 1);
+			state.unmakeMove(madeMove, playerIndex);
+			if(this.bSearchAborted){
+				return 0;
 			}
-			if(scoreDifference > 0){
-				heuristic = scoreDifference * portionSecuredForActivePlayer;
+			if(bIsMaxNode){
+				miniMaxValue = Math.max(miniMaxValue, childValue);
+				alpha = Math.max(alpha, miniMaxValue);
 			}
 			else{
-				heuristic = scoreDifference * (1-portionSecuredForActivePlayer);
+				miniMaxValue = Math.min(miniMaxValue, childValue);
+				beta = Math.min(beta, miniMaxValue);
 			}
-		} else {
-			//it is the min player's turn... best case is negative score difference and large portion secured
-			if( minPlyrScore > 0 ){
-				int minPlyrVulnPoints = state.getBoardState().getVulnerablePoints(state.getMinimizingPlayer().getPlayerID());
-				portionSecuredForActivePlayer = 1 - ( minPlyrVulnPoints / minPlyrScore );
+			if(beta <= alpha){
+				break;
 			}
-			else{
-				portionSecuredForActivePlayer = 1;
+		}
+		return miniMaxValue;
+	}
+	
+	/**
+	 * Move Ordering:
+	 * 		Alpha beta prunes the most when the best move is searched first. 
+	 * 		Moves are ranked, from first to last, as:
+	 * 			1. the best move stored in the transposition table for this state
+	 * 			2. blitzes which conquer something, most conquered value first
+	 * 			3. killer moves, quiet moves which recently caused a cutoff at this ply
+	 * 			4. everything else, by how often the move has caused cutoffs (history)
+	 * 		Every generated blitz conquers something, so blitzes are the captures.
+	 * @param state
+	 * @param moves - packed moves, see Move
+	 * @param moveScores - filled with a ranking score for each move, larger is searched earlier
+	 * @param numMoves
+	 * @param tableMoveCode - best move from the transposition table, or NO_MOVE
+	 * @param depthLimit - remaining depth, which identifies the ply within a search
+	 * @param playerIndex - the player making the moves
+	 */
+	private void scoreMoves(GameStateNode state, int[] moves, int[] moveScores, int numMoves, int tableMoveCode, int depthLimit, int playerIndex){
+		BitBoard bitBoard = state.getBoardState().getBitBoard();
+		int[] killers = this.getKillerMoves(depthLimit);
+		for(int moveIndex = 0; moveIndex < numMoves; moveIndex++){
+			int moveCode = moves[moveIndex];
+			if(moveCode == tableMoveCode){
+				moveScores[moveIndex] = TABLE_MOVE_SCORE;
 			}
-			if( scoreDifference > 0 ){
-				heuristic = scoreDifference * (1 - portionSecuredForActivePlayer);
+			else if(Move.isBlitz(moveCode)){
+				moveScores[moveIndex] = CAPTURE_SCORE + bitBoard.getNeighborValue(Move.getGridSpaceIndex(moveCode), 1 - playerIndex);
+			}
+			else if(moveCode == killers[0]){
+				moveScores[moveIndex] = KILLER_SCORE;
+			}
+			else if(moveCode == killers[1]){
+				moveScores[moveIndex] = KILLER_SCORE - 1;
 			}
 			else{
-				heuristic = scoreDifference * portionSecuredForActivePlayer;
+				moveScores[moveIndex] = this.historyTable[playerIndex][Move.getGridSpaceIndex(moveCode)];
 			}
 		}
-		return heuristic;
-		*/
-		
-		
-		//Custom Heuristic #2:  score difference after subtracting the vulnerable points from active player's score
-		/*
-		int securedScore;
-		if (bIsMaxNode) {
-			//it is the max player's turn... best case is positive score difference and large portion secured
-			int maxPlyrVulnPoints = state.getBoardState().getVulnerablePoints(state.getMaximizingPlayer().getPlayerID());
-			securedScore = maxPlyrScore - maxPlyrVulnPoints;
-			heuristic = securedScore - minPlyrScore;
-		} 
-		else {
-			//it is the min player's turn... best case is negative score difference and large portion secured
-			int minPlyrVulnPoints = state.getBoardState().getVulnerablePoints(state.getMinimizingPlayer().getPlayerID());
-			securedScore = minPlyrScore - minPlyrVulnPoints;
-			heuristic = maxPlyrScore - securedScore;
+	}
+	
+	/**
+	 * Selection sort step, performed lazily so that moves after a cutoff are never sorted.
+	 * Swaps the highest ranked of the remaining moves into position.
+	 * @param moves
+	 * @param moveScores
+	 * @param numMoves
+	 * @param moveIndex - the position to fill
+	 * @return the move to search at moveIndex
+	 */
+	private int selectNextMove(int[] moves, int[] moveScores, int numMoves, int moveIndex){
+		int bestIndex = moveIndex;
+		for(int i = moveIndex + 1; i < numMoves; i++){
+			if(moveScores[i] > moveScores[bestIndex]){
+				bestIndex = i;
+			}
 		}
-		return heuristic;
-		*/
-		
-		
-		//Custom Heuristic #3:  tiny weight given to vulnerable points
-	/*	int securedScore;
-		float weight = 0.1f;
-		if (bIsMaxNode) {
-			//it is the max player's turn... best case is positive score difference and large portion secured
-			int maxPlyrVulnPoints = state.getBoardState().getVulnerablePoints(state.getMaximizingPlayer().getPlayerID());
-			heuristic = maxPlyrScore - minPlyrScore - (int)(maxPlyrVulnPoints*weight);
-		} 
-		else {
-			//it is the min player's turn... best case is negative score difference and large portion secured
-			int minPlyrVulnPoints = state.getBoardState().getVulnerablePoints(state.getMinimizingPlayer().getPlayerID());
-			heuristic = maxPlyrScore - minPlyrScore + (int)(minPlyrVulnPoints*weight);
+		if(bestIndex != moveIndex){
+			int tempScore = moveScores[moveIndex];
+			moveScores[moveIndex] = moveScores[bestIndex];
+			moveScores[bestIndex] = tempScore;
+			int tempMove = moves[moveIndex];
+			moves[moveIndex] = moves[bestIndex];
+			moves[bestIndex] = tempMove;
+		}
+		return moves[moveIndex];
+	}
+	
+	/**
+	 * Notes a beta cutoff. Quiet moves that cause a cutoff become killer 
+	 * moves for the ply and gain history, since they are likely to cause a 
+	 * cutoff again in sibling positions.
+	 * @param moveCode - the move that caused the cutoff
+	 * @param moveIndex - how many moves were searched before it
+	 * @param depthLimit
+	 * @param playerIndex
+	 */
+	private void recordCutoff(int moveCode, int moveIndex, int depthLimit, int playerIndex){
+		this.numCutoffs++;
+		if(moveIndex == 0){
+			this.numFirstMoveCutoffs++;
+		}
+		if(Move.isBlitz(moveCode)){
+			return;
+		}
+		int[] killers = this.getKillerMoves(depthLimit);
+		if(killers[0] != moveCode){
+			killers[1] = killers[0];
+			killers[0] = moveCode;
+		}
+		int gridSpaceIndex = Move.getGridSpaceIndex(moveCode);
+		this.historyTable[playerIndex][gridSpaceIndex] = Math.min(MAX_HISTORY_SCORE, this.historyTable[playerIndex][gridSpaceIndex] + depthLimit * depthLimit);
+	}
+	
+	/**
+	 * @param depthLimit
+	 * @return the two killer move slots for the ply at the remaining depth
+	 */
+	private int[] getKillerMoves(int depthLimit){
+		if(depthLimit >= this.killerMoves.length){
+			int[][] grownKillerMoves = new int[depthLimit + 1][];
+			for(int depth = 0; depth < grownKillerMoves.length; depth++){
+				if(depth < this.killerMoves.length){
+					grownKillerMoves[depth] = this.killerMoves[depth];
+				}
+				else{
+					grownKillerMoves[depth] = new int[]{TranspositionTable.NO_MOVE, TranspositionTable.NO_MOVE};
+				}
+			}
+			this.killerMoves = grownKillerMoves;
+		}
+		return this.killerMoves[depthLimit];
+	}
+	
+	/**
+	 * Makes sure there are move buffers for every ply down from the remaining depth
+	 * @param state
+	 * @param depthLimit
+	 */
+	private void growPlyBuffers(GameStateNode state, int depthLimit){
+		if(depthLimit >= this.moveBuffers.length){
+			int maxNumMoves = state.getBoardState().getMaxNumMoves();
+			int[][] grownMoveBuffers = new int[depthLimit + 1][];
+			int[][] grownMoveScoreBuffers = new int[depthLimit + 1][];
+			for(int depth = 0; depth < grownMoveBuffers.length; depth++){
+				if(depth < this.moveBuffers.length){
+					grownMoveBuffers[depth] = this.moveBuffers[depth];
+					grownMoveScoreBuffers[depth] = this.moveScoreBuffers[depth];
+				}
+				else{
+					grownMoveBuffers[depth] = new int[maxNumMoves];
+					grownMoveScoreBuffers[depth] = new int[maxNumMoves];
+				}
+			}
+			this.moveBuffers = grownMoveBuffers;
+			this.moveScoreBuffers = grownMoveScoreBuffers;
 		}
+	}
+	
+	/**
+	 * Stores the result of an alpha beta search of a node, classified relative 
+	 * to the window the node was searched with. A node's value is clamped to 
+	 * its window, so when the window has closed (alpha == beta) the result says 
+	 * nothing about which side of the window the true value lies, and nothing 
+	 * is stored.
+	 * @param state - the state searched
+	 * @param hashKey
+	 * @param depthLimit
+	 * @param value
+	 * @param originalAlpha
+	 * @param originalBeta
+	 * @param bestMoveCode
+	 */
+	private void storeBoundedResult(GameStateNode state, long hashKey, int depthLimit, int value, int originalAlpha, int originalBeta, int bestMoveCode){
+		if(originalAlpha >= originalBeta){
+			return;
+		}
+		byte bound = TranspositionTable.EXACT;
+		if(value <= originalAlpha){
+			bound = TranspositionTable.UPPER_BOUND;
+		}
+		else if(value >= originalBeta){
+			bound = TranspositionTable.LOWER_BOUND;
+		}
+		this.storeInTranspositionTable(state, hashKey, depthLimit, value, bound, bestMoveCode);
+	}
+	
+	/**
+	 * Looks up a state in the transposition table, keeping track of hit statistics
+	 * @param hashKey
+	 * @return the packed table entry for the state, or NO_ENTRY if it is not in the table
+	 */
+	private long probeTranspositionTable(long hashKey){
+		this.numTableProbes++;
+		long entry = this.transpositionTable.probe(hashKey);
+		if(entry != TranspositionTable.NO_ENTRY){
+			this.numTableHits++;
+		}
+		return entry;
+	}
+	
+	/**
+	 * Stores a search result in the transposition table, if one is in use. The state's 
+	 * key is shared by its rotations and reflections, so the move is stored as the 
+	 * equivalent move of the canonical one (see getTableMove).
+	 * @param state - the state searched
+	 * @param hashKey
+	 * @param depthLimit
+	 * @param value
+	 * @param bound
+	 * @param bestMoveCode
+	 */
+	private void storeInTranspositionTable(GameStateNode state, long hashKey, int depthLimit, int value, byte bound, int bestMoveCode){
+		if(this.transpositionTable != null && !this.bSearchAborted){
+			this.transpositionTable.store(hashKey, depthLimit, value, bound, state.getBoardState().toCanonicalMove(bestMoveCode));
+		}
+	}
+	
+	/**
+	 * @param state - the state probed
+	 * @param entry - the state's transposition table entry
+	 * @return the best move stored in the entry, as a move of the state
+	 */
+	private int getTableMove(GameStateNode state, long entry){
+		return state.getBoardState().fromCanonicalMove(TranspositionTable.getBestMove(entry));
+	}
+	
+	/**
+	 * Scores a state where the search stops, with the search's heuristic
+	 * @param state
+	 * @param bIsMaxNode - true if it is the maximizing player's turn in the state
+	 * @return the worth of the state to the maximizing player
+	 */
+	public int evaluate(GameStateNode state, boolean bIsMaxNode){
+		return this.heuristic.evaluate(state, bIsMaxNode);
+	}
+	
+	/**
+	 * Extends alpha beta searches with a quiescence search of the blitzes at the depth limit
+	 * @param bUseQuiescence
+	 */
+	public void setQuiescenceSearch(boolean bUseQuiescence){
+		this.bUseQuiescence = bUseQuiescence;
+	}
+	
+	/**
+	 * Adds late move reductions, futility and decided game pruning to alpha beta searches
+	 * @param bUseForwardPruning
+	 */
+	public void setForwardPruning(boolean bUseForwardPruning){
+		this.bUseForwardPruning = bUseForwardPruning;
+	}
+	
+	public int getNumReductions() {
+		return numReductions;
+	}
+	
+	public int getNumReductionResearches() {
+		return numReductionResearches;
+	}
+	
+	/**
+	 * @return the number of nodes and moves the last search cut off by futility or a decided game
+	 */
+	public int getNumBoundPrunes() {
+		return numBoundPrunes;
+	}
+
+	/**
+	 * @return the number of root moves skipped as a rotation or reflection of an earlier one
+	 */
+	public int getNumSymmetricRootMoves() {
+		return numSymmetricRootMoves;
+	}
+	
+	/**
+	 * @return the number of nodes of the last search expanded by the quiescence search, 
+	 * 			which are included in getNumExpandedNodes
+	 */
+	public int getNumQuiescenceNodes() {
+		return numQuiescenceNodes;
+	}
+	
+	/**
+	 * Seeds the next MTD(f) search, which otherwise starts from the heuristic value of the root
+	 * @param firstGuess - the expected value of the root, ie: the previous iteration's or move's score
+	 */
+	public void setFirstGuess(int firstGuess){
+		this.firstGuess = firstGuess;
+		this.bHasFirstGuess = true;
+	}
+	
+	/**
+	 * @return the number of null window searches of the root the last MTD(f) search made
+	 */
+	public int getNumMTDFPasses() {
+		return numMTDFPasses;
+	}
+	
+	public SearchEngine getEngine() {
+		return engine;
+	}
+	
+	public Heuristic getHeuristic() {
 		return heuristic;
-		*/
-		
 	}
 	
 	public void setMiniMaxDepthLimit(int depthLimit){
@@ -333,6 +1378,57 @@ public class AdversarialSearch {
 	public int getNumExpandedNodes() {
 		return numExpandedNodes;
 	}
+
+	public int getNumTableProbes() {
+		return numTableProbes;
+	}
+
+	public int getNumTableHits() {
+		return numTableHits;
+	}
+
+	public int getNumTableCutoffs() {
+		return numTableCutoffs;
+	}
+
+	public int getNumCutoffs() {
+		return numCutoffs;
+	}
+
+	public int getNumFirstMoveCutoffs() {
+		return numFirstMoveCutoffs;
+	}
+
+	/**
+	 * With perfect move ordering every cutoff happens on the first move searched.
+	 * @return fraction of alpha beta cutoffs that happened on the first move
+	 */
+	public double getOrderingQuality() {
+		if(this.numCutoffs == 0){
+			return 0;
+		}
+		return (double) this.numFirstMoveCutoffs / this.numCutoffs;
+	}
+
+	/**
+	 * @return fraction of transposition table probes that found the state
+	 */
+	public double getTableHitRate() {
+		if(this.numTableProbes == 0){
+			return 0;
+		}
+		return (double) this.numTableHits / this.numTableProbes;
+	}
+
+	/**
+	 * @return fraction of transposition table probes that settled the node without searching it
+	 */
+	public double getTableCutoffRate() {
+		if(this.numTableProbes == 0){
+			return 0;
+		}
+		return (double) this.numTableCutoffs / this.numTableProbes;
+	}
 	
 	public static void main(String[] args) {
 		// TODO Auto-generated method stub
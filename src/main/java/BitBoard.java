@@ -0,0 +1,499 @@
+/**
+ * BitBoard:
+ * 		Bitboard representation of the occupancy of a game board. Each
+ * 		grid space is assigned a bit by its row major index, and each
+ * 		player's pieces are held as a mask with one bit per grid space.
+ * 		The shipped 6x6 boards fit into a single long per player, larger
+ * 		boards simply use more 64 bit words.
+ *
+ * 		The neighbor mask of every grid space (left, right, above, below)
+ * 		and the value of every grid space come from the board's topology,
+ * 		which is shared by every copy, so copying a bitboard only copies
+ * 		the occupancy masks. Questions the search asks over
+ * 		and over, like "is the grid filled", "does this player touch this
+ * 		space" or "which enemy pieces does a blitz here conquer", become a
+ * 		handful of mask operations.
+ *
+ * 	Frontiers:
+ * 		A player's frontier is the set of empty grid spaces adjacent to at
+ * 		least one of the player's pieces, ie: where the player could blitz.
+ * 		Each player's frontier is kept as a mask, together with a count of
+ * 		the player's pieces around every grid space, and both are updated by
+ * 		occupy and vacate, which only ever touch the four neighbors of the
+ * 		grid space. A flip is a vacate followed by an occupy, so it updates
+ * 		the frontiers of both players. Blitzes that conquer something are
+ * 		only possible on the intersection of the two frontiers, which on a
+ * 		large board is a small fraction of the empty spaces.
+ *
+ * 	Vulnerability:
+ * 		A piece is vulnerable when it touches a space on the opponent's
+ * 		frontier, ie: a single enemy blitz there would conquer it. For each
+ * 		player the bitboard keeps the number of opponent frontier spaces
+ * 		around every grid space, the mask of the player's vulnerable pieces
+ * 		and their summed value. A space only joins or leaves a frontier next
+ * 		to the grid space that changed, so occupy and vacate only touch the
+ * 		grid spaces within two steps of it. That roughly doubles the cost of
+ * 		making a move, so the map is only built the first time it is asked for
+ * 		(ie: by a heuristic that uses it) and kept up to date from then on.
+ *
+ * 		The summed value of each player's pieces around every grid space is
+ * 		always kept, which is the value a blitz into that space would conquer
+ * 		from the player.
+ *
+ * 	Settled Pieces:
+ * 		A piece with no empty neighbors can never be conquered, since a blitz
+ * 		only conquers the pieces around the empty space it fills, and a space
+ * 		never becomes empty again. The summed value of each player's settled
+ * 		pieces, and of the empty grid spaces, is kept up to date by occupy and
+ * 		vacate, which bounds the final score of the game (see getSettledValue).
+ *
+ * @author dcyoung3
+ */
+public class BitBoard {
+	//tables shared by every copy of the board
+	private BoardTopology topology;
+	private int numWords;
+
+	//occupancy masks, indexed [playerIndex][word]
+	private long[][] occupancy;
+	//counts of the masks, kept up to date by occupy and vacate
+	private int[] numOccupiedGridSpaces;
+	private int numEmptyGridSpaces;
+	//frontier masks, indexed [playerIndex][word], and the number of the player's pieces around each grid space
+	private long[][] frontier;
+	private byte[][] numAdjacentPieces;
+	//the value of the player's pieces around each grid space, indexed [playerIndex][gridSpace]
+	private int[][] neighborValues;
+	//the value of each player's pieces with no empty neighbors, and of the empty grid spaces
+	private int[] settledValue;
+	private int emptyValue;
+	//vulnerability map, only kept once bTrackingVulnerability is set
+	private boolean bTrackingVulnerability;
+	//the number of opponent frontier spaces around each grid space, indexed [playerIndex][gridSpace]
+	private byte[][] numBlitzThreats;
+	//the player's pieces touching the opponent's frontier, indexed [playerIndex][word], and their summed value
+	private long[][] vulnerable;
+	private int[] vulnerablePoints;
+
+	/**
+	 * Constructor, an empty occupancy of the board
+	 * @param topology
+	 */
+	public BitBoard(BoardTopology topology){
+		this.topology = topology;
+		this.numWords = topology.getNumWords();
+		this.occupancy = new long[2][this.numWords];
+		this.numOccupiedGridSpaces = new int[2];
+		this.numEmptyGridSpaces = topology.getNumGridSpaces();
+		this.frontier = new long[2][this.numWords];
+		this.numAdjacentPieces = new byte[2][topology.getNumGridSpaces()];
+		this.neighborValues = new int[2][topology.getNumGridSpaces()];
+		this.settledValue = new int[2];
+		for(int gridSpaceIndex = 0; gridSpaceIndex < topology.getNumGridSpaces(); gridSpaceIndex++){
+			this.emptyValue += topology.getGridSpaceValue(gridSpaceIndex);
+		}
+	}
+
+	/**
+	 * Empty constructor, for use when deep copying an existing bitboard
+	 */
+	private BitBoard(){
+
+	}
+
+	/**
+	 * Marks a grid space as occupied by the player
+	 * @param gridSpaceIndex
+	 * @param playerIndex
+	 */
+	public void occupy(int gridSpaceIndex, int playerIndex){
+		int gridSpaceValue = this.topology.getGridSpaceValue(gridSpaceIndex);
+		this.occupancy[playerIndex][gridSpaceIndex >>> 6] |= 1L << gridSpaceIndex;
+		this.numOccupiedGridSpaces[playerIndex]++;
+		this.numEmptyGridSpaces--;
+		this.emptyValue -= gridSpaceValue;
+
+		//the grid space is no longer empty, so it leaves both frontiers
+		this.removeFromFrontier(0, gridSpaceIndex);
+		this.removeFromFrontier(1, gridSpaceIndex);
+		//and its empty neighbors join the player's frontier
+		byte[] adjacentPieces = this.numAdjacentPieces[playerIndex];
+		int[] values = this.neighborValues[playerIndex];
+		int[] neighbors = this.topology.getNeighbors(gridSpaceIndex);
+		for(int neighborIndex = 0; neighborIndex < neighbors.length; neighborIndex++){
+			int neighbor = neighbors[neighborIndex];
+			values[neighbor] += gridSpaceValue;
+			if(adjacentPieces[neighbor]++ == 0 && this.getOccupant(neighbor) == -1){
+				this.addToFrontier(playerIndex, neighbor);
+			}
+			//a piece whose last empty neighbor this was is now settled
+			if(this.getNumEmptyNeighbors(neighbor) == 0){
+				this.settle(neighbor, this.topology.getGridSpaceValue(neighbor));
+			}
+		}
+		if(this.getNumEmptyNeighbors(gridSpaceIndex) == 0){
+			this.settledValue[playerIndex] += gridSpaceValue;
+		}
+		if(this.bTrackingVulnerability && this.numBlitzThreats[playerIndex][gridSpaceIndex] != 0){
+			this.setVulnerable(playerIndex, gridSpaceIndex);
+		}
+	}
+
+	/**
+	 * Clears the player's piece from a grid space
+	 * @param gridSpaceIndex
+	 * @param playerIndex
+	 */
+	public void vacate(int gridSpaceIndex, int playerIndex){
+		int gridSpaceValue = this.topology.getGridSpaceValue(gridSpaceIndex);
+		if(this.bTrackingVulnerability && this.numBlitzThreats[playerIndex][gridSpaceIndex] != 0){
+			this.clearVulnerable(playerIndex, gridSpaceIndex);
+		}
+		if(this.getNumEmptyNeighbors(gridSpaceIndex) == 0){
+			this.settledValue[playerIndex] -= gridSpaceValue;
+		}
+		this.occupancy[playerIndex][gridSpaceIndex >>> 6] &= ~(1L << gridSpaceIndex);
+		this.numOccupiedGridSpaces[playerIndex]--;
+		this.numEmptyGridSpaces++;
+		this.emptyValue += gridSpaceValue;
+
+		//neighbors the player no longer touches leave the player's frontier
+		byte[] adjacentPieces = this.numAdjacentPieces[playerIndex];
+		int[] values = this.neighborValues[playerIndex];
+		int[] neighbors = this.topology.getNeighbors(gridSpaceIndex);
+		for(int neighborIndex = 0; neighborIndex < neighbors.length; neighborIndex++){
+			int neighbor = neighbors[neighborIndex];
+			values[neighbor] -= gridSpaceValue;
+			if(--adjacentPieces[neighbor] == 0){
+				this.removeFromFrontier(playerIndex, neighbor);
+			}
+			//a settled piece around the grid space has an empty neighbor again
+			if(this.getNumEmptyNeighbors(neighbor) == 1){
+				this.settle(neighbor, -this.topology.getGridSpaceValue(neighbor));
+			}
+		}
+		//and the grid space itself, now empty, joins the frontier of whoever touches it
+		if(this.numAdjacentPieces[0][gridSpaceIndex] != 0){
+			this.addToFrontier(0, gridSpaceIndex);
+		}
+		if(this.numAdjacentPieces[1][gridSpaceIndex] != 0){
+			this.addToFrontier(1, gridSpaceIndex);
+		}
+	}
+
+	/**
+	 * Adds to the settled value of whoever occupies a grid space, if anyone does
+	 * @param gridSpaceIndex
+	 * @param value - the value of the grid space, negative to unsettle it
+	 */
+	private void settle(int gridSpaceIndex, int value){
+		int occupant = this.getOccupant(gridSpaceIndex);
+		if(occupant != -1){
+			this.settledValue[occupant] += value;
+		}
+	}
+
+	/**
+	 * @param gridSpaceIndex
+	 * @return the number of empty grid spaces adjacent to the grid space
+	 */
+	private int getNumEmptyNeighbors(int gridSpaceIndex){
+		return this.topology.getNeighbors(gridSpaceIndex).length - this.numAdjacentPieces[0][gridSpaceIndex] - this.numAdjacentPieces[1][gridSpaceIndex];
+	}
+
+	/**
+	 * Adds an empty grid space to the player's frontier, threatening the opponent's pieces around it
+	 * @param playerIndex
+	 * @param gridSpaceIndex
+	 */
+	private void addToFrontier(int playerIndex, int gridSpaceIndex){
+		this.frontier[playerIndex][gridSpaceIndex >>> 6] |= 1L << gridSpaceIndex;
+		if(!this.bTrackingVulnerability){
+			return;
+		}
+		int opponentIndex = 1 - playerIndex;
+		byte[] blitzThreats = this.numBlitzThreats[opponentIndex];
+		long[] opponentPieces = this.occupancy[opponentIndex];
+		int[] neighbors = this.topology.getNeighbors(gridSpaceIndex);
+		for(int neighborIndex = 0; neighborIndex < neighbors.length; neighborIndex++){
+			int neighbor = neighbors[neighborIndex];
+			if(blitzThreats[neighbor]++ == 0 && (opponentPieces[neighbor >>> 6] & (1L << neighbor)) != 0){
+				this.setVulnerable(opponentIndex, neighbor);
+			}
+		}
+	}
+
+	/**
+	 * Removes a grid space from the player's frontier, if it is on it
+	 * @param playerIndex
+	 * @param gridSpaceIndex
+	 */
+	private void removeFromFrontier(int playerIndex, int gridSpaceIndex){
+		long bit = 1L << gridSpaceIndex;
+		if((this.frontier[playerIndex][gridSpaceIndex >>> 6] & bit) == 0){
+			return;
+		}
+		this.frontier[playerIndex][gridSpaceIndex >>> 6] &= ~bit;
+		if(!this.bTrackingVulnerability){
+			return;
+		}
+		int opponentIndex = 1 - playerIndex;
+		byte[] blitzThreats = this.numBlitzThreats[opponentIndex];
+		long[] opponentPieces = this.occupancy[opponentIndex];
+		int[] neighbors = this.topology.getNeighbors(gridSpaceIndex);
+		for(int neighborIndex = 0; neighborIndex < neighbors.length; neighborIndex++){
+			int neighbor = neighbors[neighborIndex];
+			if(--blitzThreats[neighbor] == 0 && (opponentPieces[neighbor >>> 6] & (1L << neighbor)) != 0){
+				this.clearVulnerable(opponentIndex, neighbor);
+			}
+		}
+	}
+
+	/**
+	 * Builds the vulnerability map from the frontiers, the first time it is asked for
+	 */
+	private void trackVulnerability(){
+		if(this.bTrackingVulnerability){
+			return;
+		}
+		int numGridSpaces = this.topology.getNumGridSpaces();
+		this.numBlitzThreats = new byte[2][numGridSpaces];
+		this.vulnerable = new long[2][this.numWords];
+		this.vulnerablePoints = new int[2];
+		for(int gridSpaceIndex = 0; gridSpaceIndex < numGridSpaces; gridSpaceIndex++){
+			int[] neighbors = this.topology.getNeighbors(gridSpaceIndex);
+			for(int playerIndex = 0; playerIndex < 2; playerIndex++){
+				if((this.frontier[1 - playerIndex][gridSpaceIndex >>> 6] & (1L << gridSpaceIndex)) != 0){
+					for(int neighborIndex = 0; neighborIndex < neighbors.length; neighborIndex++){
+						this.numBlitzThreats[playerIndex][neighbors[neighborIndex]]++;
+					}
+				}
+			}
+		}
+		for(int gridSpaceIndex = 0; gridSpaceIndex < numGridSpaces; gridSpaceIndex++){
+			int occupant = this.getOccupant(gridSpaceIndex);
+			if(occupant != -1 && this.numBlitzThreats[occupant][gridSpaceIndex] != 0){
+				this.setVulnerable(occupant, gridSpaceIndex);
+			}
+		}
+		this.bTrackingVulnerability = true;
+	}
+
+	private void setVulnerable(int playerIndex, int gridSpaceIndex){
+		this.vulnerable[playerIndex][gridSpaceIndex >>> 6] |= 1L << gridSpaceIndex;
+		this.vulnerablePoints[playerIndex] += this.topology.getGridSpaceValue(gridSpaceIndex);
+	}
+
+	private void clearVulnerable(int playerIndex, int gridSpaceIndex){
+		this.vulnerable[playerIndex][gridSpaceIndex >>> 6] &= ~(1L << gridSpaceIndex);
+		this.vulnerablePoints[playerIndex] -= this.topology.getGridSpaceValue(gridSpaceIndex);
+	}
+
+	/**
+	 * @param gridSpaceIndex
+	 * @return the index of the player occupying the grid space, or -1 if it is empty
+	 */
+	public int getOccupant(int gridSpaceIndex){
+		int word = gridSpaceIndex >>> 6;
+		long bit = 1L << gridSpaceIndex;
+		if((this.occupancy[0][word] & bit) != 0){
+			return 0;
+		}
+		if((this.occupancy[1][word] & bit) != 0){
+			return 1;
+		}
+		return -1;
+	}
+
+	/**
+	 * @return true if every grid space is occupied
+	 */
+	public boolean isFilled(){
+		return this.numEmptyGridSpaces == 0;
+	}
+
+	/**
+	 * @return the number of unoccupied grid spaces
+	 */
+	public int getNumEmptyGridSpaces(){
+		return this.numEmptyGridSpaces;
+	}
+
+	/**
+	 * @param playerIndex
+	 * @return the number of grid spaces the player occupies
+	 */
+	public int getNumOccupiedGridSpaces(int playerIndex){
+		return this.numOccupiedGridSpaces[playerIndex];
+	}
+
+	/**
+	 * @param word
+	 * @return the mask of unoccupied grid spaces within the word
+	 */
+	public long getEmptyWord(int word){
+		return this.topology.getFullWord(word) & ~(this.occupancy[0][word] | this.occupancy[1][word]);
+	}
+
+	/**
+	 * @param playerIndex
+	 * @param word
+	 * @return the mask of grid spaces occupied by the player within the word
+	 */
+	public long getOccupancyWord(int playerIndex, int word){
+		return this.occupancy[playerIndex][word];
+	}
+
+	/**
+	 * @param gridSpaceIndex
+	 * @param word
+	 * @return the mask of grid spaces adjacent to the grid space within the word
+	 */
+	public long getNeighborWord(int gridSpaceIndex, int word){
+		return this.topology.getNeighborWord(gridSpaceIndex, word);
+	}
+
+	/**
+	 * @param playerIndex
+	 * @param word
+	 * @return the mask of empty grid spaces adjacent to the player's pieces within the word
+	 */
+	public long getFrontierWord(int playerIndex, int word){
+		return this.frontier[playerIndex][word];
+	}
+
+	/**
+	 * A player may blitz into an empty space if they hold any of its neighbors
+	 * @param gridSpaceIndex
+	 * @param playerIndex
+	 * @return true if the player occupies a grid space adjacent to the grid space
+	 */
+	public boolean hasNeighborOccupiedBy(int gridSpaceIndex, int playerIndex){
+		return this.numAdjacentPieces[playerIndex][gridSpaceIndex] != 0;
+	}
+
+	/**
+	 * @param gridSpaceIndex
+	 * @param direction - BoardTopology.LEFT, RIGHT, ABOVE or BELOW
+	 * @return the index of the neighboring grid space in that direction, or -1 at the edge of the board
+	 */
+	public int getNeighborIndex(int gridSpaceIndex, int direction){
+		return this.topology.getNeighborIndex(gridSpaceIndex, direction);
+	}
+
+	/**
+	 * @param gridSpaceIndex
+	 * @param playerIndex
+	 * @return the summed value of the grid spaces adjacent to the grid space that the player occupies
+	 */
+	public int getNeighborValue(int gridSpaceIndex, int playerIndex){
+		return this.neighborValues[playerIndex][gridSpaceIndex];
+	}
+
+	/**
+	 * The total value of the player's pieces that the opponent could take with
+	 * a single blitz anywhere on the board. A piece is vulnerable when it touches
+	 * an empty space that itself touches an opponent piece.
+	 * @param playerIndex
+	 * @return the summed value of every vulnerable piece
+	 */
+	public int getVulnerablePoints(int playerIndex){
+		this.trackVulnerability();
+		return this.vulnerablePoints[playerIndex];
+	}
+
+	/**
+	 * @param playerIndex
+	 * @param word
+	 * @return the mask of the player's vulnerable pieces within the word
+	 */
+	public long getVulnerableWord(int playerIndex, int word){
+		this.trackVulnerability();
+		return this.vulnerable[playerIndex][word];
+	}
+
+	/**
+	 * The most the player could lose to the opponent's next move. Unlike the vulnerable
+	 * points, which add up pieces no single blitz could all take at once, this is the
+	 * value conquered by the opponent's best blitz, found among the spaces on both
+	 * frontiers (the only blitzes that conquer anything).
+	 * @param playerIndex
+	 * @return the largest value of the player's pieces around any one opponent blitz
+	 */
+	public int getMaxBlitzLoss(int playerIndex){
+		int[] values = this.neighborValues[playerIndex];
+		int maxBlitzLoss = 0;
+		for(int word = 0; word < this.numWords; word++){
+			long blitzable = this.frontier[0][word] & this.frontier[1][word];
+			while(blitzable != 0){
+				maxBlitzLoss = Math.max(maxBlitzLoss, values[(word << 6) + Long.numberOfTrailingZeros(blitzable)]);
+				blitzable &= blitzable - 1;
+			}
+		}
+		return maxBlitzLoss;
+	}
+
+	/**
+	 * The player's settled pieces stay the player's until the end of the game, so
+	 * the opponent can finish with at most the value of the board less twice this 
+	 * value more than the player.
+	 * @param playerIndex
+	 * @return the summed value of the player's pieces which no blitz can conquer
+	 */
+	public int getSettledValue(int playerIndex){
+		return this.settledValue[playerIndex];
+	}
+
+	/**
+	 * @return the summed value of the empty grid spaces
+	 */
+	public int getEmptyValue(){
+		return this.emptyValue;
+	}
+
+	/**
+	 * Copies the occupancy and frontiers, sharing the topology. The copy starts
+	 * without a vulnerability map, and builds its own if it is asked for one.
+	 * @return a clone of this bitboard
+	 */
+	public BitBoard deepCopyBitBoard(){
+		BitBoard newBB = new BitBoard();
+		newBB.topology = this.topology;
+		newBB.numWords = this.numWords;
+		newBB.occupancy = new long[2][];
+		newBB.occupancy[0] = this.occupancy[0].clone();
+		newBB.occupancy[1] = this.occupancy[1].clone();
+		newBB.numOccupiedGridSpaces = this.numOccupiedGridSpaces.clone();
+		newBB.numEmptyGridSpaces = this.numEmptyGridSpaces;
+		newBB.frontier = new long[2][];
+		newBB.frontier[0] = this.frontier[0].clone();
+		newBB.frontier[1] = this.frontier[1].clone();
+		newBB.numAdjacentPieces = new byte[2][];
+		newBB.numAdjacentPieces[0] = this.numAdjacentPieces[0].clone();
+		newBB.numAdjacentPieces[1] = this.numAdjacentPieces[1].clone();
+		newBB.neighborValues = new int[2][];
+		newBB.neighborValues[0] = this.neighborValues[0].clone();
+		newBB.neighborValues[1] = this.neighborValues[1].clone();
+		newBB.settledValue = this.settledValue.clone();
+		newBB.emptyValue = this.emptyValue;
+		return newBB;
+	}
+
+	public int getNumWords() {
+		return numWords;
+	}
+
+	public int getNumGridSpaces() {
+		return this.topology.getNumGridSpaces();
+	}
+
+	public int getGridSpaceValue(int gridSpaceIndex) {
+		return this.topology.getGridSpaceValue(gridSpaceIndex);
+	}
+
+	public static void main(String[] args) {
+		// TODO Auto-generated method stub
+
+	}
+
+}
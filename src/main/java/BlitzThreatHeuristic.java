@@ -0,0 +1,33 @@
+/**
+ * BlitzThreatHeuristic:
+ * 		The score difference, adjusted by the best blitz available to the 
+ * 		player to move. Vulnerable points add up every piece the opponent 
+ * 		touches, most of which no single blitz could take at once, whereas 
+ * 		the mover can actually cash in its best blitz on this turn. A blitz 
+ * 		moves the conquered value from one score to the other, so it swings 
+ * 		the difference by twice that value.
+ * 
+ * @author dcyoung3
+ */
+public class BlitzThreatHeuristic implements Heuristic {
+	
+	public int evaluate(GameStateNode state, boolean bIsMaxNode){
+		Player maxPlayer = state.getMaximizingPlayer();
+		Player minPlayer = state.getMinimizingPlayer();
+		int scoreDifference = maxPlayer.getCurrentScore() - minPlayer.getCurrentScore();
+		if(bIsMaxNode){
+			return scoreDifference + 2 * state.getBoardState().getMaxBlitzLoss(minPlayer.getPlayerIndex());
+		}
+		return scoreDifference - 2 * state.getBoardState().getMaxBlitzLoss(maxPlayer.getPlayerIndex());
+	}
+	
+	public String getName(){
+		return "BlitzThreat";
+	}
+	
+	public static void main(String[] args) {
+		// TODO Auto-generated method stub
+
+	}
+
+}
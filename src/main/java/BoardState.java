@@ -1,20 +1,32 @@
 /**
  * BoardState: holds the state of the game board, most notably 
  * the state of all grid spaces including their value and occupant
+ * 
+ * The parts of the board that never change (dimensions, values, 
+ * neighbors) live in a BoardTopology shared by every copy of the 
+ * board, so a board state itself only holds the occupancy.
+ * 
+ * On a board with symmetries (see BoardTopology) the zobrist hash of 
+ * the position's image under each of them is kept up to date as well. 
+ * The smallest of these hashes is the canonical hash, shared by every 
+ * position which is a rotation or reflection of another, so that the 
+ * search tables treat them as one.
  * @author dcyoung3
  */
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.Scanner;
-import java.util.Set;
 
 public class BoardState {
-	//a grid containing the state of all current grid spaces
-	private ArrayList<ArrayList<GridSpace>> grid;
-	private int numGridRows;
-	private int numGridCols;
+	//dimensions, values and neighbors of the grid spaces, shared by every copy
+	private BoardTopology topology;
+	//zobrist hash of the grid occupancy, kept in sync as grid spaces are occupied and vacated
+	private long zobristHash;
+	//zobrist hash of the image of the occupancy under each of the topology's symmetries
+	private long[] symmetricHashes;
+	//which player occupies each grid space
+	private BitBoard bitBoard;
 	
 	/**
 	 * Constructor
@@ -23,79 +35,32 @@ public class BoardState {
 	 * @param initialGridVals - the numerical values associated with each grid space read from the input file for this gameboard
 	 */
 	public BoardState(int numGridRows, int numGridCols, ArrayList<ArrayList<Integer>> initialGridVals){
-		this.numGridRows = numGridRows;
-		this.numGridCols = numGridCols;
-		this.grid = new ArrayList<ArrayList<GridSpace>>();
-		this.initializeGrid(initialGridVals);
+		this(new BoardTopology(numGridRows, numGridCols, initialGridVals));
 	}
 	
 	/**
-	 * Empty constructor, for use when deep copying an existing board state
-	 */
-	public BoardState(){
-		
-	}
-	
-	/**
-	 * Populates the grid with new grid space objects and sets 
-	 * their initial state (value and no occupant)
-	 * @param initialGridVals
-	 */
-	public void initializeGrid(ArrayList<ArrayList<Integer>> initialGridVals){
-		
-		//initialize the grid of spaces with the initial grid values
-		for(int row = 0; row < this.numGridRows; row++ ){
-			this.grid.add(new ArrayList<GridSpace>());
-			for(int col = 0; col < this.numGridCols; col++ ){
-				int val = initialGridVals.get(row).get(col);
-				this.grid.get(row).add(new GridSpace(row, col, val));
-			}
-		}
-		this.postInitializeGrid();
-	}
-	
-	/**
-	 * handles initialization work that will be called both when
-	 * constructing a new board state and when deep copying a board state
-	 * specifically, determines all the neighboring grid spaces for each
-	 * grid space which must be instance specific (hence needs to be repeated
-	 * for the deepcopy)
+	 * Constructor, an empty board with an existing topology
+	 * @param topology
 	 */
-	public void postInitializeGrid(){
-		//for each grid space, populate it's neighboring spaces array
-		for(ArrayList<GridSpace> row : this.grid){
-			for(GridSpace gs : row){
-				gs.setNeighboringGridSpaces(this.determineGridSpaceNeighbors(gs));
-			}
-		}
+	public BoardState(BoardTopology topology){
+		this.topology = topology;
+		this.zobristHash = 0;
+		this.symmetricHashes = new long[topology.getNumSymmetries()];
+		this.bitBoard = new BitBoard(topology);
 	}
 	
 	/**
-	 * Determines the neighbors that are adjacent to a gridspace
-	 * Only considers directly adjacent, not diagonal.
-	 * @param gridSpace
-	 * @return an array of grid spaces that are adjacent to the input gridspace
+	 * Empty constructor, for use when deep copying an existing board state
 	 */
-	public ArrayList<GridSpace> determineGridSpaceNeighbors(GridSpace gridSpace){
-		ArrayList<GridSpace> neighbors = new ArrayList<GridSpace>();
-		//add left, top, right, bottom
-		if( gridSpace.getCol() != 0 )
-			neighbors.add(this.grid.get(gridSpace.row).get(gridSpace.col-1));
-		if( gridSpace.getCol() != this.numGridCols-1 )
-			neighbors.add(this.grid.get(gridSpace.row).get(gridSpace.col+1));
-		if( gridSpace.getRow() != 0 )
-			neighbors.add(this.grid.get(gridSpace.row-1).get(gridSpace.col));
-		if( gridSpace.getRow() != this.numGridRows-1 )
-			neighbors.add(this.grid.get(gridSpace.row+1).get(gridSpace.col));
+	private BoardState(){
 		
-		return neighbors;
 	}
 	
 	/**
 	 * simple print of the grid values for testing purposes
 	 */
 	public void printGridVals(){
-		for(ArrayList<GridSpace> row : this.grid){
+		for(ArrayList<GridSpace> row : this.topology.getGrid()){
 			for(GridSpace gs : row){
 				System.out.print(gs.getValue() + "\t");
 				//System.out.print(col.getValue() + "," + col.getNeighboringGridSpaces().size()+ "\t");
@@ -110,154 +75,296 @@ public class BoardState {
 	
 	
 	
+	/**
+	 * The grid spaces are shared by every state on the board, ask the 
+	 * board state (getOccupant) who occupies one.
+	 * @return the grid spaces by row and column
+	 */
 	public ArrayList<ArrayList<GridSpace>> getGrid() {
-		return grid;
+		return this.topology.getGrid();
 	}
 
-	public void setGrid(ArrayList<ArrayList<GridSpace>> grid) {
-		this.grid = grid;
+	public int getNumGridRows() {
+		return this.topology.getNumGridRows();
 	}
 
-	public int getNumGridRows() {
-		return numGridRows;
+	public int getNumGridCols() {
+		return this.topology.getNumGridCols();
 	}
 
-	public void setNumGridRows(int numGridRows) {
-		this.numGridRows = numGridRows;
+	/**
+	 * @param gridSpace
+	 * @return the row major index of the grid space
+	 */
+	public int getGridSpaceIndex(GridSpace gridSpace){
+		return this.topology.getGridSpaceIndex(gridSpace);
 	}
 
-	public int getNumGridCols() {
-		return numGridCols;
+	/**
+	 * @param gridSpaceIndex - row major index of the grid space
+	 * @return the grid space at the index
+	 */
+	public GridSpace getGridSpace(int gridSpaceIndex){
+		return this.topology.getGridSpace(gridSpaceIndex);
 	}
 
-	public void setNumGridCols(int numGridCols) {
-		this.numGridCols = numGridCols;
+	/**
+	 * @param gridSpace
+	 * @return the index of the player occupying the grid space (0 for player1, 1 for player2), or -1 if it is empty
+	 */
+	public int getOccupant(GridSpace gridSpace){
+		return this.bitBoard.getOccupant(this.getGridSpaceIndex(gridSpace));
 	}
 
 	/**
-	 * Deep copies the board state (clone) so that it can be
-	 * manipulated without altering the original.
-	 * @return a clone of boardstate
+	 * @param gridSpace
+	 * @return true if a player occupies the grid space
 	 */
-	public BoardState deepCopyBoardState(){
-		BoardState newBS = new BoardState();
-		newBS.setNumGridRows(this.numGridRows);
-		newBS.setNumGridCols(this.numGridCols);
-		ArrayList<ArrayList<GridSpace>> gridCopy = deepCopyGrid();
-		newBS.setGrid(gridCopy);
-		newBS.postInitializeGrid();
-		return newBS;
+	public boolean isOccupied(GridSpace gridSpace){
+		return this.getOccupant(gridSpace) != -1;
+	}
+
+	/**
+	 * Places a piece belonging to the specified player on an empty grid space.
+	 * All changes to grid space occupancy should go through here (or 
+	 * vacateGridSpace) so that the zobrist hash stays up to date.
+	 * @param gridSpace
+	 * @param playerIndex - 0 for player1, 1 for player2
+	 */
+	public void occupyGridSpace(GridSpace gridSpace, int playerIndex){
+		int gridSpaceIndex = getGridSpaceIndex(gridSpace);
+		this.bitBoard.occupy(gridSpaceIndex, playerIndex);
+		this.zobristHash ^= this.topology.getZobristKeys().getGridSpaceKey(gridSpaceIndex, playerIndex);
+		this.updateSymmetricHashes(gridSpaceIndex, playerIndex);
+	}
+
+	/**
+	 * Removes the piece belonging to the specified player from a grid space.
+	 * @param gridSpace
+	 * @param playerIndex - 0 for player1, 1 for player2
+	 */
+	public void vacateGridSpace(GridSpace gridSpace, int playerIndex){
+		int gridSpaceIndex = getGridSpaceIndex(gridSpace);
+		this.bitBoard.vacate(gridSpaceIndex, playerIndex);
+		this.zobristHash ^= this.topology.getZobristKeys().getGridSpaceKey(gridSpaceIndex, playerIndex);
+		this.updateSymmetricHashes(gridSpaceIndex, playerIndex);
+	}
+	
+	/**
+	 * Toggles the player's piece at the image of the grid space in each symmetric hash
+	 * @param gridSpaceIndex
+	 * @param playerIndex
+	 */
+	private void updateSymmetricHashes(int gridSpaceIndex, int playerIndex){
+		long[] symmetricKeys = this.topology.getSymmetricKeys(gridSpaceIndex, playerIndex);
+		for(int symmetry = 0; symmetry < symmetricKeys.length; symmetry++){
+			this.symmetricHashes[symmetry] ^= symmetricKeys[symmetry];
+		}
+	}
+
+	public BoardTopology getTopology() {
+		return topology;
+	}
+
+	public BitBoard getBitBoard() {
+		return bitBoard;
+	}
+
+	public ZobristKeys getZobristKeys() {
+		return this.topology.getZobristKeys();
+	}
+
+	/**
+	 * @return the zobrist hash of the current grid occupancy
+	 */
+	public long getZobristHash() {
+		return zobristHash;
 	}
 	
 	/**
-	 * Deep copies the grid, used when deep copying the board state
-	 * @return a clone of grid
+	 * The same for every rotation or reflection of the position which leaves the 
+	 * board's values unchanged, and the zobrist hash on a board without any.
+	 * @return the smallest zobrist hash of the position's images
 	 */
-	private ArrayList<ArrayList<GridSpace>> deepCopyGrid() {
-		ArrayList<ArrayList<GridSpace>> gridCopy = new ArrayList<ArrayList<GridSpace>>();
-		for(int row = 0; row < this.numGridRows; row++ ){
-			gridCopy.add(new ArrayList<GridSpace>());
-			for(int col = 0; col < this.numGridCols; col++ ){
-				GridSpace gridSpaceCopy = this.grid.get(row).get(col).deepCopyGridSpace();
-				gridCopy.get(row).add(gridSpaceCopy);
+	public long getCanonicalHash() {
+		long canonicalHash = this.zobristHash;
+		for(int symmetry = 0; symmetry < this.symmetricHashes.length; symmetry++){
+			canonicalHash = Math.min(canonicalHash, this.symmetricHashes[symmetry]);
+		}
+		return canonicalHash;
+	}
+	
+	/**
+	 * @return the symmetry which maps the position onto the image with the canonical hash, or -1 for the identity
+	 */
+	public int getCanonicalSymmetry() {
+		int canonicalSymmetry = -1;
+		long canonicalHash = this.zobristHash;
+		for(int symmetry = 0; symmetry < this.symmetricHashes.length; symmetry++){
+			if(this.symmetricHashes[symmetry] < canonicalHash){
+				canonicalHash = this.symmetricHashes[symmetry];
+				canonicalSymmetry = symmetry;
 			}
 		}
-		return gridCopy;
+		return canonicalSymmetry;
+	}
+	
+	/**
+	 * Moves are stored under the canonical hash as the equivalent move of the 
+	 * canonical image, so that any symmetric position can read them back.
+	 * @param move - a move of this position, or TranspositionTable.NO_MOVE
+	 * @return the equivalent move of the canonical image
+	 */
+	public int toCanonicalMove(int move) {
+		int canonicalSymmetry = this.getCanonicalSymmetry();
+		return (canonicalSymmetry == -1) ? move : this.topology.mapMove(move, canonicalSymmetry);
+	}
+	
+	/**
+	 * @param move - a move of the canonical image, or TranspositionTable.NO_MOVE
+	 * @return the equivalent move of this position
+	 */
+	public int fromCanonicalMove(int move) {
+		int canonicalSymmetry = this.getCanonicalSymmetry();
+		return (canonicalSymmetry == -1) ? move : this.topology.unmapMove(move, canonicalSymmetry);
+	}
+
+	/**
+	 * Deep copies the board state (clone) so that it can be
+	 * manipulated without altering the original. Only the occupancy 
+	 * is copied, the topology is shared.
+	 * @return a clone of boardstate
+	 */
+	public BoardState deepCopyBoardState(){
+		BoardState newBS = new BoardState();
+		newBS.topology = this.topology;
+		newBS.zobristHash = this.zobristHash;
+		newBS.symmetricHashes = this.symmetricHashes.clone();
+		newBS.bitBoard = this.bitBoard.deepCopyBitBoard();
+		return newBS;
 	}
 
 	/**
-	 * 
+	 * Constant time, the bitboard counts the empty grid spaces as they are occupied and vacated.
 	 * @return true if every grid space on the grid is occupied
 	 */
 	public boolean isGridFilled() {
-		for(ArrayList<GridSpace> row : this.grid){
-			for(GridSpace gs : row){
-				if(!gs.isOccupied()){
-					return false;
-				}
-			}
-		}
-		return true;
+		return this.bitBoard.isFilled();
+	}
+
+	/**
+	 * Every move fills exactly one grid space, so this is also the number 
+	 * of moves left in the game.
+	 * @return the number of unoccupied grid spaces
+	 */
+	public int getNumEmptyGridSpaces() {
+		return this.bitBoard.getNumEmptyGridSpaces();
 	}
 
 	/**
-	 * Given a player and a gamestate, determine what moves are permitable for that player 
-	 * @param playerID
+	 * @param playerIndex - 0 for player1, 1 for player2
+	 * @return the number of grid spaces the player occupies
+	 */
+	public int getNumOccupiedGridSpaces(int playerIndex) {
+		return this.bitBoard.getNumOccupiedGridSpaces(playerIndex);
+	}
+
+	/**
+	 * Given a player and a gamestate, determine what moves are permitable for that player. 
+	 * Each distinct resulting state is generated once, so blitzes that would conquer 
+	 * nothing are left out in favour of the equivalent para drop.
+	 * @param playerIndex - 0 for player1, 1 for player2
 	 * @param state
 	 * @return an array of move objects that are permitable for the active player in the input state
 	 */
-	public ArrayList<Move> getAllowableMoves(String playerID, GameStateNode state) {
-		ArrayList<Move> allowableMoves = new ArrayList<Move>();
+	public ArrayList<Move> getAllowableMoves(int playerIndex, GameStateNode state) {
+		int[] moves = new int[this.getMaxNumMoves()];
+		int numMoves = this.generateMoves(playerIndex, moves);
 		
-		//check every grid space to see if the player can move into it
-		for(int row = 0; row < this.numGridRows; row ++){
-			for(int col = 0; col < this.numGridCols; col ++){
-				GridSpace gridSpace = this.grid.get(row).get(col);
-				//if the grid space is unoccupied
-				if(!gridSpace.isOccupied()){
-					//add a new move of type CommandoParaDrop
-					allowableMoves.add(new CommandoParaDrop(playerID, gridSpace, state));
-					
-					//Check if a blitz is allowed
-					//if the grid space has a neighbor that belongs to the moving player
-					for(GridSpace neighbor : gridSpace.getNeighboringGridSpaces()){
-						if(neighbor.isOccupied()){
-							if(neighbor.getResidentPlayerID().equals(playerID)){
-								//add a new move of type M1DeathBlitz
-								allowableMoves.add(new M1DeathBlitz(playerID, gridSpace, state));
-								break;
-							}
-						}
-					}
-				}
-			}
+		ArrayList<Move> allowableMoves = new ArrayList<Move>(numMoves);
+		for(int moveIndex = 0; moveIndex < numMoves; moveIndex++){
+			allowableMoves.add(state.getMove(moves[moveIndex], playerIndex));
 		}
 		return allowableMoves;
 	}
 	
-	
-	
 	/**
-	 * Determines the number of points that are exposed to the opposing player if they use a blitz. Currently
-	 * considers all exposed points, not the max vulnerable to a single blitz.
-	 * @param playerID
-	 * @return
+	 * Allocation free move generation, used by the search. Writes the player's 
+	 * moves into the buffer as packed ints (see Move), in the same order as 
+	 * getAllowableMoves. Captures are not worked out until a move is made.
+	 * @param playerIndex - 0 for player1, 1 for player2
+	 * @param moves - buffer of at least getMaxNumMoves ints
+	 * @return the number of moves written
 	 */
-	public int getVulnerablePoints(String playerID) {
-		
-		//determine which spaces are currently occupied by the specified player
-		ArrayList<GridSpace> controlled = new ArrayList<GridSpace>();
-		for(int row = 0; row < this.numGridRows; row ++){
-			for(GridSpace gs : this.grid.get(row)){
-				if(gs.isOccupied() && gs.getResidentPlayerID().equals(playerID)){
-					controlled.add(gs);
+	public int generateMoves(int playerIndex, int[] moves){
+		int numMoves = 0;
+		//every unoccupied grid space can be moved into, walked in row major order
+		for(int word = 0; word < this.bitBoard.getNumWords(); word++){
+			long empty = this.bitBoard.getEmptyWord(word);
+			//a blitz is allowed on the moving player's frontier, but off the opponent's
+			//frontier it conquers nothing and is the same move as the para drop
+			long blitzable = this.bitBoard.getFrontierWord(playerIndex, word) & this.bitBoard.getFrontierWord(1 - playerIndex, word);
+			while(empty != 0){
+				int gridSpaceIndex = (word << 6) + Long.numberOfTrailingZeros(empty);
+				long bit = empty & -empty;
+				empty &= empty - 1;
+				
+				//a para drop
+				moves[numMoves++] = Move.encodeMove(gridSpaceIndex, false);
+				
+				if((blitzable & bit) != 0){
+					moves[numMoves++] = Move.encodeMove(gridSpaceIndex, true);
 				}
 			}
 		}
-		
-		//determine which of those occupied spaces could be stolen on the nex turn
-		Set<GridSpace> vulnerableGridSpaces = new HashSet<GridSpace>();
-		for(GridSpace controlledSpace : controlled){
-			INNER:
-			for(GridSpace potentialEmptyNeighbor : controlledSpace.getNeighboringGridSpaces()){
-				if(!potentialEmptyNeighbor.isOccupied()){
-					for(GridSpace potentialOpponentSpace : potentialEmptyNeighbor.getNeighboringGridSpaces()){
-						if(potentialOpponentSpace.isOccupied() && !potentialOpponentSpace.getResidentPlayerID().equals(playerID)){
-							vulnerableGridSpaces.add(controlledSpace);
-							//This space just has to be determined vulnerable by any 1 neighbor, other neighbors don't need to be considered
-							break INNER; 
-						}
-					}
-				}
+		return numMoves;
+	}
+	
+	/**
+	 * Generates only the moves which conquer something, ie: the blitzes onto both 
+	 * players' frontiers, for the quiescence search. Same order as generateMoves.
+	 * @param playerIndex - 0 for player1, 1 for player2
+	 * @param moves - buffer of at least getMaxNumMoves ints
+	 * @return the number of moves written
+	 */
+	public int generateCaptures(int playerIndex, int[] moves){
+		int numMoves = 0;
+		for(int word = 0; word < this.bitBoard.getNumWords(); word++){
+			long blitzable = this.bitBoard.getFrontierWord(playerIndex, word) & this.bitBoard.getFrontierWord(1 - playerIndex, word);
+			while(blitzable != 0){
+				moves[numMoves++] = Move.encodeMove((word << 6) + Long.numberOfTrailingZeros(blitzable), true);
+				blitzable &= blitzable - 1;
 			}
 		}
-		
-		//tally the potential loss
-		int vulnerablePoints = 0;
-		for(GridSpace gs : vulnerableGridSpaces){
-			vulnerablePoints += gs.getValue();
-		}
-		return vulnerablePoints;
+		return numMoves;
+	}
+	
+	/**
+	 * @return the most moves a player can have in any state of this board, a para drop and a blitz per grid space
+	 */
+	public int getMaxNumMoves(){
+		return 2 * this.topology.getNumGridSpaces();
+	}
+	
+	
+	
+	/**
+	 * Determines the number of points that are exposed to the opposing player if they use a blitz. 
+	 * Considers all exposed points, see getMaxBlitzLoss for the max vulnerable to a single blitz.
+	 * Kept up to date as pieces are placed and conquered, so this costs nothing to call.
+	 * @param playerIndex - 0 for player1, 1 for player2
+	 * @return
+	 */
+	public int getVulnerablePoints(int playerIndex) {
+		return this.bitBoard.getVulnerablePoints(playerIndex);
+	}
+	
+	/**
+	 * @param playerIndex - 0 for player1, 1 for player2
+	 * @return the most points the opposing player could conquer from the player with a single blitz
+	 */
+	public int getMaxBlitzLoss(int playerIndex) {
+		return this.bitBoard.getMaxBlitzLoss(playerIndex);
 	}
 	
 	
@@ -0,0 +1,372 @@
+/**
+ * BoardTopology:
+ * 		Everything about a game board that never changes during a game:
+ * 		its dimensions, the value of each grid space, which grid spaces
+ * 		neighbor each other, and the zobrist keys used to hash positions.
+ *
+ * 		A topology is built once per board file and shared by every state
+ * 		of every game played on that board. A BoardState only adds the
+ * 		occupancy, so copying a state never copies or recomputes any of
+ * 		this.
+ *
+ * 		Grid spaces are assigned an index in row major order, which is also
+ * 		their bit in the occupancy masks (see BitBoard). Precomputed tables:
+ * 			neighborIndices 	[gridSpace][direction] -> neighboring grid space or -1
+ * 			neighborLists 		[gridSpace] -> the two to four neighboring grid spaces
+ * 			neighborMasks 		[gridSpace][word] -> mask of neighboring grid spaces
+ * 			fullMask 			[word] -> mask of every grid space on the board
+ *
+ * 	Symmetries:
+ * 		Each of the eight rotations and reflections of the grid (the four which
+ * 		swap rows and columns only on square boards) which maps every grid space
+ * 		onto one of the same value is found once, when the board is loaded. Such
+ * 		a symmetry also keeps neighbors neighbors, so a position and its image
+ * 		have the same score and the same value to the search. The identity is
+ * 		left out, a board without symmetries has none.
+ * 			symmetryMaps 		[symmetry][gridSpace] -> image of the grid space
+ * 			inverseSymmetryMaps [symmetry][gridSpace] -> grid space mapped onto it
+ * 			symmetricKeys 		[gridSpace][player] -> zobrist key of the image of the
+ * 								grid space under each symmetry, see BoardState
+ *
+ * @author dcyoung3
+ */
+import java.util.ArrayList;
+
+public class BoardTopology {
+	//directions of the neighbor index table
+	public static final int LEFT = 0;
+	public static final int RIGHT = 1;
+	public static final int ABOVE = 2;
+	public static final int BELOW = 3;
+	public static final int NUM_DIRECTIONS = 4;
+	//the rotations and reflections of the grid, other than the identity
+	private static final String[] SYMMETRY_NAMES = {"rotate 90", "rotate 180", "rotate 270", "mirror left right", "mirror top bottom", "transpose", "anti transpose"};
+
+	private int numGridRows;
+	private int numGridCols;
+	private int numGridSpaces;
+	private int numWords;
+	private int[] gridSpaceValues;
+	private int[][] neighborIndices;
+	private int[][] neighborLists;
+	private long[][] neighborMasks;
+	private long[] fullMask;
+	private ZobristKeys zobristKeys;
+	private int[][] symmetryMaps;
+	private int[][] inverseSymmetryMaps;
+	private long[][][] symmetricKeys;
+	private String[] symmetryNames;
+	//one immutable grid space per index, for callers working by row and column
+	private ArrayList<ArrayList<GridSpace>> grid;
+	private GridSpace[] gridSpaces;
+
+	/**
+	 * Constructor
+	 * @param numGridRows
+	 * @param numGridCols
+	 * @param initialGridVals - the numerical values associated with each grid space read from the input file for this gameboard
+	 */
+	public BoardTopology(int numGridRows, int numGridCols, ArrayList<ArrayList<Integer>> initialGridVals){
+		this(numGridRows, numGridCols, initialGridVals, true);
+	}
+
+	/**
+	 * Constructor
+	 * @param numGridRows
+	 * @param numGridCols
+	 * @param initialGridVals - the numerical values associated with each grid space read from the input file for this gameboard
+	 * @param bDetectSymmetries - false to treat the board as having no symmetries, ie: to measure what they save
+	 */
+	public BoardTopology(int numGridRows, int numGridCols, ArrayList<ArrayList<Integer>> initialGridVals, boolean bDetectSymmetries){
+		this.numGridRows = numGridRows;
+		this.numGridCols = numGridCols;
+		this.numGridSpaces = numGridRows * numGridCols;
+		this.numWords = (this.numGridSpaces + 63) / 64;
+		this.zobristKeys = new ZobristKeys(this.numGridSpaces);
+
+		this.gridSpaceValues = new int[this.numGridSpaces];
+		this.gridSpaces = new GridSpace[this.numGridSpaces];
+		this.grid = new ArrayList<ArrayList<GridSpace>>();
+		for(int row = 0; row < numGridRows; row++ ){
+			this.grid.add(new ArrayList<GridSpace>());
+			for(int col = 0; col < numGridCols; col++ ){
+				int gridSpaceIndex = row * numGridCols + col;
+				this.gridSpaceValues[gridSpaceIndex] = initialGridVals.get(row).get(col);
+				this.gridSpaces[gridSpaceIndex] = new GridSpace(row, col, this.gridSpaceValues[gridSpaceIndex]);
+				this.grid.get(row).add(this.gridSpaces[gridSpaceIndex]);
+			}
+		}
+
+		this.fullMask = new long[this.numWords];
+		for(int gridSpaceIndex = 0; gridSpaceIndex < this.numGridSpaces; gridSpaceIndex++){
+			this.fullMask[gridSpaceIndex >>> 6] |= 1L << gridSpaceIndex;
+		}
+
+		//neighbors are only directly adjacent spaces, not diagonal
+		this.neighborIndices = new int[this.numGridSpaces][NUM_DIRECTIONS];
+		this.neighborMasks = new long[this.numGridSpaces][this.numWords];
+		this.neighborLists = new int[this.numGridSpaces][];
+		for(int row = 0; row < numGridRows; row++){
+			for(int col = 0; col < numGridCols; col++){
+				int gridSpaceIndex = row * numGridCols + col;
+				int[] neighbors = this.neighborIndices[gridSpaceIndex];
+				neighbors[LEFT] = ( col != 0 ) ? gridSpaceIndex - 1 : -1;
+				neighbors[RIGHT] = ( col != numGridCols-1 ) ? gridSpaceIndex + 1 : -1;
+				neighbors[ABOVE] = ( row != 0 ) ? gridSpaceIndex - numGridCols : -1;
+				neighbors[BELOW] = ( row != numGridRows-1 ) ? gridSpaceIndex + numGridCols : -1;
+
+				ArrayList<GridSpace> neighboringGridSpaces = new ArrayList<GridSpace>();
+				for(int direction = 0; direction < NUM_DIRECTIONS; direction++){
+					int neighbor = neighbors[direction];
+					if(neighbor >= 0){
+						this.neighborMasks[gridSpaceIndex][neighbor >>> 6] |= 1L << neighbor;
+						neighboringGridSpaces.add(this.gridSpaces[neighbor]);
+					}
+				}
+				this.gridSpaces[gridSpaceIndex].setNeighboringGridSpaces(neighboringGridSpaces);
+				this.neighborLists[gridSpaceIndex] = new int[neighboringGridSpaces.size()];
+				int numNeighbors = 0;
+				for(int direction = 0; direction < NUM_DIRECTIONS; direction++){
+					if(neighbors[direction] >= 0){
+						this.neighborLists[gridSpaceIndex][numNeighbors++] = neighbors[direction];
+					}
+				}
+			}
+		}
+
+		this.detectSymmetries(bDetectSymmetries);
+	}
+
+	/**
+	 * Keeps every rotation and reflection of the grid which maps each grid space
+	 * onto one of the same value
+	 * @param bDetectSymmetries - false to keep none
+	 */
+	private void detectSymmetries(boolean bDetectSymmetries){
+		ArrayList<int[]> maps = new ArrayList<int[]>();
+		ArrayList<String> names = new ArrayList<String>();
+		for(int symmetry = 0; symmetry < SYMMETRY_NAMES.length && bDetectSymmetries; symmetry++){
+			int[] map = this.createSymmetryMap(symmetry);
+			boolean bPreservesValues = (map != null);
+			for(int gridSpaceIndex = 0; gridSpaceIndex < this.numGridSpaces && bPreservesValues; gridSpaceIndex++){
+				bPreservesValues = this.gridSpaceValues[map[gridSpaceIndex]] == this.gridSpaceValues[gridSpaceIndex];
+			}
+			if(bPreservesValues){
+				maps.add(map);
+				names.add(SYMMETRY_NAMES[symmetry]);
+			}
+		}
+
+		this.symmetryMaps = new int[maps.size()][];
+		this.inverseSymmetryMaps = new int[maps.size()][this.numGridSpaces];
+		this.symmetryNames = new String[maps.size()];
+		for(int symmetry = 0; symmetry < maps.size(); symmetry++){
+			this.symmetryMaps[symmetry] = maps.get(symmetry);
+			this.symmetryNames[symmetry] = names.get(symmetry);
+			for(int gridSpaceIndex = 0; gridSpaceIndex < this.numGridSpaces; gridSpaceIndex++){
+				this.inverseSymmetryMaps[symmetry][this.symmetryMaps[symmetry][gridSpaceIndex]] = gridSpaceIndex;
+			}
+		}
+		this.symmetricKeys = new long[this.numGridSpaces][2][maps.size()];
+		for(int gridSpaceIndex = 0; gridSpaceIndex < this.numGridSpaces; gridSpaceIndex++){
+			for(int playerIndex = 0; playerIndex < 2; playerIndex++){
+				for(int symmetry = 0; symmetry < maps.size(); symmetry++){
+					this.symmetricKeys[gridSpaceIndex][playerIndex][symmetry] = this.zobristKeys.getGridSpaceKey(this.symmetryMaps[symmetry][gridSpaceIndex], playerIndex);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param symmetry - index into SYMMETRY_NAMES
+	 * @return the image of each grid space under the rotation or reflection, or null
+	 * 			if it does not map a board of these dimensions onto itself
+	 */
+	private int[] createSymmetryMap(int symmetry){
+		int lastRow = this.numGridRows - 1;
+		int lastCol = this.numGridCols - 1;
+		boolean bSwapsRowsAndCols = (symmetry == 0 || symmetry == 2 || symmetry >= 5);
+		if(bSwapsRowsAndCols && this.numGridRows != this.numGridCols){
+			return null;
+		}
+		int[] map = new int[this.numGridSpaces];
+		for(int row = 0; row < this.numGridRows; row++){
+			for(int col = 0; col < this.numGridCols; col++){
+				int imageRow;
+				int imageCol;
+				switch(symmetry){
+					case 0:
+						imageRow = col;
+						imageCol = lastRow - row;
+						break;
+					case 1:
+						imageRow = lastRow - row;
+						imageCol = lastCol - col;
+						break;
+					case 2:
+						imageRow = lastCol - col;
+						imageCol = row;
+						break;
+					case 3:
+						imageRow = row;
+						imageCol = lastCol - col;
+						break;
+					case 4:
+						imageRow = lastRow - row;
+						imageCol = col;
+						break;
+					case 5:
+						imageRow = col;
+						imageCol = row;
+						break;
+					default:
+						imageRow = lastCol - col;
+						imageCol = lastRow - row;
+						break;
+				}
+				map[row * this.numGridCols + col] = imageRow * this.numGridCols + imageCol;
+			}
+		}
+		return map;
+	}
+
+	/**
+	 * @param move - a packed move (see Move), or TranspositionTable.NO_MOVE
+	 * @param symmetry - index of one of the board's symmetries
+	 * @return the same move into the image of its grid space
+	 */
+	public int mapMove(int move, int symmetry){
+		if(move == TranspositionTable.NO_MOVE){
+			return move;
+		}
+		return Move.encodeMove(this.symmetryMaps[symmetry][Move.getGridSpaceIndex(move)], Move.isBlitz(move));
+	}
+
+	/**
+	 * @param move - a packed move (see Move), or TranspositionTable.NO_MOVE
+	 * @param symmetry - index of one of the board's symmetries
+	 * @return the move which mapMove maps onto this one
+	 */
+	public int unmapMove(int move, int symmetry){
+		if(move == TranspositionTable.NO_MOVE){
+			return move;
+		}
+		return Move.encodeMove(this.inverseSymmetryMaps[symmetry][Move.getGridSpaceIndex(move)], Move.isBlitz(move));
+	}
+
+	/**
+	 * @param gridSpace
+	 * @return the row major index of the grid space
+	 */
+	public int getGridSpaceIndex(GridSpace gridSpace){
+		return gridSpace.getRow() * this.numGridCols + gridSpace.getCol();
+	}
+
+	/**
+	 * @param gridSpaceIndex - row major index of the grid space
+	 * @return the grid space at the index
+	 */
+	public GridSpace getGridSpace(int gridSpaceIndex){
+		return this.gridSpaces[gridSpaceIndex];
+	}
+
+	/**
+	 * @param gridSpaceIndex
+	 * @param direction - LEFT, RIGHT, ABOVE or BELOW
+	 * @return the index of the neighboring grid space in that direction, or -1 at the edge of the board
+	 */
+	public int getNeighborIndex(int gridSpaceIndex, int direction){
+		return this.neighborIndices[gridSpaceIndex][direction];
+	}
+
+	/**
+	 * Used by the bitboard's incremental updates, which visit every neighbor
+	 * and have no use for the direction or the edges of the board.
+	 * @param gridSpaceIndex
+	 * @return the indices of the neighboring grid spaces, not to be modified
+	 */
+	public int[] getNeighbors(int gridSpaceIndex){
+		return this.neighborLists[gridSpaceIndex];
+	}
+
+	/**
+	 * @param gridSpaceIndex
+	 * @param word
+	 * @return the mask of grid spaces adjacent to the grid space within the word
+	 */
+	public long getNeighborWord(int gridSpaceIndex, int word){
+		return this.neighborMasks[gridSpaceIndex][word];
+	}
+
+	/**
+	 * @param word
+	 * @return the mask of every grid space of the board within the word
+	 */
+	public long getFullWord(int word){
+		return this.fullMask[word];
+	}
+
+	public int getGridSpaceValue(int gridSpaceIndex) {
+		return gridSpaceValues[gridSpaceIndex];
+	}
+
+	public int getNumGridRows() {
+		return numGridRows;
+	}
+
+	public int getNumGridCols() {
+		return numGridCols;
+	}
+
+	public int getNumGridSpaces() {
+		return numGridSpaces;
+	}
+
+	public int getNumWords() {
+		return numWords;
+	}
+
+	public ZobristKeys getZobristKeys() {
+		return zobristKeys;
+	}
+
+	/**
+	 * @return the number of rotations and reflections which leave the board's values unchanged, not counting the identity
+	 */
+	public int getNumSymmetries() {
+		return symmetryMaps.length;
+	}
+
+	/**
+	 * @param symmetry
+	 * @param gridSpaceIndex
+	 * @return the image of the grid space under the symmetry
+	 */
+	public int getSymmetricGridSpace(int symmetry, int gridSpaceIndex) {
+		return symmetryMaps[symmetry][gridSpaceIndex];
+	}
+
+	/**
+	 * @param gridSpaceIndex
+	 * @param playerIndex
+	 * @return the zobrist key of the player occupying the image of the grid space, 
+	 * 			for each symmetry, not to be modified
+	 */
+	public long[] getSymmetricKeys(int gridSpaceIndex, int playerIndex) {
+		return symmetricKeys[gridSpaceIndex][playerIndex];
+	}
+
+	public String getSymmetryName(int symmetry) {
+		return symmetryNames[symmetry];
+	}
+
+	public ArrayList<ArrayList<GridSpace>> getGrid() {
+		return grid;
+	}
+
+	public static void main(String[] args) {
+		// TODO Auto-generated method stub
+
+	}
+
+}
@@ -19,12 +19,12 @@ public class CommandoParaDrop extends Move {
 	
 	/**
 	 * Constructor
-	 * @param movingPlayerID
+	 * @param movingPlayerIndex - 0 for player1, 1 for player2
 	 * @param gridSpace
 	 * @param gameStateNode
 	 */
-	public CommandoParaDrop(String movingPlayerID, GridSpace gridSpace, GameStateNode gameStateNode){
-		super("CommandoParaDrop", movingPlayerID, gridSpace, gameStateNode);
+	public CommandoParaDrop(int movingPlayerIndex, GridSpace gridSpace, GameStateNode gameStateNode){
+		super("CommandoParaDrop", movingPlayerIndex, gridSpace, gameStateNode);
 	}
 	
 	/**
@@ -36,15 +36,10 @@ public class CommandoParaDrop extends Move {
 		GameStateNode resultantState = this.gameStateNode.deepCopyGameStateNode();
 		GridSpace moveGridSpace = resultantState.getBoardState().getGrid().get(this.gridSpace.getRow()).get(this.gridSpace.getCol());
 		
-		Player activePlayer = resultantState.getPlayerByID(this.movingPlayer.getPlayerID());
+		Player activePlayer = resultantState.getPlayer(this.movingPlayerIndex);
 		
-		//modify the grid space
-		moveGridSpace.setResidentPlayerID(activePlayer.getPlayerID());
-		moveGridSpace.setbOccupied(true);
-		
-		//adjust the player's score
-		int updatedPlayerScore = activePlayer.getCurrentScore() + moveGridSpace.getValue();
-		activePlayer.setCurrentScore(updatedPlayerScore);
+		//modify the grid space and adjust the player's score
+		resultantState.placePiece(moveGridSpace, activePlayer);
 		
 		return resultantState;
 	}
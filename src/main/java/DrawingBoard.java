@@ -18,8 +18,6 @@ public class DrawingBoard {
 	private int numRows;
 	private int numCols;
 	private GameStateNode state;
-	private String player1ID;
-	private String player2ID;
 	private Font valueFont;
 	private Font scoreFont;
 	private Color player1Color = StdDraw.BLUE;
@@ -33,8 +31,6 @@ public class DrawingBoard {
 		this.state = state;
 		this.numRows = state.getBoardState().getNumGridRows();
 		this.numCols = state.getBoardState().getNumGridCols();
-		this.player1ID = state.getPlayer1().getPlayerID();
-		this.player2ID = state.getPlayer2().getPlayerID();
 		createCanvas();
 		
 		int style = Font.BOLD | Font.ITALIC;
@@ -106,11 +102,12 @@ public class DrawingBoard {
 	
 	private void drawSingleGridSpacePlayerColor(int row, int col) {
 		GridSpace gs = this.state.getBoardState().getGrid().get(row).get(col);
-		if(!gs.isOccupied()){
+		int occupant = this.state.getBoardState().getOccupant(gs);
+		if(occupant == -1){
 			return;
 		}
 		else{
-			if(gs.getResidentPlayerID().equals(this.player1ID)){
+			if(occupant == 0){
 				drawColoredCircle(row, col, this.player1Color);
 			}
 			else{
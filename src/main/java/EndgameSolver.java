@@ -0,0 +1,412 @@
+/**
+ * EndgameSolver:
+ * 		Solves the end of a game exactly. Every move fills exactly one grid
+ * 		space, so a state with n empty grid spaces is always exactly n moves
+ * 		from the end of the game, and once n is small the whole remaining tree
+ * 		can be searched. The solver then replaces the heuristic depth limited
+ * 		search (see AdversarialSearch.setEndgameSolver): its score is the final
+ * 		margin of the game under perfect play, not an estimate.
+ *
+ * 	Search:
+ * 		A fail soft negamax over the packed moves of the bitboard, scoring every
+ * 		node from the point of view of the player to move (the mover's score minus
+ * 		the opponent's), which at a full board is the exact result of the game.
+ * 		It shares no state with AdversarialSearch, the heuristic, killer moves and
+ * 		history have no place in an exact search of a few plies:
+ * 			- moves are ordered by the table move, then by how much they add to
+ * 			  the mover's lead (the grid space plus twice what a blitz conquers)
+ * 			- the last empty grid space is scored without making the move
+ * 			- a node is cut off when the settled pieces of either player (see
+ * 			  BitBoard.getSettledValue) already put the final margin outside
+ * 			  the window
+ * 			- every solved state is stored in the solver's own transposition
+ * 			  table, kept between moves, so the solve of the next move of the
+ * 			  same game mostly reads back what the last one proved
+ *
+ * @author dcyoung3
+ */
+public class EndgameSolver {
+	public static final int DEFAULT_EMPTY_THRESHOLD = 12;
+	private static final int TABLE_SIZE_LOG2 = 20;
+	//the window is kept within +/- MAX_VALUE so that negating it never overflows
+	private static final int INFINITY = Integer.MAX_VALUE;
+	private static final int TABLE_MOVE_SCORE = 1 << 30;
+
+	private int emptyThreshold;
+	private TranspositionTable transpositionTable;
+	//per ply move buffers, indexed by the number of empty grid spaces
+	private int[][] moveBuffers;
+	private int[][] moveScoreBuffers;
+
+	//limits and statistics of the solve in progress
+	private long searchDeadlineMillis;
+	private long nodeLimit;
+	private long numSolvedNodes;
+	private boolean bSearchAborted;
+	private long solveDurationMillis;
+
+	/**
+	 * Constructor, takes over at the default number of empty grid spaces
+	 */
+	public EndgameSolver(){
+		this(DEFAULT_EMPTY_THRESHOLD);
+	}
+
+	/**
+	 * Constructor
+	 * @param emptyThreshold - states with this many empty grid spaces or fewer are solved
+	 */
+	public EndgameSolver(int emptyThreshold){
+		this(emptyThreshold, new TranspositionTable(TABLE_SIZE_LOG2));
+	}
+
+	/**
+	 * Constructor
+	 * @param emptyThreshold - states with this many empty grid spaces or fewer are solved
+	 * @param transpositionTable - used by the solver alone, since its scores are exact
+	 * 			margins from the mover's point of view rather than heuristic values
+	 */
+	public EndgameSolver(int emptyThreshold, TranspositionTable transpositionTable){
+		this.emptyThreshold = emptyThreshold;
+		this.transpositionTable = transpositionTable;
+		this.moveBuffers = new int[0][];
+		this.moveScoreBuffers = new int[0][];
+	}
+
+	/**
+	 * @param state
+	 * @return true if the state is close enough to the end of the game to be solved
+	 */
+	public boolean canSolve(GameStateNode state){
+		return state.getNumEmptyGridSpaces() <= this.emptyThreshold;
+	}
+
+	/**
+	 * Solves the state for its maximizing player. Root moves are searched like
+	 * AdversarialSearch.bestMove, fail soft within the window of the limits. The
+	 * depth limit is not used, the solve always reaches the end of the game.
+	 * @param state - the state to move in, its maximizing player is the player to move
+	 * @param limits - window and time/node limits
+	 * @return the chosen move (null if none scored above alpha), the final margin of the
+	 * 			game for the maximizing player, and the number of nodes solved
+	 */
+	public SearchResult bestMove(GameStateNode state, SearchLimits limits){
+		long startTime = System.currentTimeMillis();
+		this.searchDeadlineMillis = limits.getDeadlineMillis();
+		this.nodeLimit = limits.getNodeLimit();
+		this.numSolvedNodes = 0;
+		this.bSearchAborted = false;
+
+		int numEmptyGridSpaces = state.getNumEmptyGridSpaces();
+		int playerIndex = state.getPlayerIndex(state.getMaximizingPlayer());
+		int alpha = Math.max(-INFINITY, limits.getAlpha());
+		int beta = Math.min(INFINITY, limits.getBeta());
+		this.growPlyBuffers(state, numEmptyGridSpaces);
+		if(numEmptyGridSpaces == 0){
+			return new SearchResult(null, this.getMargin(state, playerIndex), 0, false);
+		}
+
+		long hashKey = this.getHashKey(state, playerIndex);
+		long entry = this.transpositionTable.probe(hashKey);
+		int tableMoveCode = (entry != TranspositionTable.NO_ENTRY) ? state.getBoardState().fromCanonicalMove(TranspositionTable.getBestMove(entry)) : TranspositionTable.NO_MOVE;
+		int[] moves = this.moveBuffers[numEmptyGridSpaces];
+		int[] moveScores = this.moveScoreBuffers[numEmptyGridSpaces];
+		int numMoves = state.getBoardState().generateMoves(playerIndex, moves);
+		this.scoreMoves(state, moves, moveScores, numMoves, tableMoveCode, playerIndex);
+
+		int bestValue = -INFINITY;
+		int bestMoveCode = TranspositionTable.NO_MOVE;
+		for(int moveIndex = 0; moveIndex < numMoves; moveIndex++){
+			int move = this.selectNextMove(moves, moveScores, numMoves, moveIndex);
+			int madeMove = state.makeMove(move, playerIndex);
+			int childValue = -this.solve(state, 1 - playerIndex, numEmptyGridSpaces - 1, -beta, -Math.max(alpha, bestValue));
+			state.unmakeMove(madeMove, playerIndex);
+			if(this.bSearchAborted){
+				break;
+			}
+			if(childValue > bestValue){
+				bestValue = childValue;
+				bestMoveCode = move;
+			}
+			if(beta <= bestValue){
+				break;
+			}
+		}
+
+		Move bestMove = null;
+		if(!this.bSearchAborted && bestMoveCode != TranspositionTable.NO_MOVE){
+			this.storeResult(state, hashKey, numEmptyGridSpaces, bestValue, alpha, beta, bestMoveCode);
+			if(bestValue > alpha){
+				bestMove = state.getMove(bestMoveCode, playerIndex);
+			}
+		}
+		this.solveDurationMillis = System.currentTimeMillis() - startTime;
+		return new SearchResult(bestMove, bestValue, this.numSolvedNodes, this.bSearchAborted);
+	}
+
+	/**
+	 * Negamax search of a state to the end of the game
+	 * @param state
+	 * @param playerIndex - the player to move
+	 * @param numEmptyGridSpaces - number of moves left in the game
+	 * @param alpha
+	 * @param beta
+	 * @return the final margin of the game for the player to move, or a bound on it
+	 * 			outside the window
+	 */
+	private int solve(GameStateNode state, int playerIndex, int numEmptyGridSpaces, int alpha, int beta){
+		this.numSolvedNodes++;
+		if(this.checkSearchLimits()){
+			return 0;
+		}
+		if(numEmptyGridSpaces == 0){
+			return this.getMargin(state, playerIndex);
+		}
+		if(numEmptyGridSpaces == 1){
+			return this.solveLastMove(state, playerIndex);
+		}
+
+		//the settled pieces bound the final margin from both sides
+		BitBoard bitBoard = state.getBoardState().getBitBoard();
+		int boardValue = state.getPlayer(0).getCurrentScore() + state.getPlayer(1).getCurrentScore() + bitBoard.getEmptyValue();
+		int upperBound = boardValue - 2 * bitBoard.getSettledValue(1 - playerIndex);
+		if(upperBound <= alpha){
+			return upperBound;
+		}
+		int lowerBound = 2 * bitBoard.getSettledValue(playerIndex) - boardValue;
+		if(lowerBound >= beta){
+			return lowerBound;
+		}
+
+		long hashKey = this.getHashKey(state, playerIndex);
+		long entry = this.transpositionTable.probe(hashKey);
+		int tableMoveCode = TranspositionTable.NO_MOVE;
+		if(entry != TranspositionTable.NO_ENTRY){
+			tableMoveCode = state.getBoardState().fromCanonicalMove(TranspositionTable.getBestMove(entry));
+			int storedValue = TranspositionTable.getScore(entry);
+			byte bound = TranspositionTable.getBound(entry);
+			if( bound == TranspositionTable.EXACT
+					|| (bound == TranspositionTable.LOWER_BOUND && storedValue >= beta)
+					|| (bound == TranspositionTable.UPPER_BOUND && storedValue <= alpha) ){
+				return storedValue;
+			}
+		}
+
+		int[] moves = this.moveBuffers[numEmptyGridSpaces];
+		int[] moveScores = this.moveScoreBuffers[numEmptyGridSpaces];
+		int numMoves = state.getBoardState().generateMoves(playerIndex, moves);
+		this.scoreMoves(state, moves, moveScores, numMoves, tableMoveCode, playerIndex);
+
+		int bestValue = -INFINITY;
+		int bestMoveCode = TranspositionTable.NO_MOVE;
+		for(int moveIndex = 0; moveIndex < numMoves; moveIndex++){
+			int move = this.selectNextMove(moves, moveScores, numMoves, moveIndex);
+			int madeMove = state.makeMove(move, playerIndex);
+			int childValue = -this.solve(state, 1 - playerIndex, numEmptyGridSpaces - 1, -beta, -Math.max(alpha, bestValue));
+			state.unmakeMove(madeMove, playerIndex);
+			if(this.bSearchAborted){
+				return 0;
+			}
+			if(childValue > bestValue){
+				bestValue = childValue;
+				bestMoveCode = move;
+				if(beta <= bestValue){
+					break;
+				}
+			}
+		}
+		this.storeResult(state, hashKey, numEmptyGridSpaces, bestValue, alpha, beta, bestMoveCode);
+		return bestValue;
+	}
+
+	/**
+	 * With one empty grid space left the mover's only choice is whether to blitz it,
+	 * and a blitz next to the opponent is never worse than the para drop
+	 * @param state - a state with exactly one empty grid space
+	 * @param playerIndex - the player to move
+	 * @return the final margin of the game for the player to move
+	 */
+	private int solveLastMove(GameStateNode state, int playerIndex){
+		BitBoard bitBoard = state.getBoardState().getBitBoard();
+		int gridSpaceIndex = 0;
+		for(int word = 0; word < bitBoard.getNumWords(); word++){
+			long empty = bitBoard.getEmptyWord(word);
+			if(empty != 0){
+				gridSpaceIndex = (word << 6) + Long.numberOfTrailingZeros(empty);
+				break;
+			}
+		}
+		int margin = this.getMargin(state, playerIndex) + bitBoard.getGridSpaceValue(gridSpaceIndex);
+		if(bitBoard.hasNeighborOccupiedBy(gridSpaceIndex, playerIndex)){
+			margin += 2 * bitBoard.getNeighborValue(gridSpaceIndex, 1 - playerIndex);
+		}
+		return margin;
+	}
+
+	/**
+	 * Ranks the moves of a node, the table move first and then by how much each adds
+	 * to the mover's lead
+	 * @param state
+	 * @param moves
+	 * @param moveScores - filled with the ranking score of each move
+	 * @param numMoves
+	 * @param tableMoveCode - best move stored for the state, or NO_MOVE
+	 * @param playerIndex - the player to move
+	 */
+	private void scoreMoves(GameStateNode state, int[] moves, int[] moveScores, int numMoves, int tableMoveCode, int playerIndex){
+		BitBoard bitBoard = state.getBoardState().getBitBoard();
+		for(int moveIndex = 0; moveIndex < numMoves; moveIndex++){
+			int move = moves[moveIndex];
+			int gridSpaceIndex = Move.getGridSpaceIndex(move);
+			if(move == tableMoveCode){
+				moveScores[moveIndex] = TABLE_MOVE_SCORE;
+			}
+			else if(Move.isBlitz(move)){
+				moveScores[moveIndex] = bitBoard.getGridSpaceValue(gridSpaceIndex) + 2 * bitBoard.getNeighborValue(gridSpaceIndex, 1 - playerIndex);
+			}
+			else{
+				moveScores[moveIndex] = bitBoard.getGridSpaceValue(gridSpaceIndex);
+			}
+		}
+	}
+
+	/**
+	 * Selection sort, one step at a time, since a cutoff usually leaves most moves unsorted
+	 * @param moves
+	 * @param moveScores
+	 * @param numMoves
+	 * @param moveIndex - the moves before this index are already searched
+	 * @return the best ranked of the remaining moves, swapped into moveIndex
+	 */
+	private int selectNextMove(int[] moves, int[] moveScores, int numMoves, int moveIndex){
+		int bestIndex = moveIndex;
+		for(int candidateIndex = moveIndex + 1; candidateIndex < numMoves; candidateIndex++){
+			if(moveScores[candidateIndex] > moveScores[bestIndex]){
+				bestIndex = candidateIndex;
+			}
+		}
+		int move = moves[bestIndex];
+		moves[bestIndex] = moves[moveIndex];
+		moves[moveIndex] = move;
+		int moveScore = moveScores[bestIndex];
+		moveScores[bestIndex] = moveScores[moveIndex];
+		moveScores[moveIndex] = moveScore;
+		return move;
+	}
+
+	/**
+	 * Stores a fail soft result, as a bound if it fell outside the window it was searched with.
+	 * The move is stored as the equivalent move of the canonical image of the state.
+	 * @param state - the state solved
+	 * @param hashKey
+	 * @param numEmptyGridSpaces
+	 * @param value
+	 * @param alpha
+	 * @param beta
+	 * @param bestMoveCode
+	 */
+	private void storeResult(GameStateNode state, long hashKey, int numEmptyGridSpaces, int value, int alpha, int beta, int bestMoveCode){
+		byte bound = TranspositionTable.EXACT;
+		if(value <= alpha){
+			bound = TranspositionTable.UPPER_BOUND;
+		}
+		else if(value >= beta){
+			bound = TranspositionTable.LOWER_BOUND;
+		}
+		this.transpositionTable.store(hashKey, numEmptyGridSpaces, value, bound, state.getBoardState().toCanonicalMove(bestMoveCode));
+	}
+
+	/**
+	 * Margins are from the mover's point of view, so unlike GameStateNode.getZobristHash
+	 * the key leaves out which player is maximizing, and both players' solves share entries.
+	 * Like it, the key is shared by the rotations and reflections of the state.
+	 * @param state
+	 * @param playerIndex - the player to move
+	 * @return the key of the state in the solver's table
+	 */
+	private long getHashKey(GameStateNode state, int playerIndex){
+		long hashKey = state.getBoardState().getCanonicalHash();
+		if(playerIndex == 1){
+			hashKey ^= state.getBoardState().getZobristKeys().getSideToMoveKey();
+		}
+		return hashKey;
+	}
+
+	/**
+	 * @param state
+	 * @param playerIndex
+	 * @return the player's score minus the opponent's
+	 */
+	private int getMargin(GameStateNode state, int playerIndex){
+		return state.getPlayer(playerIndex).getCurrentScore() - state.getPlayer(1 - playerIndex).getCurrentScore();
+	}
+
+	/**
+	 * Checks the search limits. The clock is only read every 1024 nodes.
+	 * @return true if the solve should stop
+	 */
+	private boolean checkSearchLimits(){
+		if(!this.bSearchAborted){
+			if(this.numSolvedNodes >= this.nodeLimit){
+				this.bSearchAborted = true;
+			}
+			else if((this.numSolvedNodes & 1023) == 0 && System.currentTimeMillis() >= this.searchDeadlineMillis){
+				this.bSearchAborted = true;
+			}
+		}
+		return this.bSearchAborted;
+	}
+
+	/**
+	 * Makes sure there is a move buffer for every number of empty grid spaces up to the root's
+	 * @param state
+	 * @param numEmptyGridSpaces
+	 */
+	private void growPlyBuffers(GameStateNode state, int numEmptyGridSpaces){
+		if(this.moveBuffers.length > numEmptyGridSpaces){
+			return;
+		}
+		int maxNumMoves = state.getBoardState().getMaxNumMoves();
+		int[][] moveBuffers = new int[numEmptyGridSpaces + 1][];
+		int[][] moveScoreBuffers = new int[numEmptyGridSpaces + 1][];
+		for(int ply = 0; ply <= numEmptyGridSpaces; ply++){
+			moveBuffers[ply] = new int[maxNumMoves];
+			moveScoreBuffers[ply] = new int[maxNumMoves];
+		}
+		this.moveBuffers = moveBuffers;
+		this.moveScoreBuffers = moveScoreBuffers;
+	}
+
+	/**
+	 * Empties the solver's table, so the next solve starts from nothing
+	 */
+	public void clear(){
+		this.transpositionTable.clear();
+	}
+
+	public int getEmptyThreshold() {
+		return emptyThreshold;
+	}
+
+	public void setEmptyThreshold(int emptyThreshold) {
+		this.emptyThreshold = emptyThreshold;
+	}
+
+	public long getNumSolvedNodes() {
+		return numSolvedNodes;
+	}
+
+	public boolean isSearchAborted() {
+		return bSearchAborted;
+	}
+
+	public long getSolveDurationMillis() {
+		return solveDurationMillis;
+	}
+
+	public static void main(String[] args) {
+		// TODO Auto-generated method stub
+
+	}
+
+}
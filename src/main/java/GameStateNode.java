@@ -19,7 +19,7 @@ public class GameStateNode {
 	private BoardState boardState;
 	
 	/**
-	 * Constructor
+	 * Constructor, numbers the players 0 (p1) and 1 (p2) for the rest of the game
 	 * @param p1
 	 * @param p2
 	 * @param bs
@@ -28,6 +28,8 @@ public class GameStateNode {
 		this.player1 = p1;
 		this.player2 = p2;
 		this.boardState = bs;
+		this.player1.setPlayerIndex(0);
+		this.player2.setPlayerIndex(1);
 	}
 	
 	
@@ -37,7 +39,7 @@ public class GameStateNode {
 	 * @return the allowable moves for the specified player at this state
 	 */
 	public ArrayList<Move> getAllowableMoves(Player player){
-		return this.boardState.getAllowableMoves(player.getPlayerID(), this);
+		return this.boardState.getAllowableMoves(player.getPlayerIndex(), this);
 	}
 	
 	/**
@@ -73,6 +75,24 @@ public class GameStateNode {
 		return this.boardState.isGridFilled();
 	}
 
+	/**
+	 * Every move fills exactly one grid space, so this is also the number of 
+	 * moves left in the game. Kept up to date as moves are made, for time 
+	 * management and depth scheduling.
+	 * @return the number of unoccupied grid spaces
+	 */
+	public int getNumEmptyGridSpaces(){
+		return this.boardState.getNumEmptyGridSpaces();
+	}
+	
+	/**
+	 * @param player
+	 * @return the number of pieces the player has on the board
+	 */
+	public int getNumPieces(Player player){
+		return this.boardState.getNumOccupiedGridSpaces(this.getPlayerIndex(player));
+	}
+
 	public BoardState getBoardState() {
 		return boardState;
 	}
@@ -85,6 +105,12 @@ public class GameStateNode {
 		return player2;
 	}
 	
+	/**
+	 * Only for callers holding a human readable player ID, everything
+	 * inside the game identifies players by index (see getPlayer)
+	 * @param playerID
+	 * @return the player with the ID, or null
+	 */
 	public Player getPlayerByID(String playerID){
 		if(this.player1.getPlayerID().equals(playerID)){
 			return this.player1;
@@ -95,6 +121,91 @@ public class GameStateNode {
 		return null;
 	}
 
+	/**
+	 * @param playerIndex - 0 for player1, 1 for player2
+	 * @return the player with the index
+	 */
+	public Player getPlayer(int playerIndex){
+		if(playerIndex == 0){
+			return this.player1;
+		}
+		return this.player2;
+	}
+	
+	/**
+	 * @param player
+	 * @return 0 if the player is player1, 1 if the player is player2
+	 */
+	public int getPlayerIndex(Player player){
+		return player.getPlayerIndex();
+	}
+	
+	/**
+	 * Places a new piece for the player on an empty grid space and 
+	 * credits the player with the value of the space.
+	 * @param gridSpace - a grid space belonging to this state's board
+	 * @param player - a player belonging to this state
+	 */
+	public void placePiece(GridSpace gridSpace, Player player){
+		this.boardState.occupyGridSpace(gridSpace, this.getPlayerIndex(player));
+		player.setCurrentScore(player.getCurrentScore() + gridSpace.getValue());
+	}
+	
+	/**
+	 * Removes a player's piece from a grid space and takes the value of 
+	 * the space back off the player's score. Exact inverse of placePiece.
+	 * @param gridSpace - a grid space belonging to this state's board
+	 * @param player - a player belonging to this state
+	 */
+	public void removePiece(GridSpace gridSpace, Player player){
+		this.boardState.vacateGridSpace(gridSpace, this.getPlayerIndex(player));
+		player.setCurrentScore(player.getCurrentScore() - gridSpace.getValue());
+	}
+	
+	/**
+	 * @param player
+	 * @return the other player in this state
+	 */
+	public Player getOpponent(Player player){
+		if(this.getPlayerIndex(player) == 0){
+			return this.player2;
+		}
+		return this.player1;
+	}
+	
+	/**
+	 * Turns an opponent's piece over to the conquering player, moving
+	 * the value of the space from the opponent's score to the conqueror's.
+	 * @param gridSpace - a grid space belonging to this state's board
+	 * @param conqueror - a player belonging to this state
+	 */
+	public void conquerPiece(GridSpace gridSpace, Player conqueror){
+		int conqueredPlayerIndex = this.boardState.getOccupant(gridSpace);
+		Player conqueredPlayer = this.getPlayer(conqueredPlayerIndex);
+		this.boardState.vacateGridSpace(gridSpace, conqueredPlayerIndex);
+		conqueredPlayer.setCurrentScore(conqueredPlayer.getCurrentScore() - gridSpace.getValue());
+		this.placePiece(gridSpace, conqueror);
+	}
+	
+	/**
+	 * The canonical zobrist hash of the board occupancy (see BoardState), 
+	 * combined with whose turn it is and which player the search is 
+	 * maximizing for.
+	 * @param sideToMove
+	 * @return a 64 bit key identifying this state for a search
+	 */
+	public long getZobristHash(Player sideToMove){
+		ZobristKeys keys = this.boardState.getZobristKeys();
+		long hash = this.boardState.getCanonicalHash();
+		if(this.getPlayerIndex(sideToMove) == 1){
+			hash ^= keys.getSideToMoveKey();
+		}
+		if(this.player2.isMaximizingPlayer()){
+			hash ^= keys.getMaximizingPlayerKey();
+		}
+		return hash;
+	}
+
 	public Player getLeadingPlayer(){
 		if(this.player1.getCurrentScore() >= this.player2.getCurrentScore())
 			return player1;
@@ -156,6 +267,86 @@ public class GameStateNode {
 		return null;
 	}
 	
+	/**
+	 * Executes a move directly on this state rather than on a copy, as the 
+	 * packed move with the same move code (see makeMove(int, int)). The made 
+	 * move is kept on the move object, so every call must be paired with a 
+	 * call to unmakeMove (in reverse order when nested) before the state is 
+	 * used for anything else.
+	 * @param move - a move generated for this state, or for a copy of it
+	 */
+	public void makeMove(Move move){
+		move.setMadeMove(this.makeMove(move.getMoveCode(), move.getMovingPlayerIndex()));
+	}
+	
+	/**
+	 * Executes a packed move (see Move) directly on this state. This is the 
+	 * allocation free counterpart of makeMove(Move) used by the search. The 
+	 * neighbors a blitz conquers are determined here, as the move is made.
+	 * @param move - a packed move generated for this state
+	 * @param playerIndex - the moving player, 0 for player1, 1 for player2
+	 * @return the move with its capture mask filled in, to be passed to unmakeMove(int, int)
+	 */
+	public int makeMove(int move, int playerIndex){
+		BitBoard bitBoard = this.boardState.getBitBoard();
+		int gridSpaceIndex = Move.getGridSpaceIndex(move);
+		Player mover = this.getPlayer(playerIndex);
+		this.placePiece(this.boardState.getGridSpace(gridSpaceIndex), mover);
+		if(!Move.isBlitz(move)){
+			return move;
+		}
+		int captureMask = 0;
+		for(int direction = 0; direction < BoardTopology.NUM_DIRECTIONS; direction++){
+			int neighbor = bitBoard.getNeighborIndex(gridSpaceIndex, direction);
+			if(neighbor >= 0 && bitBoard.getOccupant(neighbor) == 1 - playerIndex){
+				this.conquerPiece(this.boardState.getGridSpace(neighbor), mover);
+				captureMask |= 1 << direction;
+			}
+		}
+		return Move.setCaptureMask(move, captureMask);
+	}
+	
+	/**
+	 * Reverts a packed move previously executed with makeMove(int, int)
+	 * @param move - the move returned by makeMove, including its capture mask
+	 * @param playerIndex - the player that made the move
+	 */
+	public void unmakeMove(int move, int playerIndex){
+		BitBoard bitBoard = this.boardState.getBitBoard();
+		int gridSpaceIndex = Move.getGridSpaceIndex(move);
+		int captureMask = Move.getCaptureMask(move);
+		Player opponent = this.getPlayer(1 - playerIndex);
+		for(int direction = 0; direction < BoardTopology.NUM_DIRECTIONS; direction++){
+			if((captureMask & (1 << direction)) != 0){
+				this.conquerPiece(this.boardState.getGridSpace(bitBoard.getNeighborIndex(gridSpaceIndex, direction)), opponent);
+			}
+		}
+		this.removePiece(this.boardState.getGridSpace(gridSpaceIndex), this.getPlayer(playerIndex));
+	}
+	
+	/**
+	 * Builds the Move object for a packed move, for callers outside the search
+	 * @param move - a packed move generated for this state
+	 * @param playerIndex - the moving player, 0 for player1, 1 for player2
+	 * @return a CommandoParaDrop or M1DeathBlitz for this state
+	 */
+	public Move getMove(int move, int playerIndex){
+		GridSpace gridSpace = this.boardState.getGridSpace(Move.getGridSpaceIndex(move));
+		if(Move.isBlitz(move)){
+			return new M1DeathBlitz(playerIndex, gridSpace, this);
+		}
+		return new CommandoParaDrop(playerIndex, gridSpace, this);
+	}
+	
+	/**
+	 * Reverts a move previously executed with makeMove(Move), restoring the 
+	 * occupants of every touched grid space and both players' scores.
+	 * @param move - the most recently made move on this state
+	 */
+	public void unmakeMove(Move move){
+		this.unmakeMove(move.getMadeMove(), move.getMovingPlayerIndex());
+	}
+	
 	
 	
 	
@@ -2,17 +2,20 @@
  * GridSpace:
  * 		Defines a grid space on the game board in wargame,
  * 		along with all of its associated information.
+ * 
+ * 		Grid spaces belong to the board's topology and are shared 
+ * 		by every state of the board, so they only describe the 
+ * 		space itself. Who occupies a grid space is a property of 
+ * 		a particular state (see BoardState.getOccupant).
  * @author dcyoung3
  */
 import java.util.ArrayList;
 
 public class GridSpace {
 
-	public int row;
-	public int col;
-	public int value;
-	private boolean bOccupied;
-	private String residentPlayerID;
+	public final int row;
+	public final int col;
+	public final int value;
 	private ArrayList<GridSpace> neighboringGridSpaces;
 	
 	/**
@@ -25,7 +28,6 @@ public class GridSpace {
 		this.row = row;
 		this.col = col;
 		this.value = value;
-		this.bOccupied = false;
 	}
 	
 	public int getRow() {
@@ -36,30 +38,10 @@ public class GridSpace {
 		return col;
 	}
 
-	public boolean isOccupied() {
-		return bOccupied;
-	}
-
-	public void setbOccupied(boolean bOccupied) {
-		this.bOccupied = bOccupied;
-	}
-
-	public String getResidentPlayerID() {
-		return residentPlayerID;
-	}
-
-	public void setResidentPlayerID(String residentPlayerID) {
-		this.residentPlayerID = residentPlayerID;
-	}
-
 	public int getValue() {
 		return value;
 	}
 
-	public void setValue(int value) {
-		this.value = value;
-	}
-
 	public ArrayList<GridSpace> getNeighboringGridSpaces() {
 		return neighboringGridSpaces;
 	}
@@ -68,17 +50,6 @@ public class GridSpace {
 		this.neighboringGridSpaces = neighborSpaces;
 	}
 	
-	/**
-	 * 
-	 * @return clone of this grid space
-	 */
-	public GridSpace deepCopyGridSpace(){
-		GridSpace gs = new GridSpace(this.row, this.col, this.value);
-		gs.setbOccupied(this.bOccupied);
-		gs.setResidentPlayerID(this.residentPlayerID);
-		return gs;
-	}
-	
 	
 	public static void main(String[] args) {
 		// TODO Auto-generated method stub
@@ -0,0 +1,36 @@
+/**
+ * Heuristic:
+ * 		Estimates the worth of a game state to the maximizing player. The
+ * 		search calls it at every state where it stops searching deeper, so
+ * 		an implementation is run many thousands of times per move and should
+ * 		only read what the state already keeps up to date (scores, counts and
+ * 		the bitboard masks) rather than rescanning the board.
+ * 
+ * 		A single instance is shared by every thread searching with it (see 
+ * 		LazySMPSearch), so implementations must not keep any state of their 
+ * 		own between calls.
+ * 
+ * 	Implementations:
+ * 		ScoreDifferenceHeuristic 		- the default, the difference in score
+ * 		SecuredPortionHeuristic 		- the score difference weighted by the portion of the mover's score that is safe
+ * 		SecuredScoreHeuristic 			- the score difference after the mover loses every vulnerable point
+ * 		WeightedVulnerabilityHeuristic 	- the score difference with a small penalty for the mover's vulnerable points
+ * 		BlitzThreatHeuristic 			- the score difference after the mover's best blitz
+ * 
+ * @author dcyoung3
+ */
+public interface Heuristic {
+	
+	/**
+	 * @param state - the state to evaluate, whose maximizing player the search is choosing a move for
+	 * @param bIsMaxNode - true if it is the maximizing player's turn to move in the state
+	 * @return the worth of the state to the maximizing player, higher is better
+	 */
+	public int evaluate(GameStateNode state, boolean bIsMaxNode);
+	
+	/**
+	 * @return a short name for the heuristic, used when reporting results
+	 */
+	public String getName();
+
+}
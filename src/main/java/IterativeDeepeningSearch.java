@@ -0,0 +1,280 @@
+/**
+ * IterativeDeepeningSearch:
+ * 		Chooses a move for the maximizing player within a budget of wall clock
+ * 		time and/or expanded nodes, rather than searching to a fixed depth.
+ *
+ * 	Iterative Deepening:
+ * 		The root is searched to depth 1, then 2, then 3 and so on until the
+ * 		budget runs out. The move returned is the best move of the deepest
+ * 		iteration that completed, so the search can be stopped at any time.
+ * 		Repeating the shallow iterations is cheap compared to the last one,
+ * 		and they fill the transposition table with best moves that make the
+ * 		move ordering of the next iteration much better.
+ *
+ * 	Aspiration Windows:
+ * 		The score of an iteration is usually close to the score of the one
+ * 		before it, so each iteration after the first is searched with a narrow
+ * 		window around the previous score. A narrow window prunes far more. If
+ * 		the score falls outside the window the iteration is searched again with
+ * 		the failing side of the window opened up.
+ *
+ * 		With the MTD(f) engine the previous score is instead the first guess of
+ * 		the next iteration, which needs no window of its own.
+ *
+ * @author dcyoung3
+ */
+public class IterativeDeepeningSearch {
+	private GameStateNode root;
+	private AdversarialSearch search;
+	private SearchEngine engine;
+	private long timeBudgetMillis;
+	private long nodeBudget;
+	private int aspirationWindow;
+	private int firstDepth = 1;
+	private int maxDepth = Integer.MAX_VALUE;
+	private EndgameSolver endgameSolver;
+
+	private Move bestMove;
+	private int bestValue;
+	private int completedDepth;
+	private long numExpandedNodes;
+	private int numAspirationResearches;
+	private int numMTDFPasses;
+
+	/**
+	 * Constructor
+	 * @param root - the state to choose a move in. The maximizing player is the one to move.
+	 * @param transpositionTable - may be shared with earlier searches, null disables it
+	 * @param timeBudgetMillis - wall clock time available for the move
+	 * @param nodeBudget - expanded nodes available for the move
+	 */
+	public IterativeDeepeningSearch(GameStateNode root, TranspositionTable transpositionTable, long timeBudgetMillis, long nodeBudget){
+		this(root, transpositionTable, timeBudgetMillis, nodeBudget, new ScoreDifferenceHeuristic());
+	}
+
+	/**
+	 * Constructor
+	 * @param root - the state to choose a move in. The maximizing player is the one to move.
+	 * @param transpositionTable - may be shared with earlier searches, null disables it
+	 * @param timeBudgetMillis - wall clock time available for the move
+	 * @param nodeBudget - expanded nodes available for the move
+	 * @param heuristic - scores the states where each iteration stops
+	 */
+	public IterativeDeepeningSearch(GameStateNode root, TranspositionTable transpositionTable, long timeBudgetMillis, long nodeBudget, Heuristic heuristic){
+		this(root, transpositionTable, timeBudgetMillis, nodeBudget, heuristic, SearchEngine.ALPHA_BETA);
+	}
+
+	/**
+	 * Constructor
+	 * @param root - the state to choose a move in. The maximizing player is the one to move.
+	 * @param transpositionTable - may be shared with earlier searches, null disables it
+	 * @param timeBudgetMillis - wall clock time available for the move
+	 * @param nodeBudget - expanded nodes available for the move
+	 * @param heuristic - scores the states where each iteration stops
+	 * @param engine - searches each iteration, any engine but minimax
+	 */
+	public IterativeDeepeningSearch(GameStateNode root, TranspositionTable transpositionTable, long timeBudgetMillis, long nodeBudget, Heuristic heuristic, SearchEngine engine){
+		this.root = root;
+		this.engine = engine;
+		this.timeBudgetMillis = timeBudgetMillis;
+		this.nodeBudget = nodeBudget;
+		//the table carries each iteration's best moves into the next, so one is always used
+		if(transpositionTable == null){
+			transpositionTable = new TranspositionTable();
+		}
+		this.search = new AdversarialSearch(root, 0, 0, engine, transpositionTable, heuristic);
+
+		//a single grid space changing hands is the natural unit of score movement between iterations
+		BitBoard bitBoard = root.getBoardState().getBitBoard();
+		this.aspirationWindow = 1;
+		for(int gridSpaceIndex = 0; gridSpaceIndex < bitBoard.getNumGridSpaces(); gridSpaceIndex++){
+			this.aspirationWindow = Math.max(this.aspirationWindow, bitBoard.getGridSpaceValue(gridSpaceIndex));
+		}
+	}
+
+	/**
+	 * Splits the time left for the rest of a game evenly between the moves the
+	 * player has left. Every move fills exactly one grid space, so with n empty
+	 * grid spaces the player to move has (n+1)/2 moves left including this one.
+	 * @param remainingTimeMillis - time the player has left for the rest of the game
+	 * @param numEmptyGridSpaces
+	 * @return the time to spend on the current move
+	 */
+	public static long allocateMoveTime(long remainingTimeMillis, int numEmptyGridSpaces){
+		int numMovesLeft = Math.max(1, (numEmptyGridSpaces + 1) / 2);
+		return Math.max(1, remainingTimeMillis / numMovesLeft);
+	}
+
+	/**
+	 * Restricts the depths searched. By default the search starts at depth 1 and
+	 * deepens until the end of the game.
+	 * @param firstDepth - depth of the first iteration, which always runs to completion
+	 * @param maxDepth - depth of the last iteration
+	 */
+	public void setDepthRange(int firstDepth, int maxDepth){
+		this.firstDepth = Math.max(1, firstDepth);
+		this.maxDepth = maxDepth;
+	}
+
+	/**
+	 * Extends every iteration with a quiescence search of the blitzes at its depth limit
+	 * @param bUseQuiescence
+	 */
+	public void setQuiescenceSearch(boolean bUseQuiescence){
+		this.search.setQuiescenceSearch(bUseQuiescence);
+	}
+
+	/**
+	 * Adds late move reductions, futility and decided game pruning to every iteration
+	 * @param bUseForwardPruning
+	 */
+	public void setForwardPruning(boolean bUseForwardPruning){
+		this.search.setForwardPruning(bUseForwardPruning);
+	}
+
+	/**
+	 * Solves roots close to the end of the game exactly instead of deepening, see EndgameSolver
+	 * @param endgameSolver - null (the default) always deepens
+	 */
+	public void setEndgameSolver(EndgameSolver endgameSolver){
+		this.endgameSolver = endgameSolver;
+	}
+
+	/**
+	 * Aborts the search from another thread. The search returns the best move of
+	 * the deepest iteration completed so far.
+	 */
+	public void requestStop(){
+		this.search.requestStop();
+	}
+
+	/**
+	 * Deepens the search until the budget runs out or the search reaches the end of the game.
+	 * @return the best move found, or null if the root has no moves
+	 */
+	public Move conductSearch(){
+		long startTime = System.currentTimeMillis();
+		int numEmptyGridSpaces = this.root.getNumEmptyGridSpaces();
+		this.bestMove = null;
+		this.completedDepth = 0;
+		this.numExpandedNodes = 0;
+		this.numAspirationResearches = 0;
+		this.numMTDFPasses = 0;
+		if(this.root.isLeafNode()){
+			return null;
+		}
+
+		if(this.endgameSolver != null && this.endgameSolver.canSolve(this.root)){
+			SearchLimits limits = new SearchLimits(numEmptyGridSpaces);
+			if(this.timeBudgetMillis < Long.MAX_VALUE - startTime){
+				limits.setDeadlineMillis(startTime + this.timeBudgetMillis);
+			}
+			limits.setNodeLimit(this.nodeBudget);
+			SearchResult result = this.endgameSolver.bestMove(this.root, limits);
+			this.numExpandedNodes += result.getNumExpandedNodes();
+			if(!result.isAborted()){
+				this.bestMove = result.getBestMove();
+				this.bestValue = result.getScore();
+				this.completedDepth = numEmptyGridSpaces;
+				return this.bestMove;
+			}
+		}
+
+		//near the end of the game the depth range can start beyond the last empty grid space
+		int lastDepth = Math.max(1, Math.min(numEmptyGridSpaces, this.maxDepth));
+		int firstDepth = Math.min(this.firstDepth, lastDepth);
+		for(int depth = firstDepth; depth <= lastDepth; depth++){
+			//the first depth always runs to completion so that there is a move to return
+			long deadline = Long.MAX_VALUE;
+			if(depth > firstDepth && this.timeBudgetMillis < Long.MAX_VALUE - startTime){
+				deadline = startTime + this.timeBudgetMillis;
+			}
+
+			int alpha = Integer.MIN_VALUE;
+			int beta = Integer.MAX_VALUE;
+			if(depth > firstDepth && this.engine == SearchEngine.MTDF){
+				this.search.setFirstGuess(this.bestValue);
+			}
+			else if(depth > firstDepth){
+				alpha = this.bestValue - this.aspirationWindow;
+				beta = this.bestValue + this.aspirationWindow;
+			}
+
+			int value;
+			while(true){
+				SearchLimits limits = new SearchLimits(depth);
+				limits.setWindow(alpha, beta);
+				limits.setDeadlineMillis(deadline);
+				if(depth > firstDepth){
+					limits.setNodeLimit(this.nodeBudget - this.numExpandedNodes);
+				}
+				SearchResult result = this.search.bestMove(this.root, limits);
+				this.numExpandedNodes += result.getNumExpandedNodes();
+				this.numMTDFPasses += this.search.getNumMTDFPasses();
+				if(result.isAborted()){
+					return this.bestMove;
+				}
+				value = result.getScore();
+				//a move is only trusted from a search that finished inside its window
+				if(result.getBestMove() != null && value > alpha && value < beta){
+					this.bestMove = result.getBestMove();
+				}
+				//outside the window the value is only a bound, open up that side and search again
+				if(value <= alpha && alpha != Integer.MIN_VALUE){
+					alpha = Integer.MIN_VALUE;
+					this.numAspirationResearches++;
+				}
+				else if(value >= beta && beta != Integer.MAX_VALUE){
+					beta = Integer.MAX_VALUE;
+					this.numAspirationResearches++;
+				}
+				else{
+					break;
+				}
+			}
+
+			this.bestValue = value;
+			this.completedDepth = depth;
+
+			//the next iteration takes several times longer than this one, so don't start what can't finish
+			long elapsed = System.currentTimeMillis() - startTime;
+			if(elapsed * 2 > this.timeBudgetMillis || this.numExpandedNodes * 2 > this.nodeBudget){
+				break;
+			}
+		}
+		return this.bestMove;
+	}
+
+	public Move getBestMove() {
+		return bestMove;
+	}
+
+	public int getBestValue() {
+		return bestValue;
+	}
+
+	public int getCompletedDepth() {
+		return completedDepth;
+	}
+
+	public long getNumExpandedNodes() {
+		return numExpandedNodes;
+	}
+
+	public int getNumAspirationResearches() {
+		return numAspirationResearches;
+	}
+
+	/**
+	 * @return the null window searches of the root made by every iteration, with the MTD(f) engine
+	 */
+	public int getNumMTDFPasses() {
+		return numMTDFPasses;
+	}
+
+	public static void main(String[] args) {
+		// TODO Auto-generated method stub
+
+	}
+
+}
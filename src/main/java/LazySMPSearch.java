@@ -0,0 +1,239 @@
+/**
+ * LazySMPSearch:
+ * 		Chooses a move for the maximizing player with several threads searching
+ * 		the same root at once.
+ *
+ * 	Lazy SMP:
+ * 		Every thread runs an ordinary iterative deepening alpha beta search of
+ * 		the root, on its own copy of the state and with its own AdversarialSearch.
+ * 		The threads never talk to each other directly, they only share the lock
+ * 		free transposition table. Whatever one thread stores (scores, bounds and
+ * 		best moves) cuts off or reorders the others' searches, so together they
+ * 		finish an iteration sooner than one thread would.
+ *
+ * 		If every thread searched the same depths in the same order they would
+ * 		mostly duplicate each other's work, so half of the helper threads start
+ * 		their deepening one iteration ahead of the main thread. The move played
+ * 		is always the one chosen by the main thread (on the calling thread), and
+ * 		the helpers are stopped as soon as it finishes.
+ *
+ * @author dcyoung3
+ */
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
+import java.io.UnsupportedEncodingException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+public class LazySMPSearch {
+	//main times every search this many times from scratch and keeps the fastest, so the JIT has warmed up
+	private static final int NUM_TIMING_RUNS = 5;
+
+	private int numThreads;
+	private TranspositionTable transpositionTable;
+	private Heuristic heuristic;
+	private ForkJoinPool pool;
+
+	//statistics of the last search
+	private long[] threadExpandedNodes;
+	private long searchDurationMillis;
+	private int completedDepth;
+
+	/**
+	 * Constructor
+	 * @param numThreads - total number of threads, including the calling thread
+	 * @param transpositionTable - shared by every thread, and kept between searches
+	 */
+	public LazySMPSearch(int numThreads, TranspositionTable transpositionTable){
+		this(numThreads, transpositionTable, new ScoreDifferenceHeuristic());
+	}
+
+	/**
+	 * Constructor
+	 * @param numThreads - total number of threads, including the calling thread
+	 * @param transpositionTable - shared by every thread, and kept between searches
+	 * @param heuristic - used by every thread
+	 */
+	public LazySMPSearch(int numThreads, TranspositionTable transpositionTable, Heuristic heuristic){
+		this.numThreads = Math.max(1, numThreads);
+		this.transpositionTable = transpositionTable;
+		this.heuristic = heuristic;
+		if(this.numThreads > 1){
+			this.pool = new ForkJoinPool(this.numThreads - 1);
+		}
+		this.threadExpandedNodes = new long[this.numThreads];
+	}
+
+	/**
+	 * Deepens the search of the state on every thread until the main thread reaches
+	 * the depth limit or runs out of time or nodes. The state is left as it was found.
+	 * @param state - the state to move in, its maximizing player is the player to move
+	 * @param limits - depth (counting the root move) and time/node limits. The window
+	 * 			is not used, every iteration picks its own aspiration window. The node
+	 * 			limit applies to the main thread only.
+	 * @return the move and score of the deepest iteration the main thread completed,
+	 * 			and the number of nodes expanded by every thread
+	 */
+	public SearchResult bestMove(GameStateNode state, SearchLimits limits){
+		long startTime = System.currentTimeMillis();
+		long timeBudgetMillis = Long.MAX_VALUE;
+		if(limits.getDeadlineMillis() != Long.MAX_VALUE){
+			timeBudgetMillis = Math.max(1, limits.getDeadlineMillis() - startTime);
+		}
+		int maxDepth = Math.max(1, limits.getDepthLimit());
+
+		//the helpers copy the state before the main thread starts making moves on it
+		IterativeDeepeningSearch[] helperSearches = new IterativeDeepeningSearch[this.numThreads - 1];
+		HelperTask[] helperTasks = new HelperTask[this.numThreads - 1];
+		for(int helperIndex = 0; helperIndex < helperSearches.length; helperIndex++){
+			GameStateNode helperState = state.deepCopyGameStateNode();
+			helperSearches[helperIndex] = new IterativeDeepeningSearch(helperState, this.transpositionTable, timeBudgetMillis, Long.MAX_VALUE, this.heuristic);
+			helperSearches[helperIndex].setDepthRange(1 + (helperIndex % 2), maxDepth);
+			helperTasks[helperIndex] = new HelperTask(helperSearches[helperIndex]);
+			this.pool.execute(helperTasks[helperIndex]);
+		}
+
+		IterativeDeepeningSearch mainSearch = new IterativeDeepeningSearch(state, this.transpositionTable, timeBudgetMillis, limits.getNodeLimit(), this.heuristic);
+		mainSearch.setDepthRange(1, maxDepth);
+		mainSearch.conductSearch();
+
+		//the main thread's answer is final, so the helpers have nothing left to contribute
+		for(int helperIndex = 0; helperIndex < helperSearches.length; helperIndex++){
+			helperSearches[helperIndex].requestStop();
+		}
+		long numExpandedNodes = mainSearch.getNumExpandedNodes();
+		this.threadExpandedNodes[0] = numExpandedNodes;
+		for(int helperIndex = 0; helperIndex < helperTasks.length; helperIndex++){
+			helperTasks[helperIndex].join();
+			this.threadExpandedNodes[helperIndex + 1] = helperSearches[helperIndex].getNumExpandedNodes();
+			numExpandedNodes += this.threadExpandedNodes[helperIndex + 1];
+		}
+		this.searchDurationMillis = System.currentTimeMillis() - startTime;
+		this.completedDepth = mainSearch.getCompletedDepth();
+
+		int reachableDepth = Math.min(maxDepth, state.getNumEmptyGridSpaces());
+		return new SearchResult(mainSearch.getBestMove(), mainSearch.getBestValue(), numExpandedNodes, this.completedDepth < reachableDepth);
+	}
+
+	/**
+	 * Stops the helper threads, the search can not be used afterwards
+	 */
+	public void shutdown(){
+		if(this.pool != null){
+			this.pool.shutdown();
+		}
+	}
+
+	/**
+	 * @param threadIndex - 0 is the main thread
+	 * @return nodes expanded per second by the thread during the last search
+	 */
+	public double getNodesPerSecond(int threadIndex){
+		return this.threadExpandedNodes[threadIndex] * 1000.0 / Math.max(1, this.searchDurationMillis);
+	}
+
+	/**
+	 * Ideally stays flat as threads are added. It falls when threads contend for
+	 * memory bandwidth or the table.
+	 * @return mean nodes expanded per second by each thread during the last search
+	 */
+	public double getNodesPerSecondPerThread(){
+		long numExpandedNodes = 0;
+		for(int threadIndex = 0; threadIndex < this.numThreads; threadIndex++){
+			numExpandedNodes += this.threadExpandedNodes[threadIndex];
+		}
+		return numExpandedNodes * 1000.0 / Math.max(1, this.searchDurationMillis) / this.numThreads;
+	}
+
+	public int getNumThreads() {
+		return numThreads;
+	}
+
+	public long getThreadExpandedNodes(int threadIndex) {
+		return threadExpandedNodes[threadIndex];
+	}
+
+	public long getSearchDurationMillis() {
+		return searchDurationMillis;
+	}
+
+	public int getCompletedDepth() {
+		return completedDepth;
+	}
+
+	/**
+	 * Runs one helper's iterative deepening search on a pool thread
+	 */
+	private class HelperTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private IterativeDeepeningSearch search;
+
+		public HelperTask(IterativeDeepeningSearch search){
+			this.search = search;
+		}
+
+		@Override
+		protected void compute(){
+			this.search.conductSearch();
+		}
+	}
+
+	/**
+	 * Measures the time to reach a fixed depth and the nodes per second of each thread,
+	 * for each power of two thread count up to the number of processors (or the given
+	 * maximum), and records them alongside the saved games of the board. Each thread 
+	 * count is reported from the fastest of several fresh searches.
+	 * @param args - optional board name, search depth (counting the root move) and maximum thread count
+	 */
+	public static void main(String[] args) {
+		String puzzleName = args.length > 0 ? args[0] : "Smolensk";
+		int depth = args.length > 1 ? Integer.parseInt(args[1]) : 6;
+		int numProcessors = Runtime.getRuntime().availableProcessors();
+		int maxThreads = args.length > 2 ? Integer.parseInt(args[2]) : numProcessors;
+		GameBoardFileReader fr = new GameBoardFileReader(new File("./src/main/resources/game_boards/" + puzzleName + ".txt"));
+		BoardState bs = new BoardState(fr.getNumGridRows(), fr.getNumGridCols(), fr.getGridVals());
+		Player p1 = new Player("player1", SearchEngine.ALPHA_BETA, 0);
+		Player p2 = new Player("player2", SearchEngine.ALPHA_BETA, 0);
+		p1.setMaximizingPlayer(true);
+		GameStateNode state = new GameStateNode(p1, p2, bs);
+
+		PrintWriter smpWriter = null;
+		try {
+			smpWriter = new PrintWriter("./src/main/resources/savedGameplay/" + puzzleName + "/lazy_smp_nodes_per_second.txt", "UTF-8");
+		} catch (FileNotFoundException e) {
+			e.printStackTrace();
+		} catch (UnsupportedEncodingException e) {
+			e.printStackTrace();
+		}
+
+		for(int numThreads = 1; numThreads <= maxThreads; numThreads *= 2){
+			LazySMPSearch smpSearch = null;
+			SearchResult result = null;
+			for(int runIndex = 0; runIndex < NUM_TIMING_RUNS; runIndex++){
+				//a new search each time, so no thread starts from a table filled by the previous run
+				LazySMPSearch runSearch = new LazySMPSearch(numThreads, new TranspositionTable());
+				SearchResult runResult = runSearch.bestMove(state, new SearchLimits(depth));
+				runSearch.shutdown();
+				if(smpSearch == null || runSearch.getSearchDurationMillis() < smpSearch.getSearchDurationMillis()){
+					smpSearch = runSearch;
+					result = runResult;
+				}
+			}
+			String line = "Board: " + puzzleName + ",\tdepth: " + depth + ",\tprocessors: " + numProcessors + ",\tthreads: " + numThreads + ",\ttime: " + smpSearch.getSearchDurationMillis() + "ms,\tnodes: " + result.getNumExpandedNodes() 
+					+ ",\tscore: " + result.getScore() + ",\tnodes per second per thread: " + smpSearch.getNodesPerSecondPerThread() + " [";
+			for(int threadIndex = 0; threadIndex < numThreads; threadIndex++){
+				line += (threadIndex > 0 ? ", " : "") + Math.round(smpSearch.getNodesPerSecond(threadIndex));
+			}
+			line += "]";
+			System.out.println(line);
+			if(smpWriter != null){
+				smpWriter.println(line);
+			}
+		}
+		if(smpWriter != null){
+			smpWriter.close();
+		}
+	}
+
+}
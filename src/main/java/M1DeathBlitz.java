@@ -24,14 +24,12 @@ public class M1DeathBlitz extends Move {
 	
 	/**
 	 * Constructor
-	 * @param movingPlayerID
+	 * @param movingPlayerIndex - 0 for player1, 1 for player2
 	 * @param gridSpace
 	 * @param gameStateNode
 	 */
-	public M1DeathBlitz(String movingPlayerID, GridSpace gridSpace, GameStateNode gameStateNode){
-		super("M1DeathBlitz", movingPlayerID, gridSpace, gameStateNode);
-		this.conqueredSpaces = new ArrayList<GridSpace>();
-		this.determineConqueredSpaces();
+	public M1DeathBlitz(int movingPlayerIndex, GridSpace gridSpace, GameStateNode gameStateNode){
+		super("M1DeathBlitz", movingPlayerIndex, gridSpace, gameStateNode);
 	}
 	
 	/**
@@ -45,26 +43,15 @@ public class M1DeathBlitz extends Move {
 		GridSpace moveGridSpace = resultantState.getBoardState().getGrid().get(this.gridSpace.getRow()).get(this.gridSpace.getCol());
 		
 		//modify the grid space moved into by the moving player, and note score addition
-		moveGridSpace.setResidentPlayerID(this.movingPlayer.getPlayerID());
-		moveGridSpace.setbOccupied(true);
-		
-		Player activePlayer = resultantState.getPlayerByID(this.movingPlayer.getPlayerID());
-		activePlayer.setCurrentScore(activePlayer.getCurrentScore() + moveGridSpace.getValue());
+		Player activePlayer = resultantState.getPlayer(this.movingPlayerIndex);
+		resultantState.placePiece(moveGridSpace, activePlayer);
 		
 		//Adjust any conquered spaces, and adjust scores for both players accordingly
-		Player conqueredPlayer;
 		GridSpace conqueredSpace;
 		for(GridSpace gs : this.getConqueredSpaces()){
 			//space being conquered (belonging to the resultant state instance)
 			conqueredSpace = resultantState.getBoardState().getGrid().get(gs.getRow()).get(gs.getCol());
-			
-			//remove the previously occupying character and adjust score 
-			conqueredPlayer = resultantState.getPlayerByID(conqueredSpace.getResidentPlayerID());
-			conqueredPlayer.setCurrentScore(conqueredPlayer.getCurrentScore()-conqueredSpace.getValue()); 
-			
-			//occupy the space with the moving player and adjust score
-			conqueredSpace.setResidentPlayerID(this.movingPlayer.getPlayerID());
-			activePlayer.setCurrentScore(activePlayer.getCurrentScore()+ conqueredSpace.getValue());
+			resultantState.conquerPiece(conqueredSpace, activePlayer);
 		}
 		
 		return resultantState;
@@ -74,26 +61,45 @@ public class M1DeathBlitz extends Move {
 	 * determines the grid spaces which will be conquered if this move is executed
 	 */
 	private void determineConqueredSpaces(){
-		ArrayList<GridSpace> neighbors = this.gridSpace.getNeighboringGridSpaces();
+		BoardState boardState = this.gameStateNode.getBoardState();
+		BitBoard bitBoard = boardState.getBitBoard();
+		int gridSpaceIndex = boardState.getGridSpaceIndex(this.gridSpace);
+		int opponentIndex = 1 - this.movingPlayerIndex;
+		this.conqueredSpaces = new ArrayList<GridSpace>();
 		
-		//for each grid space that is blitzable (left, above, right, below)
-		for( GridSpace gs : neighbors ){
-			String occupyingPlayerID;
-			if(gs.isOccupied()){
-				occupyingPlayerID = gs.getResidentPlayerID();
-				if(!occupyingPlayerID.equals(this.movingPlayer.getPlayerID())){
-					//if the space is occupied by the other player, add it to conquered spaces
-					this.conqueredSpaces.add(gs);
-				}
+		//every neighbor (left, above, right, below) occupied by the other player is conquered
+		for(int word = 0; word < bitBoard.getNumWords(); word++){
+			long conquered = bitBoard.getNeighborWord(gridSpaceIndex, word) & bitBoard.getOccupancyWord(opponentIndex, word);
+			while(conquered != 0){
+				this.conqueredSpaces.add(boardState.getGridSpace((word << 6) + Long.numberOfTrailingZeros(conquered)));
+				conquered &= conquered - 1;
 			}
 		}
-		
 	}
 	
+	/**
+	 * The conquered spaces are only determined the first time they are asked for, 
+	 * against the associated state as it is then.
+	 * @return the grid spaces this move conquers
+	 */
 	public ArrayList<GridSpace> getConqueredSpaces(){
+		if(this.conqueredSpaces == null){
+			this.determineConqueredSpaces();
+		}
 		return this.conqueredSpaces;
 	}
 	
+	/**
+	 * @return the total value of the grid spaces this move conquers
+	 */
+	public int getConqueredValue(){
+		int conqueredValue = 0;
+		for(GridSpace gs : this.getConqueredSpaces()){
+			conqueredValue += gs.getValue();
+		}
+		return conqueredValue;
+	}
+	
 	
 	public static void main(String[] args) {
 		// TODO Auto-generated method stub
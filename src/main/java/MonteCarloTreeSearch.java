@@ -0,0 +1,392 @@
+/**
+ * MonteCarloTreeSearch:
+ * 		Chooses a move for the maximizing player by playing out random games,
+ * 		rather than searching to a depth and evaluating the states there. Every
+ * 		game ends after exactly as many moves as there are empty grid spaces, so
+ * 		a playout is short and always reaches a real result.
+ *
+ * 	UCT:
+ * 		The search grows a tree from the root, one node per state visited. Each
+ * 		iteration walks down the tree choosing, at every node, the child with the
+ * 		best upper confidence bound (its win rate, plus a bonus that shrinks as it
+ * 		is visited more, see UCT_CONSTANT), until it reaches a node that is not
+ * 		expanded yet. That node is expanded, one of its children is played out
+ * 		to the end of the game with random moves, and the result (a win, a draw or
+ * 		a loss) is added to every node on the way back up, from the point of view
+ * 		of the player who moved into it. The move played is the most visited root
+ * 		child.
+ *
+ * 	Playouts:
+ * 		The tree is held in preallocated arrays, and every thread walks it and
+ * 		plays out on its own copy of the root state, making the moves in place
+ * 		(see GameStateNode.makeMove(int, int)) and unmaking them all once the
+ * 		result is known. Moves are generated into a reused buffer and picked with
+ * 		a xorshift generator, so an iteration allocates nothing.
+ *
+ * 	Tree Parallelism:
+ * 		With several threads, all of them grow the same tree. Visit counts and
+ * 		results are atomic, and a node is expanded by whichever thread claims it
+ * 		first, the others play out from it meanwhile. A thread counts its visit
+ * 		to each node on the way down, before it has a result, which is a virtual
+ * 		loss: the node's win rate drops until the result is in, which steers the
+ * 		other threads to different parts of the tree instead of all following
+ * 		the same path.
+ *
+ * @author dcyoung3
+ */
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class MonteCarloTreeSearch {
+	private static final int DEFAULT_MAX_NODES = 1 << 20;
+	//exploration weight of the upper confidence bound, for rewards between 0 and 1
+	private static final double UCT_CONSTANT = 0.7;
+	//results are kept in half points, so that a draw is a whole number
+	private static final int WIN = 2;
+	private static final int DRAW = 1;
+	//expansion states of a node
+	private static final int UNEXPANDED = 0;
+	private static final int EXPANDING = 1;
+	private static final int EXPANDED = 2;
+
+	private int numThreads;
+	private ForkJoinPool pool;
+	private int maxNodes;
+
+	//the tree, indexed by node, node 0 is the root
+	private int[] nodeMoves;
+	private int[] firstChildren;
+	private int[] numChildren;
+	private AtomicIntegerArray expansionStates;
+	private AtomicIntegerArray visits;
+	private AtomicLongArray rewards;
+	private AtomicInteger numNodes;
+
+	//state of the search in progress, shared by the threads
+	private int rootPlayerIndex;
+	private long playoutBudget;
+	private long deadlineMillis;
+	private AtomicLong numStartedPlayouts;
+	private AtomicLong searchCpuNanos;
+	private volatile boolean bStopRequested;
+
+	//statistics of the last search
+	private long numPlayouts;
+	private long searchDurationMillis;
+
+	/**
+	 * Constructor
+	 * @param numThreads - total number of threads growing the tree, including the calling thread
+	 */
+	public MonteCarloTreeSearch(int numThreads){
+		this(numThreads, DEFAULT_MAX_NODES);
+	}
+
+	/**
+	 * Constructor
+	 * @param numThreads - total number of threads growing the tree, including the calling thread
+	 * @param maxNodes - size of the tree, once it is full playouts start from its leaves
+	 */
+	public MonteCarloTreeSearch(int numThreads, int maxNodes){
+		this.numThreads = Math.max(1, numThreads);
+		this.maxNodes = maxNodes;
+		if(this.numThreads > 1){
+			this.pool = new ForkJoinPool(this.numThreads - 1);
+		}
+		this.nodeMoves = new int[maxNodes];
+		this.firstChildren = new int[maxNodes];
+		this.numChildren = new int[maxNodes];
+		this.expansionStates = new AtomicIntegerArray(maxNodes);
+		this.visits = new AtomicIntegerArray(maxNodes);
+		this.rewards = new AtomicLongArray(maxNodes);
+		this.numNodes = new AtomicInteger();
+	}
+
+	/**
+	 * Grows a new tree from the state until the playout budget, the deadline or a stop
+	 * request. The state is left as it was found.
+	 * @param state - the state to move in, its maximizing player is the player to move
+	 * @param playoutBudget - playouts over every thread, Long.MAX_VALUE for none
+	 * @param deadlineMillis - wall clock time (System.currentTimeMillis) to stop at, Long.MAX_VALUE for none
+	 * @return the most visited move, its expected result for the maximizing player in per
+	 * 			mille (1000 is a certain win, 500 an even game) and the number of tree nodes
+	 */
+	public SearchResult bestMove(GameStateNode state, long playoutBudget, long deadlineMillis){
+		long startTime = System.currentTimeMillis();
+		this.rootPlayerIndex = state.getPlayerIndex(state.getMaximizingPlayer());
+		this.playoutBudget = playoutBudget;
+		this.deadlineMillis = deadlineMillis;
+		this.numStartedPlayouts = new AtomicLong();
+		this.searchCpuNanos = new AtomicLong();
+		this.bStopRequested = false;
+		this.clearNode(0);
+		this.numNodes.set(1);
+		if(state.isLeafNode()){
+			return new SearchResult(null, 0, 0, false);
+		}
+		//the root is expanded up front, so that even a single playout leaves a move to play
+		this.expand(0, state, this.rootPlayerIndex, new int[state.getBoardState().getMaxNumMoves()]);
+
+		//the helpers copy the state before the calling thread starts making moves on it
+		PlayoutTask[] helperTasks = new PlayoutTask[this.numThreads - 1];
+		for(int helperIndex = 0; helperIndex < helperTasks.length; helperIndex++){
+			helperTasks[helperIndex] = new PlayoutTask(new PlayoutWorker(state.deepCopyGameStateNode()));
+			this.pool.execute(helperTasks[helperIndex]);
+		}
+		new PlayoutWorker(state).run();
+		for(int helperIndex = 0; helperIndex < helperTasks.length; helperIndex++){
+			helperTasks[helperIndex].join();
+		}
+		//every iteration visits the root once
+		this.numPlayouts = this.visits.get(0);
+		this.searchDurationMillis = System.currentTimeMillis() - startTime;
+
+		//the most visited child is the most trusted, a high win rate over few visits may be luck
+		int bestChild = -1;
+		for(int childIndex = 0; childIndex < this.numChildren[0]; childIndex++){
+			int child = this.firstChildren[0] + childIndex;
+			if(bestChild < 0 || this.visits.get(child) > this.visits.get(bestChild)){
+				bestChild = child;
+			}
+		}
+		if(bestChild < 0){
+			return new SearchResult(null, 0, this.numNodes.get(), false);
+		}
+		int childVisits = Math.max(1, this.visits.get(bestChild));
+		int score = (int) (this.rewards.get(bestChild) * 1000 / (WIN * childVisits));
+		return new SearchResult(state.getMove(this.nodeMoves[bestChild], this.rootPlayerIndex), score, this.numNodes.get(), false);
+	}
+
+	/**
+	 * Stops the search in progress from another thread
+	 */
+	public void requestStop(){
+		this.bStopRequested = true;
+	}
+
+	/**
+	 * Stops the helper threads, the search can not be used afterwards
+	 */
+	public void shutdown(){
+		if(this.pool != null){
+			this.pool.shutdown();
+		}
+	}
+
+	/**
+	 * @param node
+	 */
+	private void clearNode(int node){
+		this.numChildren[node] = 0;
+		this.expansionStates.set(node, UNEXPANDED);
+		this.visits.set(node, 0);
+		this.rewards.set(node, 0);
+	}
+
+	/**
+	 * Adds a child for every move of the node's state, unless another thread is already
+	 * doing so or the tree is full.
+	 * @param node
+	 * @param state - the node's state
+	 * @param playerIndex - the player to move in the state
+	 * @param moves - buffer for the moves of the state
+	 * @return true if the node has children
+	 */
+	private boolean expand(int node, GameStateNode state, int playerIndex, int[] moves){
+		if(this.expansionStates.get(node) == EXPANDED){
+			return true;
+		}
+		if(!this.expansionStates.compareAndSet(node, UNEXPANDED, EXPANDING)){
+			return false;
+		}
+		int numMoves = state.getBoardState().generateMoves(playerIndex, moves);
+		//the child slots are only reserved if they fit, so the node count never passes the tree size
+		int firstChild;
+		do{
+			firstChild = this.numNodes.get();
+			if(firstChild + numMoves > this.maxNodes){
+				//the tree is full, the node stays a leaf for good
+				return false;
+			}
+		}while(!this.numNodes.compareAndSet(firstChild, firstChild + numMoves));
+		for(int moveIndex = 0; moveIndex < numMoves; moveIndex++){
+			this.nodeMoves[firstChild + moveIndex] = moves[moveIndex];
+			this.clearNode(firstChild + moveIndex);
+		}
+		this.firstChildren[node] = firstChild;
+		this.numChildren[node] = numMoves;
+		//publishes the children to the other threads
+		this.expansionStates.set(node, EXPANDED);
+		return true;
+	}
+
+	/**
+	 * @param node - an expanded node
+	 * @return the child with the best upper confidence bound, an unvisited child first
+	 */
+	private int selectChild(int node){
+		int firstChild = this.firstChildren[node];
+		double logParentVisits = Math.log(Math.max(1, this.visits.get(node)));
+		int bestChild = firstChild;
+		double bestBound = Double.NEGATIVE_INFINITY;
+		for(int child = firstChild; child < firstChild + this.numChildren[node]; child++){
+			int childVisits = this.visits.get(child);
+			if(childVisits == 0){
+				return child;
+			}
+			double bound = (double) this.rewards.get(child) / (WIN * childVisits) + UCT_CONSTANT * Math.sqrt(logParentVisits / childVisits);
+			if(bound > bestBound){
+				bestBound = bound;
+				bestChild = child;
+			}
+		}
+		return bestChild;
+	}
+
+	/**
+	 * Grows the tree on its own copy of the root state until the search stops
+	 */
+	private class PlayoutWorker {
+		private GameStateNode state;
+		private int[] moves;
+		//the nodes of the current iteration, and every move made on the state since the root
+		private int[] path;
+		private int[] madeMoves;
+		private long random;
+
+		public PlayoutWorker(GameStateNode state){
+			this.state = state;
+			this.moves = new int[state.getBoardState().getMaxNumMoves()];
+			int maxNumMoves = state.getNumEmptyGridSpaces() + 1;
+			this.path = new int[maxNumMoves + 1];
+			this.madeMoves = new int[maxNumMoves];
+			this.random = System.nanoTime() | 1;
+		}
+
+		public void run(){
+			ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+			long startCpuNanos = threadBean.getCurrentThreadCpuTime();
+			while(!bStopRequested && numStartedPlayouts.getAndIncrement() < playoutBudget){
+				if(deadlineMillis != Long.MAX_VALUE && System.currentTimeMillis() >= deadlineMillis){
+					break;
+				}
+				this.iterate();
+			}
+			searchCpuNanos.addAndGet(threadBean.getCurrentThreadCpuTime() - startCpuNanos);
+		}
+
+		/**
+		 * Selection, expansion, playout and backpropagation of one result
+		 */
+		private void iterate(){
+			int numMadeMoves = 0;
+			int playerIndex = rootPlayerIndex;
+			int node = 0;
+			int pathLength = 0;
+			this.path[pathLength++] = node;
+			visits.incrementAndGet(node);
+
+			//walk down the tree, counting each visit before the result is known (the virtual loss)
+			while(!this.state.isLeafNode()){
+				if(expansionStates.get(node) != EXPANDED){
+					//a node is expanded on its second visit, the first playout from it is enough to rank a leaf
+					if(visits.get(node) < 2 || !expand(node, this.state, playerIndex, this.moves)){
+						break;
+					}
+				}
+				node = selectChild(node);
+				this.path[pathLength++] = node;
+				visits.incrementAndGet(node);
+				this.madeMoves[numMadeMoves++] = this.state.makeMove(nodeMoves[node], playerIndex);
+				playerIndex = 1 - playerIndex;
+			}
+
+			//play the rest of the game out at random
+			while(!this.state.isLeafNode()){
+				int numMoves = this.state.getBoardState().generateMoves(playerIndex, this.moves);
+				this.madeMoves[numMadeMoves++] = this.state.makeMove(this.moves[this.nextRandom(numMoves)], playerIndex);
+				playerIndex = 1 - playerIndex;
+			}
+			int margin = this.state.getPlayer(rootPlayerIndex).getCurrentScore() - this.state.getPlayer(1 - rootPlayerIndex).getCurrentScore();
+			int rootReward = (margin > 0) ? WIN : (margin == 0 ? DRAW : 0);
+
+			//take every move back, the last made first
+			while(numMadeMoves > 0){
+				playerIndex = 1 - playerIndex;
+				this.state.unmakeMove(this.madeMoves[--numMadeMoves], playerIndex);
+			}
+
+			//a node at an odd depth was moved into by the root player, at an even depth by the opponent
+			for(int depth = 0; depth < pathLength; depth++){
+				rewards.addAndGet(this.path[depth], (depth % 2 == 1) ? rootReward : WIN - rootReward);
+			}
+		}
+
+		/**
+		 * xorshift, allocation and contention free unlike a shared Random
+		 * @param bound
+		 * @return a pseudo random int in [0, bound)
+		 */
+		private int nextRandom(int bound){
+			this.random ^= this.random << 13;
+			this.random ^= this.random >>> 7;
+			this.random ^= this.random << 17;
+			return (int) ((this.random >>> 33) % bound);
+		}
+	}
+
+	/**
+	 * Runs a helper's playouts on a pool thread
+	 */
+	private class PlayoutTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private PlayoutWorker worker;
+
+		public PlayoutTask(PlayoutWorker worker){
+			this.worker = worker;
+		}
+
+		@Override
+		protected void compute(){
+			this.worker.run();
+		}
+	}
+
+	public int getNumThreads() {
+		return numThreads;
+	}
+
+	public long getNumPlayouts() {
+		return numPlayouts;
+	}
+
+	public long getSearchDurationMillis() {
+		return searchDurationMillis;
+	}
+
+	/**
+	 * @return CPU time of the last search, summed over every thread
+	 */
+	public long getSearchCpuNanos() {
+		return searchCpuNanos.get();
+	}
+
+	/**
+	 * @return playouts per second of the last search, over every thread
+	 */
+	public double getPlayoutsPerSecond(){
+		return this.numPlayouts * 1000.0 / Math.max(1, this.searchDurationMillis);
+	}
+
+	public static void main(String[] args) {
+		// TODO Auto-generated method stub
+
+	}
+
+}
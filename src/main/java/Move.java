@@ -2,20 +2,47 @@
  * Move:
  * Abstract Move object to be extended by CommandoParaDrop and DeathBlitz subclasses.
  * 
+ * Packed Moves:
+ * 		The search does not create Move objects. It generates moves as ints 
+ * 		into reusable buffers (see BoardState.generateMoves), packed as:
+ * 			bit 0 			set for a blitz, clear for a para drop
+ * 			bits 1-20 		row major index of the grid space moved into
+ * 			bits 21-24 		capture mask, one bit per direction (see BoardTopology.LEFT etc.)
+ * 		Generated moves have an empty capture mask. Which neighbors a blitz 
+ * 		conquers is only worked out when the move is made 
+ * 		(GameStateNode.makeMove(int, int)), which returns the move with the 
+ * 		mask filled in so that it can be unmade. Without the capture mask a 
+ * 		packed move is the same as the move code of the equivalent Move object.
+ * 
  * @author dcyoung
  *
  */
 public class Move {
 	
+	private static final int BLITZ_FLAG = 1;
+	private static final int CAPTURE_SHIFT = 21;
+	private static final int MOVE_CODE_MASK = (1 << CAPTURE_SHIFT) - 1;
+	
 	protected Player movingPlayer;
+	protected byte movingPlayerIndex;
 	protected String type;
 	protected GridSpace gridSpace;
 	protected GameStateNode gameStateNode;
+	//the packed move as last made by GameStateNode.makeMove(Move), with its capture mask
+	protected int madeMove;
 	
-	public Move(String moveType, String movingPlayerID, GridSpace gridSpace, GameStateNode gameStateNode){
+	/**
+	 * Constructor
+	 * @param moveType
+	 * @param movingPlayerIndex - 0 for player1, 1 for player2
+	 * @param gridSpace
+	 * @param gameStateNode
+	 */
+	public Move(String moveType, int movingPlayerIndex, GridSpace gridSpace, GameStateNode gameStateNode){
 		this.type = moveType;
 		this.gameStateNode = gameStateNode;
-		this.movingPlayer = gameStateNode.getPlayerByID(movingPlayerID);
+		this.movingPlayerIndex = (byte) movingPlayerIndex;
+		this.movingPlayer = gameStateNode.getPlayer(movingPlayerIndex);
 		this.gridSpace = gridSpace;
 	}
 	
@@ -25,13 +52,17 @@ public class Move {
 	 * @return true if the space the player is moving into is unoccupied
 	 */
 	public boolean isAllowable(GameStateNode n){
-		return !gridSpace.isOccupied();
+		return !n.getBoardState().isOccupied(this.gridSpace);
 	}
 	
 	public Player getMovingPlayer() {
 		return movingPlayer;
 	}
 
+	public int getMovingPlayerIndex() {
+		return movingPlayerIndex;
+	}
+
 	public String getType() {
 		return type;
 	}
@@ -39,6 +70,58 @@ public class Move {
 	public GridSpace getGridSpace(){
 		return this.gridSpace;
 	}
+	
+	public int getMadeMove() {
+		return madeMove;
+	}
+
+	public void setMadeMove(int madeMove) {
+		this.madeMove = madeMove;
+	}
+	
+	/**
+	 * Compact code identifying this move within its state. Used to 
+	 * remember best moves in the transposition table without holding 
+	 * onto the move object itself.
+	 * @return the grid space index shifted left once, with the low bit set for a blitz
+	 */
+	public int getMoveCode(){
+		int gridSpaceIndex = this.gameStateNode.getBoardState().getGridSpaceIndex(this.gridSpace);
+		return encodeMove(gridSpaceIndex, this instanceof M1DeathBlitz);
+	}
+	
+	/**
+	 * @param gridSpaceIndex - row major index of the grid space moved into
+	 * @param bBlitz - true for a blitz, false for a para drop
+	 * @return the packed move, with an empty capture mask
+	 */
+	public static int encodeMove(int gridSpaceIndex, boolean bBlitz){
+		return (gridSpaceIndex << 1) | (bBlitz ? BLITZ_FLAG : 0);
+	}
+	
+	public static int getGridSpaceIndex(int move){
+		return (move & MOVE_CODE_MASK) >>> 1;
+	}
+	
+	public static boolean isBlitz(int move){
+		return (move & BLITZ_FLAG) != 0;
+	}
+	
+	public static int getCaptureMask(int move){
+		return move >>> CAPTURE_SHIFT;
+	}
+	
+	public static int setCaptureMask(int move, int captureMask){
+		return (move & MOVE_CODE_MASK) | (captureMask << CAPTURE_SHIFT);
+	}
+	
+	/**
+	 * @param move
+	 * @return the move code of the packed move, ie: without its capture mask
+	 */
+	public static int getMoveCode(int move){
+		return move & MOVE_CODE_MASK;
+	}
 
 	public static void main(String[] args) {
 		// TODO Auto-generated method stub
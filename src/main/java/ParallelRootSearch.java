@@ -0,0 +1,285 @@
+/**
+ * ParallelRootSearch:
+ * 		Chooses a move for the maximizing player by splitting the root moves
+ * 		between the threads of a ForkJoinPool.
+ *
+ * 	Root Splitting:
+ * 		The best ranked root move is searched first on the calling thread, to
+ * 		establish a good alpha before any work is split. The remaining root moves
+ * 		are then handed out one at a time to the workers, each of which searches
+ * 		its move with alpha beta exactly as the single threaded root would.
+ *
+ * 		An AdversarialSearch is not thread safe (node counts, killer and history
+ * 		tables), and neither is a game state (moves are made in place, and the
+ * 		players carry the maximizing flags). So every worker has its own search
+ * 		context: a deep copy of the root state, its own AdversarialSearch and its
+ * 		own transposition table. The only thing shared between workers is the best
+ * 		alpha found so far, which each worker reads before starting a root move, so
+ * 		late root moves are still pruned by what the other workers have found.
+ *
+ * @author dcyoung3
+ */
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
+import java.io.UnsupportedEncodingException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ParallelRootSearch {
+	//each worker's table is much smaller than a single threaded one, since there are many of them
+	private static final int WORKER_TABLE_SIZE_LOG2 = 18;
+	//main times every search this many times from scratch and keeps the fastest, so the JIT has warmed up
+	private static final int NUM_TIMING_RUNS = 5;
+
+	private int numThreads;
+	private ForkJoinPool pool;
+	private TranspositionTable[] workerTables;
+	private Heuristic heuristic;
+
+	//state of the search in progress, shared by the workers
+	private GameStateNode root;
+	private int playerIndex;
+	private int[] rootMoveCodes;
+	private int numRootMoves;
+	private int depthLimit;
+	private int beta;
+	private SearchLimits limits;
+	private AtomicInteger sharedAlpha;
+	private AtomicInteger nextMoveIndex;
+	private AtomicLong numExpandedNodes;
+	private volatile boolean bSearchAborted;
+	private int bestValue;
+	private int bestMoveCode;
+
+	/**
+	 * Constructor
+	 * @param numThreads - number of worker threads, the calling thread only searches the first root move
+	 */
+	public ParallelRootSearch(int numThreads){
+		this(numThreads, new ScoreDifferenceHeuristic());
+	}
+
+	/**
+	 * Constructor
+	 * @param numThreads - number of worker threads, the calling thread only searches the first root move
+	 * @param heuristic - used by every worker
+	 */
+	public ParallelRootSearch(int numThreads, Heuristic heuristic){
+		this.numThreads = Math.max(1, numThreads);
+		this.heuristic = heuristic;
+		this.pool = new ForkJoinPool(this.numThreads);
+		//the tables are kept between moves, so each worker remembers its earlier searches
+		this.workerTables = new TranspositionTable[this.numThreads];
+		for(int workerIndex = 0; workerIndex < this.numThreads; workerIndex++){
+			this.workerTables[workerIndex] = new TranspositionTable(WORKER_TABLE_SIZE_LOG2);
+		}
+	}
+
+	/**
+	 * Chooses a move for the maximizing player of a state with alpha beta.
+	 * The state is only read while the workers run, and is left as it was found.
+	 * @param state - the state to move in, its maximizing player is the player to move
+	 * @param limits - depth (counting the root move), window and time/node limits.
+	 * 			The node limit applies to each worker separately.
+	 * @return the chosen move, its score and the total number of nodes expanded by every worker
+	 */
+	public SearchResult bestMove(GameStateNode state, SearchLimits limits){
+		this.root = state;
+		this.limits = limits;
+		this.depthLimit = Math.max(1, limits.getDepthLimit());
+		this.beta = limits.getBeta();
+		this.numExpandedNodes = new AtomicLong(0);
+		this.bSearchAborted = false;
+		this.bestValue = limits.getAlpha();
+		this.bestMoveCode = TranspositionTable.NO_MOVE;
+		for(int workerIndex = 0; workerIndex < this.numThreads; workerIndex++){
+			this.workerTables[workerIndex].newSearch();
+		}
+
+		//the first worker's context ranks the root moves and searches the first of them
+		AdversarialSearch firstSearch = new AdversarialSearch(state, 0, 0, true, this.workerTables[0], this.heuristic);
+		firstSearch.setSearchLimits(limits.getDeadlineMillis(), limits.getNodeLimit());
+		this.playerIndex = state.getPlayerIndex(state.getMaximizingPlayer());
+		this.rootMoveCodes = new int[state.getBoardState().getMaxNumMoves()];
+		this.numRootMoves = firstSearch.getOrderedMoves(state, state.getMaximizingPlayer(), this.depthLimit, this.rootMoveCodes);
+		if(this.numRootMoves == 0){
+			return new SearchResult(null, this.bestValue, 0, false);
+		}
+
+		int firstMove = state.makeMove(this.rootMoveCodes[0], this.playerIndex);
+		int firstValue = firstSearch.alphaBeta(state, this.depthLimit-1, this.bestValue, this.beta, false);
+		state.unmakeMove(firstMove, this.playerIndex);
+		this.numExpandedNodes.addAndGet(firstSearch.getNumExpandedNodes() + 1);
+		if(firstSearch.isSearchAborted()){
+			return new SearchResult(null, this.bestValue, this.numExpandedNodes.get(), true);
+		}
+		this.offerResult(firstValue, this.rootMoveCodes[0]);
+		this.sharedAlpha = new AtomicInteger(this.bestValue);
+		this.nextMoveIndex = new AtomicInteger(1);
+
+		//split the rest of the root moves between the workers
+		if(this.bestValue < this.beta && this.numRootMoves > 1){
+			RootWorker[] workers = new RootWorker[Math.min(this.numThreads, this.numRootMoves - 1)];
+			for(int workerIndex = 0; workerIndex < workers.length; workerIndex++){
+				workers[workerIndex] = new RootWorker(workerIndex);
+			}
+			this.pool.invoke(new RootSplit(workers));
+		}
+
+		Move bestMove = state.getMove(this.bestMoveCode, this.playerIndex);
+		return new SearchResult(bestMove, this.bestValue, this.numExpandedNodes.get(), this.bSearchAborted);
+	}
+
+	/**
+	 * Records the value of a root move, raising the shared alpha if it is the best so far
+	 * @param value
+	 * @param moveCode
+	 */
+	private synchronized void offerResult(int value, int moveCode){
+		if(value > this.bestValue || this.bestMoveCode == TranspositionTable.NO_MOVE){
+			this.bestValue = Math.max(this.bestValue, value);
+			this.bestMoveCode = moveCode;
+			if(this.sharedAlpha != null){
+				this.sharedAlpha.set(this.bestValue);
+			}
+		}
+	}
+
+	/**
+	 * Stops the worker threads, the search can not be used afterwards
+	 */
+	public void shutdown(){
+		this.pool.shutdown();
+	}
+
+	public int getNumThreads() {
+		return numThreads;
+	}
+
+	/**
+	 * Runs every worker in the pool and waits for all of them
+	 */
+	private class RootSplit extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private RootWorker[] workers;
+
+		public RootSplit(RootWorker[] workers){
+			this.workers = workers;
+		}
+
+		@Override
+		protected void compute(){
+			invokeAll(this.workers);
+		}
+	}
+
+	/**
+	 * Searches root moves in its own copy of the root state until none are left
+	 */
+	private class RootWorker extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private int workerIndex;
+
+		public RootWorker(int workerIndex){
+			this.workerIndex = workerIndex;
+		}
+
+		@Override
+		protected void compute(){
+			GameStateNode state = root.deepCopyGameStateNode();
+			AdversarialSearch search = new AdversarialSearch(state, 0, 0, true, workerTables[this.workerIndex], heuristic);
+
+			int moveIndex = nextMoveIndex.getAndIncrement();
+			while(moveIndex < numRootMoves && !bSearchAborted){
+				int alpha = sharedAlpha.get();
+				if(beta <= alpha){
+					return;
+				}
+				//packed moves only name a grid space, so the root's moves are also moves of the copy
+				search.resetSearchStatistics();
+				search.setSearchLimits(limits.getDeadlineMillis(), limits.getNodeLimit());
+				int madeMove = state.makeMove(rootMoveCodes[moveIndex], playerIndex);
+				int value = search.alphaBeta(state, depthLimit-1, alpha, beta, false);
+				state.unmakeMove(madeMove, playerIndex);
+				numExpandedNodes.addAndGet(search.getNumExpandedNodes() + 1);
+				if(search.isSearchAborted()){
+					bSearchAborted = true;
+					return;
+				}
+				//fail hard, a value at or below alpha only says the move is no better
+				if(value > alpha){
+					offerResult(value, rootMoveCodes[moveIndex]);
+				}
+				moveIndex = nextMoveIndex.getAndIncrement();
+			}
+		}
+	}
+
+	/**
+	 * Measures the speedup of the root split over the single threaded search, for
+	 * each power of two thread count up to the number of processors (or the given
+	 * maximum), and records it alongside the saved games of the board.
+	 * @param args - optional board name, search depth (counting the root move) and maximum thread count
+	 */
+	public static void main(String[] args) {
+		String puzzleName = args.length > 0 ? args[0] : "Smolensk";
+		int depth = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+		int numProcessors = Runtime.getRuntime().availableProcessors();
+		int maxThreads = args.length > 2 ? Integer.parseInt(args[2]) : numProcessors;
+		GameBoardFileReader fr = new GameBoardFileReader(new File("./src/main/resources/game_boards/" + puzzleName + ".txt"));
+		BoardState bs = new BoardState(fr.getNumGridRows(), fr.getNumGridCols(), fr.getGridVals());
+		Player p1 = new Player("player1", SearchEngine.ALPHA_BETA, 0);
+		Player p2 = new Player("player2", SearchEngine.ALPHA_BETA, 0);
+		p1.setMaximizingPlayer(true);
+		GameStateNode state = new GameStateNode(p1, p2, bs);
+
+		PrintWriter speedupWriter = null;
+		try {
+			speedupWriter = new PrintWriter("./src/main/resources/savedGameplay/" + puzzleName + "/parallel_speedup.txt", "UTF-8");
+		} catch (FileNotFoundException e) {
+			e.printStackTrace();
+		} catch (UnsupportedEncodingException e) {
+			e.printStackTrace();
+		}
+
+		//single threaded baseline, without a transposition table carried over from an earlier move
+		SearchResult baselineResult = null;
+		long baselineDuration = Long.MAX_VALUE;
+		for(int runIndex = 0; runIndex < NUM_TIMING_RUNS; runIndex++){
+			long startTime = System.nanoTime();
+			AdversarialSearch baseline = new AdversarialSearch(state, 0, 0, true, new TranspositionTable(WORKER_TABLE_SIZE_LOG2));
+			baselineResult = baseline.bestMove(state, new SearchLimits(depth));
+			baselineDuration = Math.min(baselineDuration, System.nanoTime() - startTime);
+		}
+		String line = "Board: " + puzzleName + ",\tdepth: " + depth + ",\tprocessors: " + numProcessors + ",\tbaseline: " + (baselineDuration / 1e6) + "ms,\tnodes: " + baselineResult.getNumExpandedNodes() + ",\tscore: " + baselineResult.getScore();
+		System.out.println(line);
+		if(speedupWriter != null){
+			speedupWriter.println(line);
+		}
+
+		for(int numThreads = 1; numThreads <= maxThreads; numThreads *= 2){
+			SearchResult result = null;
+			long duration = Long.MAX_VALUE;
+			for(int runIndex = 0; runIndex < NUM_TIMING_RUNS; runIndex++){
+				//a new search each time, so no worker starts from a table filled by the previous run
+				ParallelRootSearch parallelSearch = new ParallelRootSearch(numThreads);
+				long startTime = System.nanoTime();
+				result = parallelSearch.bestMove(state, new SearchLimits(depth));
+				duration = Math.min(duration, System.nanoTime() - startTime);
+				parallelSearch.shutdown();
+			}
+			line = "Threads: " + numThreads + ",\ttime: " + (duration / 1e6) + "ms,\tnodes: " + result.getNumExpandedNodes() + ",\tscore: " + result.getScore() + ",\tspeedup: " + ((double) baselineDuration / duration);
+			System.out.println(line);
+			if(speedupWriter != null){
+				speedupWriter.println(line);
+			}
+		}
+		if(speedupWriter != null){
+			speedupWriter.close();
+		}
+	}
+
+}
@@ -9,19 +9,21 @@
 public class Player {
 	
 	private String playerID;
-	private boolean bShouldUseAlphaBetaPruning;
+	//0 for player1, 1 for player2 of the game the player is in. Used in place of the ID everywhere inside the game
+	private byte playerIndex;
+	private SearchEngine engine;
 	private boolean isMaximizingPlayer;
 	private int currentScore;
 	
 	/**
 	 * Constructor
 	 * @param playerID
-	 * @param bShouldUseAlphaBetaPruning
+	 * @param engine - the search the player chooses its moves with
 	 * @param currentScore
 	 */
-	public Player(String playerID, boolean bShouldUseAlphaBetaPruning, int currentScore){
+	public Player(String playerID, SearchEngine engine, int currentScore){
 		this.playerID = playerID;
-		this.bShouldUseAlphaBetaPruning = bShouldUseAlphaBetaPruning;
+		this.engine = engine;
 		this.currentScore = currentScore;
 	}
 	
@@ -29,8 +31,20 @@ public class Player {
 		return this.playerID;
 	}
 	
-	public boolean getBShouldUseAlphaBetaPruning() {
-		return this.bShouldUseAlphaBetaPruning;
+	public int getPlayerIndex() {
+		return this.playerIndex;
+	}
+	
+	public void setPlayerIndex(int playerIndex) {
+		this.playerIndex = (byte) playerIndex;
+	}
+	
+	public SearchEngine getEngine() {
+		return this.engine;
+	}
+	
+	public void setEngine(SearchEngine engine) {
+		this.engine = engine;
 	}
 	
 	public int getCurrentScore() {
@@ -49,8 +63,9 @@ public class Player {
 	}
 
 	public Player deepCopyPlayer() {
-		Player newPlayer = new Player(this.playerID, this.bShouldUseAlphaBetaPruning, this.currentScore);
+		Player newPlayer = new Player(this.playerID, this.engine, this.currentScore);
 		newPlayer.isMaximizingPlayer = this.isMaximizingPlayer;
+		newPlayer.playerIndex = this.playerIndex;
 		return newPlayer;
 		
 	}
@@ -0,0 +1,523 @@
+/**
+ * ProofNumberSearch:
+ * 		Decides the outcome of a game (a win, draw or loss for player1) without
+ * 		working out the exact margin. Each question is a yes/no proof, "does
+ * 		player1 finish more than t ahead", and is answered by a depth first proof
+ * 		number search (df-pn). Two proofs decide the outcome: t = -1 separates
+ * 		the losses from the rest, and t = 0 the wins from the draws.
+ *
+ * 	Proof and Disproof Numbers:
+ * 		Every node is scored from the point of view of the player to move, with
+ * 		phi = the number of leaves which still have to be proven for the mover to
+ * 		reach their goal, and delta = the number which still have to be proven
+ * 		for the mover to miss it. A node's phi is the smallest delta of its
+ * 		children (one refuted reply is enough) and its delta the sum of their phis
+ * 		(every reply has to be refuted). A proven node has phi = 0, a disproven
+ * 		one delta = 0, and the other number is INFINITY.
+ *
+ * 		The search always descends into the child with the smallest delta, the
+ * 		one closest to proving the node, and only returns once the node's numbers
+ * 		pass the thresholds its parent gave it, so that the parent can switch to a
+ * 		more promising child. Every filled grid space stays filled, so the tree has
+ * 		no cycles, and a node is a leaf once:
+ * 			- the board is full, or has a single empty grid space (see
+ * 			  EndgameSolver.solveLastMove)
+ * 			- the settled pieces of either player (see BitBoard.getSettledValue)
+ * 			  already put the final margin on one side of t
+ *
+ * 	Proof Table:
+ * 		The proof and disproof numbers of the expanded nodes are kept in a fixed
+ * 		size table of two entry buckets, so the search never takes more memory
+ * 		than the table was created with. Nodes are keyed by the canonical hash of
+ * 		the board (see BoardState.getCanonicalHash) and the player to move, so the
+ * 		rotations and reflections of a node share its numbers. When both entries of a bucket
+ * 		are taken the one whose subtree took fewer nodes to search is replaced,
+ * 		since it is the cheaper one to search again. The search stops cleanly,
+ * 		with an UNKNOWN outcome, once it reaches the node limit or deadline of
+ * 		its SearchLimits.
+ *
+ * @author dcyoung3
+ */
+public class ProofNumberSearch {
+	public static final int LOSS = -1;
+	public static final int DRAW = 0;
+	public static final int WIN = 1;
+	public static final int UNKNOWN = 2;
+
+	private static final int DEFAULT_TABLE_SIZE_LOG2 = 20;
+	private static final int INFINITY = 1 << 30;
+	//keeps the entries of the two proofs apart, since they share a board
+	private static final long LOSS_PROOF_KEY = 0x9E3779B97F4A7C15L;
+
+	//the proof table, each entry is the key, the two numbers and the nodes it took to search
+	private int tableMask;
+	private long[] tableKeys;
+	private int[] tablePhis;
+	private int[] tableDeltas;
+	private long[] tableWork;
+	private long numStoredEntries;
+
+	//per ply buffers, indexed by the number of empty grid spaces
+	private int[][] moveBuffers;
+	private int[][] moveScoreBuffers;
+	private int[][] childPhiBuffers;
+	private int[][] childDeltaBuffers;
+
+	//the proof in progress, player1 has to finish more than threshold ahead
+	private int threshold;
+	private long thresholdKey;
+	private int lastPhi;
+	private int lastDelta;
+
+	//limits and statistics of the search
+	private long searchDeadlineMillis;
+	private long nodeLimit;
+	private long numExpandedNodes;
+	private boolean bSearchAborted;
+	private long searchDurationMillis;
+
+	/**
+	 * Constructor, creates a proof table with the default number of entries
+	 */
+	public ProofNumberSearch(){
+		this(DEFAULT_TABLE_SIZE_LOG2);
+	}
+
+	/**
+	 * Constructor
+	 * @param tableSizeLog2 - the proof table will hold 2^tableSizeLog2 entries, of 24 bytes each
+	 */
+	public ProofNumberSearch(int tableSizeLog2){
+		int size = 1 << tableSizeLog2;
+		this.tableMask = size - 1;
+		this.tableKeys = new long[size];
+		this.tablePhis = new int[size];
+		this.tableDeltas = new int[size];
+		this.tableWork = new long[size];
+		this.moveBuffers = new int[0][];
+		this.moveScoreBuffers = new int[0][];
+		this.childPhiBuffers = new int[0][];
+		this.childDeltaBuffers = new int[0][];
+	}
+
+	/**
+	 * Decides the outcome of the game from the state under perfect play. The state
+	 * is left as it was found.
+	 * @param state - its maximizing player is the player whose turn it is
+	 * @param limits - node limit and deadline, the depth and window are not used
+	 * @return WIN, DRAW or LOSS for player1, or UNKNOWN if a limit was reached first
+	 */
+	public int solveOutcome(GameStateNode state, SearchLimits limits){
+		long startTime = System.currentTimeMillis();
+		this.searchDeadlineMillis = limits.getDeadlineMillis();
+		this.nodeLimit = limits.getNodeLimit();
+		this.numExpandedNodes = 0;
+		this.bSearchAborted = false;
+
+		int playerIndex = state.getPlayerIndex(state.getMaximizingPlayer());
+		int outcome = UNKNOWN;
+		boolean bAvoidsLoss = this.prove(state, playerIndex, -1);
+		if(!this.bSearchAborted){
+			if(!bAvoidsLoss){
+				outcome = LOSS;
+			}
+			else{
+				boolean bWins = this.prove(state, playerIndex, 0);
+				if(!this.bSearchAborted){
+					outcome = bWins ? WIN : DRAW;
+				}
+			}
+		}
+		this.searchDurationMillis = System.currentTimeMillis() - startTime;
+		return outcome;
+	}
+
+	/**
+	 * Proves or disproves that player1 finishes more than threshold ahead
+	 * @param state
+	 * @param playerIndex - the player to move
+	 * @param threshold - player1's score minus player2's has to be above this
+	 * @return true if proven, false if disproven or the search was aborted
+	 */
+	private boolean prove(GameStateNode state, int playerIndex, int threshold){
+		this.threshold = threshold;
+		this.thresholdKey = (threshold == -1) ? LOSS_PROOF_KEY : 0L;
+		int numEmptyGridSpaces = state.getNumEmptyGridSpaces();
+		this.growPlyBuffers(state, numEmptyGridSpaces);
+
+		if(!this.evaluateLeaf(state, playerIndex, numEmptyGridSpaces)){
+			this.multipleIterativeDeepening(state, playerIndex, numEmptyGridSpaces, INFINITY, INFINITY);
+		}
+		if(this.bSearchAborted){
+			return false;
+		}
+		//the mover reaches their goal when phi is 0, and player2's goal is to miss player1's
+		boolean bMoverProven = (this.lastPhi == 0);
+		return (playerIndex == 0) ? bMoverProven : !bMoverProven;
+	}
+
+	/**
+	 * Searches a node until its proof or disproof number reaches its threshold.
+	 * Leaves the node's numbers in lastPhi and lastDelta.
+	 * @param state
+	 * @param playerIndex - the player to move
+	 * @param numEmptyGridSpaces - number of moves left in the game
+	 * @param phiThreshold
+	 * @param deltaThreshold
+	 */
+	private void multipleIterativeDeepening(GameStateNode state, int playerIndex, int numEmptyGridSpaces, int phiThreshold, int deltaThreshold){
+		long hashKey = this.getHashKey(state, playerIndex);
+		int tableIndex = this.probe(hashKey);
+		if(tableIndex != -1 && (this.tablePhis[tableIndex] >= phiThreshold || this.tableDeltas[tableIndex] >= deltaThreshold)){
+			this.lastPhi = this.tablePhis[tableIndex];
+			this.lastDelta = this.tableDeltas[tableIndex];
+			return;
+		}
+		this.numExpandedNodes++;
+		if(this.checkSearchLimits()){
+			return;
+		}
+		long startNodes = this.numExpandedNodes;
+
+		int[] moves = this.moveBuffers[numEmptyGridSpaces];
+		int[] childPhis = this.childPhiBuffers[numEmptyGridSpaces];
+		int[] childDeltas = this.childDeltaBuffers[numEmptyGridSpaces];
+		int numMoves = state.getBoardState().generateMoves(playerIndex, moves);
+		this.orderMoves(state, moves, this.moveScoreBuffers[numEmptyGridSpaces], numMoves, playerIndex);
+		for(int moveIndex = 0; moveIndex < numMoves; moveIndex++){
+			int madeMove = state.makeMove(moves[moveIndex], playerIndex);
+			this.lookUpChild(state, 1 - playerIndex, numEmptyGridSpaces - 1);
+			state.unmakeMove(madeMove, playerIndex);
+			childPhis[moveIndex] = this.lastPhi;
+			childDeltas[moveIndex] = this.lastDelta;
+		}
+
+		int phi;
+		int delta;
+		while(true){
+			//phi is the smallest child delta, delta the sum of the child phis
+			phi = INFINITY;
+			long phiSum = 0;
+			int bestIndex = 0;
+			int secondDelta = INFINITY;
+			for(int moveIndex = 0; moveIndex < numMoves; moveIndex++){
+				if(childDeltas[moveIndex] < phi){
+					secondDelta = phi;
+					phi = childDeltas[moveIndex];
+					bestIndex = moveIndex;
+				}
+				else if(childDeltas[moveIndex] < secondDelta){
+					secondDelta = childDeltas[moveIndex];
+				}
+				phiSum += childPhis[moveIndex];
+			}
+			delta = this.sumToProofNumber(phiSum, childPhis, numMoves);
+			if(phi >= phiThreshold || delta >= deltaThreshold){
+				break;
+			}
+
+			//the best child is searched until it is no longer the best, or the node passes its thresholds
+			int childPhiThreshold = (int) Math.min(INFINITY, (long) deltaThreshold - delta + childPhis[bestIndex]);
+			int childDeltaThreshold = (int) Math.min(phiThreshold, (long) secondDelta + (secondDelta >> 2) + 1);
+			int madeMove = state.makeMove(moves[bestIndex], playerIndex);
+			this.multipleIterativeDeepening(state, 1 - playerIndex, numEmptyGridSpaces - 1, childPhiThreshold, childDeltaThreshold);
+			state.unmakeMove(madeMove, playerIndex);
+			if(this.bSearchAborted){
+				return;
+			}
+			childPhis[bestIndex] = this.lastPhi;
+			childDeltas[bestIndex] = this.lastDelta;
+		}
+
+		this.store(hashKey, phi, delta, this.numExpandedNodes - startNodes + 1);
+		this.lastPhi = phi;
+		this.lastDelta = delta;
+	}
+
+	/**
+	 * The proof numbers of a child, without expanding it: exact for a leaf, the
+	 * table's if it was searched before, otherwise 1 and 1.
+	 * Leaves them in lastPhi and lastDelta.
+	 * @param state
+	 * @param playerIndex - the player to move in the child
+	 * @param numEmptyGridSpaces
+	 */
+	private void lookUpChild(GameStateNode state, int playerIndex, int numEmptyGridSpaces){
+		if(this.evaluateLeaf(state, playerIndex, numEmptyGridSpaces)){
+			return;
+		}
+		int tableIndex = this.probe(this.getHashKey(state, playerIndex));
+		if(tableIndex != -1){
+			this.lastPhi = this.tablePhis[tableIndex];
+			this.lastDelta = this.tableDeltas[tableIndex];
+		}
+		else{
+			this.lastPhi = 1;
+			this.lastDelta = 1;
+		}
+	}
+
+	/**
+	 * Decides a node without searching it when the game is over, when one move is
+	 * left, or when the settled pieces already decide the proof. Sets lastPhi and
+	 * lastDelta for a decided node.
+	 * @param state
+	 * @param playerIndex - the player to move
+	 * @param numEmptyGridSpaces
+	 * @return true if the node is decided
+	 */
+	private boolean evaluateLeaf(GameStateNode state, int playerIndex, int numEmptyGridSpaces){
+		BitBoard bitBoard = state.getBoardState().getBitBoard();
+		int margin = state.getPlayer(0).getCurrentScore() - state.getPlayer(1).getCurrentScore();
+		boolean bPlayer1Proven;
+		if(numEmptyGridSpaces == 0){
+			bPlayer1Proven = margin > this.threshold;
+		}
+		else if(numEmptyGridSpaces == 1){
+			int lastMoveMargin = this.getLastMoveMargin(bitBoard, playerIndex);
+			bPlayer1Proven = ((playerIndex == 0) ? margin + lastMoveMargin : margin - lastMoveMargin) > this.threshold;
+		}
+		else{
+			int boardValue = state.getPlayer(0).getCurrentScore() + state.getPlayer(1).getCurrentScore() + bitBoard.getEmptyValue();
+			if(2 * bitBoard.getSettledValue(0) - boardValue > this.threshold){
+				bPlayer1Proven = true;
+			}
+			else if(boardValue - 2 * bitBoard.getSettledValue(1) <= this.threshold){
+				bPlayer1Proven = false;
+			}
+			else{
+				return false;
+			}
+		}
+		boolean bMoverProven = (playerIndex == 0) ? bPlayer1Proven : !bPlayer1Proven;
+		this.lastPhi = bMoverProven ? 0 : INFINITY;
+		this.lastDelta = bMoverProven ? INFINITY : 0;
+		return true;
+	}
+
+	/**
+	 * With one empty grid space left the mover blitzes it if they can, which is
+	 * never worse than the para drop
+	 * @param bitBoard - a board with exactly one empty grid space
+	 * @param playerIndex - the player to move
+	 * @return how much the last move adds to the mover's lead
+	 */
+	private int getLastMoveMargin(BitBoard bitBoard, int playerIndex){
+		int gridSpaceIndex = 0;
+		for(int word = 0; word < bitBoard.getNumWords(); word++){
+			long empty = bitBoard.getEmptyWord(word);
+			if(empty != 0){
+				gridSpaceIndex = (word << 6) + Long.numberOfTrailingZeros(empty);
+				break;
+			}
+		}
+		int lastMoveMargin = bitBoard.getGridSpaceValue(gridSpaceIndex);
+		if(bitBoard.hasNeighborOccupiedBy(gridSpaceIndex, playerIndex)){
+			lastMoveMargin += 2 * bitBoard.getNeighborValue(gridSpaceIndex, 1 - playerIndex);
+		}
+		return lastMoveMargin;
+	}
+
+	/**
+	 * @param phiSum - the sum of the child phis
+	 * @param childPhis
+	 * @param numMoves
+	 * @return the node's delta, INFINITY only if a child is disproven for its mover
+	 */
+	private int sumToProofNumber(long phiSum, int[] childPhis, int numMoves){
+		for(int moveIndex = 0; moveIndex < numMoves; moveIndex++){
+			if(childPhis[moveIndex] == INFINITY){
+				return INFINITY;
+			}
+		}
+		return (int) Math.min(INFINITY - 1, phiSum);
+	}
+
+	/**
+	 * Sorts the moves by how much each adds to the mover's lead, so that equally
+	 * promising children are tried greedily first
+	 * @param state
+	 * @param moves
+	 * @param moveScores
+	 * @param numMoves
+	 * @param playerIndex - the player to move
+	 */
+	private void orderMoves(GameStateNode state, int[] moves, int[] moveScores, int numMoves, int playerIndex){
+		BitBoard bitBoard = state.getBoardState().getBitBoard();
+		for(int moveIndex = 0; moveIndex < numMoves; moveIndex++){
+			int gridSpaceIndex = Move.getGridSpaceIndex(moves[moveIndex]);
+			moveScores[moveIndex] = bitBoard.getGridSpaceValue(gridSpaceIndex);
+			if(Move.isBlitz(moves[moveIndex])){
+				moveScores[moveIndex] += 2 * bitBoard.getNeighborValue(gridSpaceIndex, 1 - playerIndex);
+			}
+		}
+		for(int moveIndex = 1; moveIndex < numMoves; moveIndex++){
+			int move = moves[moveIndex];
+			int moveScore = moveScores[moveIndex];
+			int insertIndex = moveIndex;
+			while(insertIndex > 0 && moveScores[insertIndex - 1] < moveScore){
+				moves[insertIndex] = moves[insertIndex - 1];
+				moveScores[insertIndex] = moveScores[insertIndex - 1];
+				insertIndex--;
+			}
+			moves[insertIndex] = move;
+			moveScores[insertIndex] = moveScore;
+		}
+	}
+
+	/**
+	 * The same board is a different node with the other player to move, and
+	 * the numbers of a proof of a loss are kept apart from those of a win.
+	 * @param state
+	 * @param playerIndex - the player to move
+	 * @return the key of the node in the proof table
+	 */
+	private long getHashKey(GameStateNode state, int playerIndex){
+		long hashKey = state.getBoardState().getCanonicalHash() ^ this.thresholdKey;
+		if(playerIndex == 1){
+			hashKey ^= state.getBoardState().getZobristKeys().getSideToMoveKey();
+		}
+		return hashKey;
+	}
+
+	/**
+	 * Looks up a node in the proof table
+	 * @param hashKey
+	 * @return the index of the node's entry, or -1 if it is not in the table
+	 */
+	private int probe(long hashKey){
+		int bucket = (int) hashKey & this.tableMask & ~1;
+		if(this.tableWork[bucket] != 0 && this.tableKeys[bucket] == hashKey){
+			return bucket;
+		}
+		if(this.tableWork[bucket + 1] != 0 && this.tableKeys[bucket + 1] == hashKey){
+			return bucket + 1;
+		}
+		return -1;
+	}
+
+	/**
+	 * Stores a node's numbers, replacing the node's own entry, an empty entry, or
+	 * failing those the entry of its bucket which took the fewest nodes to search
+	 * @param hashKey
+	 * @param phi
+	 * @param delta
+	 * @param work - the number of nodes expanded to search the node
+	 */
+	private void store(long hashKey, int phi, int delta, long work){
+		int tableIndex = this.probe(hashKey);
+		if(tableIndex == -1){
+			int bucket = (int) hashKey & this.tableMask & ~1;
+			tableIndex = (this.tableWork[bucket] <= this.tableWork[bucket + 1]) ? bucket : bucket + 1;
+			if(this.tableWork[tableIndex] == 0){
+				this.numStoredEntries++;
+			}
+		}
+		else{
+			//the work of a node searched again adds up
+			work += this.tableWork[tableIndex];
+		}
+		this.tableKeys[tableIndex] = hashKey;
+		this.tablePhis[tableIndex] = phi;
+		this.tableDeltas[tableIndex] = delta;
+		this.tableWork[tableIndex] = work;
+	}
+
+	/**
+	 * Checks the search limits. The clock is only read every 1024 nodes.
+	 * @return true if the search should stop
+	 */
+	private boolean checkSearchLimits(){
+		if(!this.bSearchAborted){
+			if(this.numExpandedNodes >= this.nodeLimit){
+				this.bSearchAborted = true;
+			}
+			else if((this.numExpandedNodes & 1023) == 0 && System.currentTimeMillis() >= this.searchDeadlineMillis){
+				this.bSearchAborted = true;
+			}
+		}
+		return this.bSearchAborted;
+	}
+
+	/**
+	 * Makes sure there are buffers for every number of empty grid spaces up to the root's
+	 * @param state
+	 * @param numEmptyGridSpaces
+	 */
+	private void growPlyBuffers(GameStateNode state, int numEmptyGridSpaces){
+		if(this.moveBuffers.length > numEmptyGridSpaces){
+			return;
+		}
+		int maxNumMoves = state.getBoardState().getMaxNumMoves();
+		int[][] moveBuffers = new int[numEmptyGridSpaces + 1][];
+		int[][] moveScoreBuffers = new int[numEmptyGridSpaces + 1][];
+		int[][] childPhiBuffers = new int[numEmptyGridSpaces + 1][];
+		int[][] childDeltaBuffers = new int[numEmptyGridSpaces + 1][];
+		for(int ply = 0; ply <= numEmptyGridSpaces; ply++){
+			moveBuffers[ply] = new int[maxNumMoves];
+			moveScoreBuffers[ply] = new int[maxNumMoves];
+			childPhiBuffers[ply] = new int[maxNumMoves];
+			childDeltaBuffers[ply] = new int[maxNumMoves];
+		}
+		this.moveBuffers = moveBuffers;
+		this.moveScoreBuffers = moveScoreBuffers;
+		this.childPhiBuffers = childPhiBuffers;
+		this.childDeltaBuffers = childDeltaBuffers;
+	}
+
+	/**
+	 * Empties the proof table, so the next search starts from nothing
+	 */
+	public void clear(){
+		for(int tableIndex = 0; tableIndex < this.tableWork.length; tableIndex++){
+			this.tableWork[tableIndex] = 0;
+		}
+		this.numStoredEntries = 0;
+	}
+
+	/**
+	 * @param outcome
+	 * @return the outcome as a word, for reports
+	 */
+	public static String getOutcomeName(int outcome){
+		switch(outcome){
+			case WIN:
+				return "win";
+			case DRAW:
+				return "draw";
+			case LOSS:
+				return "loss";
+			default:
+				return "unknown";
+		}
+	}
+
+	public long getNumExpandedNodes() {
+		return numExpandedNodes;
+	}
+
+	/**
+	 * @return the number of proof table entries in use
+	 */
+	public long getNumStoredEntries() {
+		return numStoredEntries;
+	}
+
+	public int getTableSize() {
+		return tableKeys.length;
+	}
+
+	public boolean isSearchAborted() {
+		return bSearchAborted;
+	}
+
+	public long getSearchDurationMillis() {
+		return searchDurationMillis;
+	}
+
+	public static void main(String[] args) {
+		// TODO Auto-generated method stub
+
+	}
+
+}
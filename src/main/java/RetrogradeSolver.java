@@ -0,0 +1,459 @@
+/**
+ * RetrogradeSolver:
+ * 		Solves every reachable position of a small board (up to 16 grid spaces,
+ * 		ie: easy.txt) once, and keeps the results in a table on disk, so that
+ * 		later runs only have to map the file to know the value of any position.
+ * 		The table is a perfect play oracle for game states of the board (see
+ * 		getValue and bestMove), and the ground truth the faster, depth limited
+ * 		searches are checked against (see main).
+ *
+ * 	Positions:
+ * 		A position is identified by its occupancy alone, each grid space being
+ * 		empty, player1's or player2's, which is encoded as a base 3 number with
+ * 		one digit per grid space in row major order (0 empty, 1 player1, 2
+ * 		player2). Every move fills exactly one grid space and player1 moves first,
+ * 		so whose turn it is follows from the number of filled grid spaces, and
+ * 		both players' scores follow from the occupancy. A board of n grid spaces
+ * 		has 3^n positions, 43 million for a 4x4 board.
+ *
+ * 	Solving:
+ * 		The value of a position is the final margin of the game (player1's score
+ * 		minus player2's) under perfect play. A full board's value is its margin,
+ * 		and any other position's is the best of its children's for the player to
+ * 		move. The table is filled depth first from the empty board: every position
+ * 		is solved from the already solved positions after each move, and stored
+ * 		the first time it is reached, so each reachable position is only solved
+ * 		once. Moves are made on a digit array and the index directly, without a
+ * 		game state. Positions no game can reach are left unsolved in the table, and
+ * 		solved on the fly should they ever be looked up.
+ *
+ * 	Table File:
+ * 		A header (a magic number, the board dimensions and every grid space value,
+ * 		so a table is never used for a different board) followed by one 16 bit
+ * 		value per position index. The file is memory mapped, so loading a table
+ * 		reads nothing up front, and the operating system pages in only the parts
+ * 		of the table that are looked up.
+ *
+ * @author dcyoung3
+ */
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.nio.MappedByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Random;
+
+public class RetrogradeSolver {
+	public static final int MAX_GRID_SPACES = 16;
+	private static final int MAGIC = 0x57475254;
+	private static final short UNSOLVED = Short.MIN_VALUE;
+
+	private BoardTopology topology;
+	private int numGridSpaces;
+	private int[] powersOfThree;
+	private File tableFile;
+	private ShortBuffer table;
+	private boolean bWritable;
+
+	//the position being solved, the occupant (or -1 if empty) of each grid space
+	private int[] occupants;
+	private long numSolvedPositions;
+
+	/**
+	 * Constructor, no table is loaded until loadTable, buildTable or loadOrBuildTable
+	 * @param topology - the board to solve
+	 * @param tableFile - where the board's table is kept
+	 */
+	public RetrogradeSolver(BoardTopology topology, File tableFile){
+		this.topology = topology;
+		this.numGridSpaces = topology.getNumGridSpaces();
+		this.tableFile = tableFile;
+		this.occupants = new int[this.numGridSpaces];
+		this.powersOfThree = new int[this.numGridSpaces + 1];
+		this.powersOfThree[0] = 1;
+		for(int gridSpaceIndex = 0; gridSpaceIndex < this.numGridSpaces && this.numGridSpaces <= MAX_GRID_SPACES; gridSpaceIndex++){
+			this.powersOfThree[gridSpaceIndex + 1] = 3 * this.powersOfThree[gridSpaceIndex];
+		}
+	}
+
+	/**
+	 * @param topology
+	 * @return true if every position of the board fits in a table, ie: the board has at
+	 * 			most MAX_GRID_SPACES grid spaces and every margin fits in 16 bits
+	 */
+	public static boolean canSolve(BoardTopology topology){
+		if(topology.getNumGridSpaces() > MAX_GRID_SPACES){
+			return false;
+		}
+		int boardValue = 0;
+		for(int gridSpaceIndex = 0; gridSpaceIndex < topology.getNumGridSpaces(); gridSpaceIndex++){
+			boardValue += Math.abs(topology.getGridSpaceValue(gridSpaceIndex));
+		}
+		return boardValue < Short.MAX_VALUE;
+	}
+
+	/**
+	 * Maps the table file if it exists and was built for this board
+	 * @return true if the table was loaded
+	 * @throws IOException
+	 */
+	public boolean loadTable() throws IOException {
+		if(!canSolve(this.topology) || !this.tableFile.exists() || this.tableFile.length() != this.getHeaderSize() + 2L * this.powersOfThree[this.numGridSpaces]){
+			return false;
+		}
+		RandomAccessFile tableAccess = new RandomAccessFile(this.tableFile, "r");
+		try {
+			FileChannel channel = tableAccess.getChannel();
+			MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if(mapped.getInt() != MAGIC || mapped.getInt() != this.topology.getNumGridRows() || mapped.getInt() != this.topology.getNumGridCols()){
+				return false;
+			}
+			for(int gridSpaceIndex = 0; gridSpaceIndex < this.numGridSpaces; gridSpaceIndex++){
+				if(mapped.getInt() != this.topology.getGridSpaceValue(gridSpaceIndex)){
+					return false;
+				}
+			}
+			this.table = mapped.slice().asShortBuffer();
+			this.bWritable = false;
+			return true;
+		} finally {
+			//the mapping stays valid once the file is closed
+			tableAccess.close();
+		}
+	}
+
+	/**
+	 * Solves every position reachable from the empty board and writes the table file,
+	 * which stays mapped for lookups
+	 * @return false if the board is too large to solve
+	 * @throws IOException
+	 */
+	public boolean buildTable() throws IOException {
+		if(!canSolve(this.topology)){
+			return false;
+		}
+		File tableFolder = this.tableFile.getAbsoluteFile().getParentFile();
+		if(tableFolder != null){
+			tableFolder.mkdirs();
+		}
+		int numPositions = this.powersOfThree[this.numGridSpaces];
+		RandomAccessFile tableAccess = new RandomAccessFile(this.tableFile, "rw");
+		try {
+			tableAccess.setLength(0);
+			FileChannel channel = tableAccess.getChannel();
+			MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, this.getHeaderSize() + 2L * numPositions);
+			mapped.putInt(MAGIC);
+			mapped.putInt(this.topology.getNumGridRows());
+			mapped.putInt(this.topology.getNumGridCols());
+			for(int gridSpaceIndex = 0; gridSpaceIndex < this.numGridSpaces; gridSpaceIndex++){
+				mapped.putInt(this.topology.getGridSpaceValue(gridSpaceIndex));
+			}
+			this.table = mapped.slice().asShortBuffer();
+			for(int positionIndex = 0; positionIndex < numPositions; positionIndex++){
+				this.table.put(positionIndex, UNSOLVED);
+			}
+			this.bWritable = true;
+
+			this.numSolvedPositions = 0;
+			for(int gridSpaceIndex = 0; gridSpaceIndex < this.numGridSpaces; gridSpaceIndex++){
+				this.occupants[gridSpaceIndex] = -1;
+			}
+			this.solvePosition(0, 0, 0);
+			mapped.force();
+			return true;
+		} finally {
+			tableAccess.close();
+		}
+	}
+
+	/**
+	 * Loads the board's table, building it first if there is none yet
+	 * @return false if the board is too large to solve, or the table could not be written
+	 */
+	public boolean loadOrBuildTable(){
+		try {
+			return this.loadTable() || this.buildTable();
+		} catch (IOException e) {
+			e.printStackTrace();
+			return false;
+		}
+	}
+
+	/**
+	 * Solves a position from its children, storing it and every position below it
+	 * while the table is being built. The occupants are left as they were found.
+	 * @param positionIndex - base 3 encoding of the occupants
+	 * @param numFilled - number of filled grid spaces
+	 * @param margin - player1's score minus player2's
+	 * @return the final margin of the game under perfect play
+	 */
+	private int solvePosition(int positionIndex, int numFilled, int margin){
+		short storedValue = this.table.get(positionIndex);
+		if(storedValue != UNSOLVED){
+			return storedValue;
+		}
+		int value;
+		if(numFilled == this.numGridSpaces){
+			value = margin;
+		}
+		else{
+			//player1 is the one to move when an even number of grid spaces are filled
+			int playerIndex = numFilled & 1;
+			int sign = (playerIndex == 0) ? 1 : -1;
+			value = (playerIndex == 0) ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+			for(int gridSpaceIndex = 0; gridSpaceIndex < this.numGridSpaces; gridSpaceIndex++){
+				if(this.occupants[gridSpaceIndex] != -1){
+					continue;
+				}
+				int childIndex = positionIndex + (playerIndex + 1) * this.powersOfThree[gridSpaceIndex];
+				int childMargin = margin + sign * this.topology.getGridSpaceValue(gridSpaceIndex);
+
+				//a para drop
+				this.occupants[gridSpaceIndex] = playerIndex;
+				int childValue = this.solvePosition(childIndex, numFilled + 1, childMargin);
+				value = (playerIndex == 0) ? Math.max(value, childValue) : Math.min(value, childValue);
+
+				//a blitz, only a distinct move when it conquers something (see BoardState.generateMoves)
+				if(this.isBlitzable(gridSpaceIndex, playerIndex)){
+					int[] neighbors = this.topology.getNeighbors(gridSpaceIndex);
+					int conqueredMask = 0;
+					for(int neighborIndex = 0; neighborIndex < neighbors.length; neighborIndex++){
+						int neighbor = neighbors[neighborIndex];
+						if(this.occupants[neighbor] == 1 - playerIndex){
+							this.occupants[neighbor] = playerIndex;
+							childIndex += (2 * playerIndex - 1) * this.powersOfThree[neighbor];
+							childMargin += 2 * sign * this.topology.getGridSpaceValue(neighbor);
+							conqueredMask |= 1 << neighborIndex;
+						}
+					}
+					childValue = this.solvePosition(childIndex, numFilled + 1, childMargin);
+					value = (playerIndex == 0) ? Math.max(value, childValue) : Math.min(value, childValue);
+					for(int neighborIndex = 0; neighborIndex < neighbors.length; neighborIndex++){
+						if((conqueredMask & (1 << neighborIndex)) != 0){
+							this.occupants[neighbors[neighborIndex]] = 1 - playerIndex;
+						}
+					}
+				}
+				this.occupants[gridSpaceIndex] = -1;
+			}
+		}
+		if(this.bWritable){
+			this.table.put(positionIndex, (short) value);
+			this.numSolvedPositions++;
+		}
+		return value;
+	}
+
+	/**
+	 * @param gridSpaceIndex - an empty grid space
+	 * @param playerIndex
+	 * @return true if a blitz into the grid space by the player conquers something
+	 */
+	private boolean isBlitzable(int gridSpaceIndex, int playerIndex){
+		boolean bNextToPlayer = false;
+		boolean bNextToOpponent = false;
+		int[] neighbors = this.topology.getNeighbors(gridSpaceIndex);
+		for(int neighborIndex = 0; neighborIndex < neighbors.length; neighborIndex++){
+			int occupant = this.occupants[neighbors[neighborIndex]];
+			bNextToPlayer |= occupant == playerIndex;
+			bNextToOpponent |= occupant == 1 - playerIndex;
+		}
+		return bNextToPlayer && bNextToOpponent;
+	}
+
+	/**
+	 * The perfect play value of a state, with its maximizing player to move
+	 * @param state - a state of the solved board, its maximizing player is the player whose turn it is
+	 * @return the final margin of the game (player1's score minus player2's) under perfect play
+	 */
+	public int getValue(GameStateNode state){
+		return this.getValue(state, state.getPlayerIndex(state.getMaximizingPlayer()));
+	}
+
+	/**
+	 * The perfect play value of a state with the given player to move. The table only
+	 * holds positions of games player1 started, so that player must be the one the
+	 * number of filled grid spaces gives the turn to, unless the board is full.
+	 * @param state - a state of the solved board
+	 * @param playerIndex - index of the player to move
+	 * @return the final margin of the game (player1's score minus player2's) under perfect play
+	 */
+	private int getValue(GameStateNode state, int playerIndex){
+		BitBoard bitBoard = state.getBoardState().getBitBoard();
+		int positionIndex = 0;
+		int numFilled = 0;
+		for(int gridSpaceIndex = 0; gridSpaceIndex < this.numGridSpaces; gridSpaceIndex++){
+			this.occupants[gridSpaceIndex] = bitBoard.getOccupant(gridSpaceIndex);
+			if(this.occupants[gridSpaceIndex] != -1){
+				positionIndex += (this.occupants[gridSpaceIndex] + 1) * this.powersOfThree[gridSpaceIndex];
+				numFilled++;
+			}
+		}
+		if(numFilled < this.numGridSpaces && (numFilled & 1) != playerIndex){
+			throw new IllegalArgumentException("player" + (playerIndex + 1) + " to move after " + numFilled + " moves, the table only holds games player1 started");
+		}
+		int margin = state.getPlayer(0).getCurrentScore() - state.getPlayer(1).getCurrentScore();
+		return this.solvePosition(positionIndex, numFilled, margin);
+	}
+
+	/**
+	 * Chooses a perfect move for the maximizing player, by looking up every child of the state
+	 * @param state - a state of the solved board, its maximizing player is the player whose turn it is
+	 * @return the best move, the final margin of the game for the maximizing player and the
+	 * 			number of positions looked up
+	 */
+	public SearchResult bestMove(GameStateNode state){
+		int playerIndex = state.getPlayerIndex(state.getMaximizingPlayer());
+		int sign = (playerIndex == 0) ? 1 : -1;
+		if(state.isLeafNode()){
+			return new SearchResult(null, sign * this.getValue(state, playerIndex), 0, false);
+		}
+		int[] moves = new int[state.getBoardState().getMaxNumMoves()];
+		int numMoves = state.getBoardState().generateMoves(playerIndex, moves);
+		int bestValue = Integer.MIN_VALUE;
+		int bestMoveCode = TranspositionTable.NO_MOVE;
+		for(int moveIndex = 0; moveIndex < numMoves; moveIndex++){
+			int madeMove = state.makeMove(moves[moveIndex], playerIndex);
+			int childValue = sign * this.getValue(state, 1 - playerIndex);
+			state.unmakeMove(madeMove, playerIndex);
+			if(childValue > bestValue){
+				bestValue = childValue;
+				bestMoveCode = moves[moveIndex];
+			}
+		}
+		return new SearchResult(state.getMove(bestMoveCode, playerIndex), bestValue, numMoves, false);
+	}
+
+	/**
+	 * @return the size of the table file's header in bytes
+	 */
+	private int getHeaderSize(){
+		return 4 * (3 + this.numGridSpaces);
+	}
+
+	/**
+	 * @return the number of positions solved by the last buildTable, ie: the reachable positions
+	 */
+	public long getNumSolvedPositions() {
+		return numSolvedPositions;
+	}
+
+	public File getTableFile() {
+		return tableFile;
+	}
+
+	/**
+	 * Loads the table of a small board, building it if needed, and uses it as ground truth:
+	 * positions of random games are scored by the endgame solver and by full depth alpha
+	 * beta, and compared with the table. The timings and any mismatches are recorded
+	 * alongside the saved games of the board.
+	 * @param args - optional board name, and number of random games
+	 */
+	public static void main(String[] args) {
+		String puzzleName = args.length > 0 ? args[0] : "easy";
+		int numGames = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+		GameBoardFileReader fr = new GameBoardFileReader(new File("./src/main/resources/game_boards/" + puzzleName + ".txt"));
+		BoardTopology topology = new BoardTopology(fr.getNumGridRows(), fr.getNumGridCols(), fr.getGridVals());
+		if(!canSolve(topology)){
+			System.out.println("Board: " + puzzleName + " has too many grid spaces to solve");
+			return;
+		}
+		RetrogradeSolver solver = new RetrogradeSolver(topology, new File("./src/main/resources/solved_boards/" + puzzleName + ".tbl"));
+
+		PrintWriter checkWriter = null;
+		try {
+			new File("./src/main/resources/savedGameplay/" + puzzleName).mkdirs();
+			checkWriter = new PrintWriter("./src/main/resources/savedGameplay/" + puzzleName + "/retrograde_check.txt", "UTF-8");
+		} catch (FileNotFoundException e) {
+			e.printStackTrace();
+		} catch (UnsupportedEncodingException e) {
+			e.printStackTrace();
+		}
+
+		ArrayList<String> lines = new ArrayList<String>();
+		long startTime = System.currentTimeMillis();
+		boolean bLoaded = false;
+		try {
+			bLoaded = solver.loadTable();
+			if(bLoaded){
+				lines.add("Board: " + puzzleName + ",\ttable loaded in: " + (System.currentTimeMillis() - startTime) + "ms");
+			}
+			else if(solver.buildTable()){
+				lines.add("Board: " + puzzleName + ",\ttable built in: " + (System.currentTimeMillis() - startTime) + "ms,\treachable positions: " + solver.getNumSolvedPositions());
+				//time a fresh load of the table just written
+				startTime = System.currentTimeMillis();
+				solver = new RetrogradeSolver(topology, solver.getTableFile());
+				bLoaded = solver.loadTable();
+				lines.add("Board: " + puzzleName + ",\ttable loaded in: " + (System.currentTimeMillis() - startTime) + "ms");
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		if(!bLoaded){
+			System.out.println("Board: " + puzzleName + " table could not be loaded");
+			return;
+		}
+
+		BoardState bs = new BoardState(topology);
+		Player p1 = new Player("player1", SearchEngine.ALPHA_BETA, 0);
+		Player p2 = new Player("player2", SearchEngine.ALPHA_BETA, 0);
+		GameStateNode emptyState = new GameStateNode(p1, p2, bs);
+		p1.setMaximizingPlayer(true);
+		lines.add("Board: " + puzzleName + ",\tvalue of the empty board: " + solver.getValue(emptyState));
+
+		//the endgame solver is only checked where it takes milliseconds, and full depth alpha beta likewise
+		EndgameSolver endgameSolver = new EndgameSolver(EndgameSolver.DEFAULT_EMPTY_THRESHOLD);
+		int maxAlphaBetaEmpty = 8;
+		Random random = new Random(440L);
+		int numChecked = 0;
+		int numMismatches = 0;
+		for(int gameIndex = 0; gameIndex < numGames; gameIndex++){
+			GameStateNode state = emptyState.deepCopyGameStateNode();
+			int playerIndex = 0;
+			while(!state.isLeafNode()){
+				state.getPlayer(playerIndex).setMaximizingPlayer(true);
+				state.getPlayer(1 - playerIndex).setMaximizingPlayer(false);
+				int sign = (playerIndex == 0) ? 1 : -1;
+				int oracleValue = sign * solver.getValue(state);
+				int numEmpty = state.getNumEmptyGridSpaces();
+				if(endgameSolver.canSolve(state)){
+					numChecked++;
+					int solvedValue = endgameSolver.bestMove(state, new SearchLimits(numEmpty)).getScore();
+					if(solvedValue != oracleValue){
+						numMismatches++;
+						lines.add("Mismatch, game: " + gameIndex + ",\tempty: " + numEmpty + ",\tendgame solver: " + solvedValue + ",\ttable: " + oracleValue);
+					}
+				}
+				if(numEmpty <= maxAlphaBetaEmpty){
+					numChecked++;
+					AdversarialSearch abSearch = new AdversarialSearch(state, 0, numEmpty, true, null);
+					int abValue = abSearch.bestMove(state, new SearchLimits(numEmpty)).getScore();
+					if(abValue != oracleValue){
+						numMismatches++;
+						lines.add("Mismatch, game: " + gameIndex + ",\tempty: " + numEmpty + ",\tfull depth alpha beta: " + abValue + ",\ttable: " + oracleValue);
+					}
+				}
+				ArrayList<Move> moves = state.getAllowableMoves(state.getPlayer(playerIndex));
+				state.makeMove(moves.get(random.nextInt(moves.size())));
+				playerIndex = 1 - playerIndex;
+			}
+		}
+		lines.add("Board: " + puzzleName + ",\trandom games: " + numGames + ",\tsearches checked: " + numChecked + ",\tmismatches: " + numMismatches);
+
+		for(int lineIndex = 0; lineIndex < lines.size(); lineIndex++){
+			System.out.println(lines.get(lineIndex));
+			if(checkWriter != null){
+				checkWriter.println(lines.get(lineIndex));
+			}
+		}
+		if(checkWriter != null){
+			checkWriter.close();
+		}
+	}
+
+}
@@ -0,0 +1,26 @@
+/**
+ * ScoreDifferenceHeuristic:
+ * 		The default heuristic. A state is worth the maximizing player's 
+ * 		score minus the minimizing player's score, regardless of whose 
+ * 		turn it is or how much of either score could still be conquered.
+ * 		At a leaf of the game tree (a full board) this is the exact result 
+ * 		of the game.
+ * 
+ * @author dcyoung3
+ */
+public class ScoreDifferenceHeuristic implements Heuristic {
+	
+	public int evaluate(GameStateNode state, boolean bIsMaxNode){
+		return state.getMaximizingPlayer().getCurrentScore() - state.getMinimizingPlayer().getCurrentScore();
+	}
+	
+	public String getName(){
+		return "ScoreDifference";
+	}
+	
+	public static void main(String[] args) {
+		// TODO Auto-generated method stub
+
+	}
+
+}
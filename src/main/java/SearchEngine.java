@@ -0,0 +1,47 @@
+/**
+ * SearchEngine:
+ * 		The search algorithms a player can choose its moves with.
+ * 
+ * 		MINIMAX 	- plain minimax, every node down to the minimax depth
+ * 		ALPHA_BETA 	- minimax with alpha beta pruning, down to the alpha beta depth
+ * 		PVS 		- principal variation search (aka NegaScout), alpha beta which 
+ * 					  searches every move after the first of each node with a null 
+ * 					  window, only to prove it is no better than the first
+ * 		MTDF 		- MTD(f), finds the value of the root with a series of null window 
+ * 					  alpha beta searches, each narrowing the bounds on it, starting 
+ * 					  from a first guess
+ * 		MCTS 		- Monte Carlo tree search (UCT), grows a tree of random playouts 
+ * 					  within a playout or time budget rather than searching to a depth, 
+ * 					  see MonteCarloTreeSearch
+ * 
+ * @author dcyoung3
+ */
+public enum SearchEngine {
+	MINIMAX("MM"),
+	ALPHA_BETA("AB"),
+	PVS("PVS"),
+	MTDF("MTDF"),
+	MCTS("MCTS");
+	
+	private String abbreviation;
+	
+	/**
+	 * Constructor
+	 * @param abbreviation - short name, used to name the folders of saved games
+	 */
+	private SearchEngine(String abbreviation){
+		this.abbreviation = abbreviation;
+	}
+	
+	public String getAbbreviation() {
+		return abbreviation;
+	}
+	
+	/**
+	 * @return true if the engine prunes with alpha beta, and so searches to the alpha beta depth
+	 */
+	public boolean usesAlphaBeta(){
+		return this != MINIMAX && this != MCTS;
+	}
+
+}
@@ -0,0 +1,88 @@
+/**
+ * SearchLimits:
+ * 		Describes how far a root search (AdversarialSearch.bestMove) may go:
+ * 		the depth to search to, the window to search the root with, and
+ * 		optionally a wall clock deadline and a limit on expanded nodes after
+ * 		which the search gives up.
+ * 
+ * @author dcyoung3
+ */
+public class SearchLimits {
+	
+	private int depthLimit;
+	private int alpha;
+	private int beta;
+	private long deadlineMillis;
+	private long nodeLimit;
+	
+	/**
+	 * Constructor, a full window search to the depth with no time or node limit
+	 * @param depthLimit - number of plies to search, counting the root move itself
+	 */
+	public SearchLimits(int depthLimit){
+		this.depthLimit = depthLimit;
+		this.alpha = Integer.MIN_VALUE;
+		this.beta = Integer.MAX_VALUE;
+		this.deadlineMillis = Long.MAX_VALUE;
+		this.nodeLimit = Long.MAX_VALUE;
+	}
+	
+	public int getDepthLimit() {
+		return depthLimit;
+	}
+
+	public void setDepthLimit(int depthLimit) {
+		this.depthLimit = depthLimit;
+	}
+
+	public int getAlpha() {
+		return alpha;
+	}
+
+	public int getBeta() {
+		return beta;
+	}
+
+	/**
+	 * Narrows the window the root is searched with
+	 * @param alpha
+	 * @param beta
+	 */
+	public void setWindow(int alpha, int beta) {
+		this.alpha = alpha;
+		this.beta = beta;
+	}
+
+	public long getDeadlineMillis() {
+		return deadlineMillis;
+	}
+
+	/**
+	 * @param deadlineMillis - wall clock time (System.currentTimeMillis) to stop at
+	 */
+	public void setDeadlineMillis(long deadlineMillis) {
+		this.deadlineMillis = deadlineMillis;
+	}
+
+	/**
+	 * Sets the deadline to the given amount of time from now
+	 * @param timeBudgetMillis
+	 */
+	public void setTimeBudgetMillis(long timeBudgetMillis) {
+		this.deadlineMillis = System.currentTimeMillis() + timeBudgetMillis;
+	}
+
+	public long getNodeLimit() {
+		return nodeLimit;
+	}
+
+	public void setNodeLimit(long nodeLimit) {
+		this.nodeLimit = nodeLimit;
+	}
+
+	public static void main(String[] args) {
+		// TODO Auto-generated method stub
+
+	}
+
+}
@@ -0,0 +1,52 @@
+/**
+ * SearchResult:
+ * 		The outcome of a root search (AdversarialSearch.bestMove): the move
+ * 		chosen for the maximizing player, its score, and how much work it
+ * 		took to find.
+ * 
+ * @author dcyoung3
+ */
+public class SearchResult {
+	
+	private Move bestMove;
+	private int score;
+	private long numExpandedNodes;
+	private boolean bAborted;
+	
+	/**
+	 * Constructor
+	 * @param bestMove - null if no move scored above the alpha of the search window
+	 * @param score - value of the root, clamped to the search window
+	 * @param numExpandedNodes - every node expanded, including the root moves
+	 * @param bAborted - true if the search ran out of time or nodes, in which case 
+	 * 			the move and score must not be used
+	 */
+	public SearchResult(Move bestMove, int score, long numExpandedNodes, boolean bAborted){
+		this.bestMove = bestMove;
+		this.score = score;
+		this.numExpandedNodes = numExpandedNodes;
+		this.bAborted = bAborted;
+	}
+	
+	public Move getBestMove() {
+		return bestMove;
+	}
+
+	public int getScore() {
+		return score;
+	}
+
+	public long getNumExpandedNodes() {
+		return numExpandedNodes;
+	}
+
+	public boolean isAborted() {
+		return bAborted;
+	}
+
+	public static void main(String[] args) {
+		// TODO Auto-generated method stub
+
+	}
+
+}
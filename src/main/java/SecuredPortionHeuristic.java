@@ -0,0 +1,47 @@
+/**
+ * SecuredPortionHeuristic:
+ * 		Weights the score difference by the portion of the moving player's 
+ * 		score that is secured, ie: not vulnerable to a single enemy blitz.
+ * 
+ * 		A player that is ahead wants as much of their lead secured as possible, 
+ * 		so when the mover is winning the difference is scaled by the secured 
+ * 		portion of their score, and when the mover is losing it is scaled by 
+ * 		the vulnerable portion instead.
+ * 
+ * 		The portions are fractions of the mover's score, worked out in integer 
+ * 		arithmetic (difference * points / score) so that they are not truncated 
+ * 		to zero or one.
+ * 
+ * @author dcyoung3
+ */
+public class SecuredPortionHeuristic implements Heuristic {
+	
+	public int evaluate(GameStateNode state, boolean bIsMaxNode){
+		Player maxPlayer = state.getMaximizingPlayer();
+		Player minPlayer = state.getMinimizingPlayer();
+		int scoreDifference = maxPlayer.getCurrentScore() - minPlayer.getCurrentScore();
+		
+		//the max player is winning when the difference is positive, the min player when it is not
+		Player activePlayer = bIsMaxNode ? maxPlayer : minPlayer;
+		boolean bActivePlayerWinning = bIsMaxNode ? scoreDifference > 0 : scoreDifference <= 0;
+		int activeScore = activePlayer.getCurrentScore();
+		if(activeScore <= 0){
+			//nothing to lose, so everything is secured
+			return bActivePlayerWinning ? scoreDifference : 0;
+		}
+		int vulnerablePoints = state.getBoardState().getVulnerablePoints(activePlayer.getPlayerIndex());
+		int securedPoints = activeScore - vulnerablePoints;
+		int weightPoints = bActivePlayerWinning ? securedPoints : vulnerablePoints;
+		return (int) ((long) scoreDifference * weightPoints / activeScore);
+	}
+	
+	public String getName(){
+		return "SecuredPortion";
+	}
+	
+	public static void main(String[] args) {
+		// TODO Auto-generated method stub
+
+	}
+
+}
@@ -0,0 +1,31 @@
+/**
+ * SecuredScoreHeuristic:
+ * 		The score difference after taking every vulnerable point away from 
+ * 		the moving player, ie: only counting the part of the mover's score 
+ * 		that no single enemy blitz could conquer.
+ * 
+ * @author dcyoung3
+ */
+public class SecuredScoreHeuristic implements Heuristic {
+	
+	public int evaluate(GameStateNode state, boolean bIsMaxNode){
+		Player maxPlayer = state.getMaximizingPlayer();
+		Player minPlayer = state.getMinimizingPlayer();
+		if(bIsMaxNode){
+			int securedScore = maxPlayer.getCurrentScore() - state.getBoardState().getVulnerablePoints(maxPlayer.getPlayerIndex());
+			return securedScore - minPlayer.getCurrentScore();
+		}
+		int securedScore = minPlayer.getCurrentScore() - state.getBoardState().getVulnerablePoints(minPlayer.getPlayerIndex());
+		return maxPlayer.getCurrentScore() - securedScore;
+	}
+	
+	public String getName(){
+		return "SecuredScore";
+	}
+	
+	public static void main(String[] args) {
+		// TODO Auto-generated method stub
+
+	}
+
+}
@@ -12,7 +12,9 @@ import java.io.FileOutputStream;
 import java.io.PrintStream;
 import java.io.PrintWriter;
 import java.io.UnsupportedEncodingException;
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Random;
 
 public class TestRunner {
@@ -24,6 +26,42 @@ public class TestRunner {
 	private PrintWriter expandedNodesWriterP1;
 	private PrintWriter expandedNodesWriterP2;
 	private PrintWriter summaryWriter;
+	//only opened for players searching with MTD(f), null otherwise
+	private PrintWriter[] mtdfPassesWriters = new PrintWriter[2];
+	private PrintWriter[] playoutsWriters = new PrintWriter[2];
+	//each player's score for its previous move, the first guess of its next MTD(f) search
+	private int[] previousScores = new int[2];
+	private boolean[] bHasPreviousScore = new boolean[2];
+	private TranspositionTable transpositionTableP1;
+	private TranspositionTable transpositionTableP2;
+	private long[] tableProbes = new long[2];
+	private long[] tableHits = new long[2];
+	private long[] tableCutoffs = new long[2];
+	private long[] cutoffs = new long[2];
+	private long[] firstMoveCutoffs = new long[2];
+	//when positive, alpha beta players pick moves by iterative deepening within this much time per game
+	private long gameTimeBudgetMillis = 0;
+	private long[] remainingTimeMillis = new long[2];
+	//when above one, fixed depth alpha beta players search with this many threads
+	private int numSearchThreads = 1;
+	//with several threads, use lazy SMP rather than splitting the root moves
+	private boolean bUseLazySMP = false;
+	private long[] lazySMPNodes = new long[2];
+	private long[] lazySMPMillis = new long[2];
+	private ParallelRootSearch parallelSearchP1;
+	private ParallelRootSearch parallelSearchP2;
+	//how each player's searches score the states where they stop
+	private Heuristic[] heuristics = {new ScoreDifferenceHeuristic(), new ScoreDifferenceHeuristic()};
+	//whether each player's fixed depth and time budget searches end in a quiescence search
+	private boolean[] bUseQuiescence = new boolean[2];
+	//whether each player's fixed depth and time budget searches prune forward
+	private boolean[] bUseForwardPruning = new boolean[2];
+	//when positive, each player solves the rest of the game exactly once this few grid spaces are empty
+	private int endgameThreshold = 0;
+	private EndgameSolver[] endgameSolvers = new EndgameSolver[2];
+	//playouts of each Monte Carlo tree search move, unless the players have a time budget
+	private long monteCarloPlayouts = 20000;
+	private MonteCarloTreeSearch[] monteCarloSearches = new MonteCarloTreeSearch[2];
 	
 
 
@@ -46,15 +84,16 @@ public class TestRunner {
 	}
 	
 	/**
-	 * 
+	 * Searches with the moving player's engine. The time budget option deepens 
+	 * any engine but minimax, while the root splitting and lazy SMP options are 
+	 * plain alpha beta searches, used by every engine but minimax.
 	 * @param state
 	 * @param player1Move
-	 * @param useAlphaBeta
 	 * @param mmDepth
 	 * @param abDepth
 	 * @return
 	 */
-	private GameStateNode getPostSearchedMoveState(GameStateNode state, boolean player1Move, boolean useAlphaBeta,int mmDepth, int abDepth){
+	private GameStateNode getPostSearchedMoveState(GameStateNode state, boolean player1Move, int mmDepth, int abDepth){
 		Player maximizingPlayer;
 		if(player1Move){
 			maximizingPlayer = state.getPlayer1();
@@ -67,22 +106,56 @@ public class TestRunner {
 			state.getPlayer2().setMaximizingPlayer(true);
 		}
 		
-		ArrayList<GameStateNode> children = state.getNodeChildren(maximizingPlayer);
-		GameStateNode bestChoice = null;
-		int bestValSoFar = Integer.MIN_VALUE;
-		int tempVal;
+		//each player keeps its own transposition table for the whole game, a generation per move
+		int playerIndex = player1Move ? 0 : 1;
+		TranspositionTable transpositionTable = player1Move ? this.transpositionTableP1 : this.transpositionTableP2;
+		transpositionTable.newSearch();
 		
-		int moveExpandedNodes = 0;
-		for( GameStateNode child : children ){
-			AdversarialSearch mmSearch = new AdversarialSearch(child, mmDepth, abDepth, useAlphaBeta);
-			tempVal = mmSearch.conductSearch();
-			moveExpandedNodes += mmSearch.getNumExpandedNodes();
-			if(tempVal > bestValSoFar){
-				bestChoice = child;
-				bestValSoFar = tempVal;
-			}
+		SearchEngine engine = maximizingPlayer.getEngine();
+		if(engine == SearchEngine.MCTS){
+			return getMonteCarloMoveState(state, player1Move);
+		}
+		boolean useAlphaBeta = engine.usesAlphaBeta();
+		if(useAlphaBeta && this.gameTimeBudgetMillis > 0){
+			return getIterativeDeepeningMoveState(state, player1Move);
+		}
+		
+		if(useAlphaBeta && this.numSearchThreads > 1 && !this.bUseLazySMP){
+			return getParallelMoveState(state, player1Move, abDepth);
 		}
 		
+		//search every root move to the configured depth below it, as a min node for the opponent
+		AdversarialSearch mmSearch = new AdversarialSearch(state, mmDepth, abDepth, engine, transpositionTable, this.heuristics[playerIndex]);
+		int searchDepth = (useAlphaBeta ? abDepth : mmDepth) + 1;
+		if(useAlphaBeta && this.numSearchThreads > 1){
+			mmSearch.setLazySMPThreads(this.numSearchThreads);
+		}
+		if(this.bHasPreviousScore[playerIndex]){
+			mmSearch.setFirstGuess(this.previousScores[playerIndex]);
+		}
+		mmSearch.setQuiescenceSearch(this.bUseQuiescence[playerIndex]);
+		mmSearch.setForwardPruning(this.bUseForwardPruning[playerIndex]);
+		mmSearch.setEndgameSolver(this.endgameSolvers[playerIndex]);
+		SearchResult result = mmSearch.bestMove(state, new SearchLimits(searchDepth));
+		this.previousScores[playerIndex] = result.getScore();
+		this.bHasPreviousScore[playerIndex] = true;
+		if(this.mtdfPassesWriters[playerIndex] != null){
+			this.mtdfPassesWriters[playerIndex].println(mmSearch.getNumMTDFPasses());
+		}
+		if(mmSearch.getLazySMPSearch() != null){
+			LazySMPSearch smpSearch = mmSearch.getLazySMPSearch();
+			this.lazySMPNodes[playerIndex] += result.getNumExpandedNodes();
+			this.lazySMPMillis[playerIndex] += smpSearch.getSearchDurationMillis() * smpSearch.getNumThreads();
+			smpSearch.shutdown();
+		}
+		long moveExpandedNodes = result.getNumExpandedNodes();
+		this.tableProbes[playerIndex] += mmSearch.getNumTableProbes();
+		this.tableHits[playerIndex] += mmSearch.getNumTableHits();
+		this.tableCutoffs[playerIndex] += mmSearch.getNumTableCutoffs();
+		this.cutoffs[playerIndex] += mmSearch.getNumCutoffs();
+		this.firstMoveCutoffs[playerIndex] += mmSearch.getNumFirstMoveCutoffs();
+		GameStateNode bestChoice = state.getChildStateAfterMove(maximizingPlayer, result.getBestMove());
+		
 		if(player1Move){
 			this.expandedNodesWriterP1.println(moveExpandedNodes);
 		}
@@ -92,25 +165,197 @@ public class TestRunner {
 		return bestChoice;
 	}
 	
+	/**
+	 * Chooses a move with an iterative deepening search, giving the move an even
+	 * share of the time the player has left for the rest of the game.
+	 * @param state - state with the maximizing player already set to the player to move
+	 * @param player1Move
+	 * @return the state after the chosen move
+	 */
+	private GameStateNode getIterativeDeepeningMoveState(GameStateNode state, boolean player1Move){
+		int playerIndex = player1Move ? 0 : 1;
+		TranspositionTable transpositionTable = player1Move ? this.transpositionTableP1 : this.transpositionTableP2;
+		long moveTimeBudget = IterativeDeepeningSearch.allocateMoveTime(this.remainingTimeMillis[playerIndex], state.getNumEmptyGridSpaces());
+		
+		long moveStartTime = System.currentTimeMillis();
+		IterativeDeepeningSearch idSearch = new IterativeDeepeningSearch(state, transpositionTable, moveTimeBudget, Long.MAX_VALUE, this.heuristics[playerIndex], state.getMaximizingPlayer().getEngine());
+		idSearch.setQuiescenceSearch(this.bUseQuiescence[playerIndex]);
+		idSearch.setForwardPruning(this.bUseForwardPruning[playerIndex]);
+		idSearch.setEndgameSolver(this.endgameSolvers[playerIndex]);
+		Move bestMove = idSearch.conductSearch();
+		this.remainingTimeMillis[playerIndex] -= System.currentTimeMillis() - moveStartTime;
+		if(this.mtdfPassesWriters[playerIndex] != null){
+			this.mtdfPassesWriters[playerIndex].println(idSearch.getNumMTDFPasses());
+		}
+		
+		if(player1Move){
+			this.expandedNodesWriterP1.println(idSearch.getNumExpandedNodes());
+		}
+		else{
+			this.expandedNodesWriterP2.println(idSearch.getNumExpandedNodes());
+		}
+		return state.getChildStateAfterMove(state.getMaximizingPlayer(), bestMove);
+	}
+	
+	/**
+	 * Chooses a move with a Monte Carlo tree search, within the playout budget, or 
+	 * an even share of the time the player has left if there is a game time budget.
+	 * @param state - state with the maximizing player already set to the player to move
+	 * @param player1Move
+	 * @return the state after the chosen move
+	 */
+	private GameStateNode getMonteCarloMoveState(GameStateNode state, boolean player1Move){
+		int playerIndex = player1Move ? 0 : 1;
+		long playoutBudget = this.monteCarloPlayouts;
+		long deadline = Long.MAX_VALUE;
+		long moveStartTime = System.currentTimeMillis();
+		if(this.gameTimeBudgetMillis > 0){
+			playoutBudget = Long.MAX_VALUE;
+			deadline = moveStartTime + IterativeDeepeningSearch.allocateMoveTime(this.remainingTimeMillis[playerIndex], state.getNumEmptyGridSpaces());
+		}
+		SearchResult result = this.monteCarloSearches[playerIndex].bestMove(state, playoutBudget, deadline);
+		this.remainingTimeMillis[playerIndex] -= System.currentTimeMillis() - moveStartTime;
+		
+		if(this.playoutsWriters[playerIndex] != null){
+			this.playoutsWriters[playerIndex].println(this.monteCarloSearches[playerIndex].getNumPlayouts());
+		}
+		if(player1Move){
+			this.expandedNodesWriterP1.println(result.getNumExpandedNodes());
+		}
+		else{
+			this.expandedNodesWriterP2.println(result.getNumExpandedNodes());
+		}
+		return state.getChildStateAfterMove(state.getMaximizingPlayer(), result.getBestMove());
+	}
+	
+	/**
+	 * Chooses a move with the root moves split between the player's search threads.
+	 * @param state - state with the maximizing player already set to the player to move
+	 * @param player1Move
+	 * @param abDepth
+	 * @return the state after the chosen move
+	 */
+	private GameStateNode getParallelMoveState(GameStateNode state, boolean player1Move, int abDepth){
+		ParallelRootSearch parallelSearch = player1Move ? this.parallelSearchP1 : this.parallelSearchP2;
+		SearchResult result = parallelSearch.bestMove(state, new SearchLimits(abDepth + 1));
+		
+		if(player1Move){
+			this.expandedNodesWriterP1.println(result.getNumExpandedNodes());
+		}
+		else{
+			this.expandedNodesWriterP2.println(result.getNumExpandedNodes());
+		}
+		return state.getChildStateAfterMove(state.getMaximizingPlayer(), result.getBestMove());
+	}
+	
+	/**
+	 * Splits the root moves of fixed depth alpha beta searches between threads.
+	 * One (the default) keeps every search on the calling thread.
+	 * @param numSearchThreads
+	 */
+	public void setNumSearchThreads(int numSearchThreads){
+		this.numSearchThreads = numSearchThreads;
+	}
+	
+	/**
+	 * With several search threads, selects lazy SMP (true) or root splitting (false, the default)
+	 * @param bUseLazySMP
+	 */
+	public void setUseLazySMP(boolean bUseLazySMP){
+		this.bUseLazySMP = bUseLazySMP;
+	}
+	
+	/**
+	 * Sets the heuristic each player's searches use, the score difference by default
+	 * @param heuristicP1
+	 * @param heuristicP2
+	 */
+	public void setHeuristics(Heuristic heuristicP1, Heuristic heuristicP2){
+		this.heuristics[0] = heuristicP1;
+		this.heuristics[1] = heuristicP2;
+	}
+	
+	/**
+	 * Sets whether each player's alpha beta searches continue through the blitzes 
+	 * at their depth limit (see AdversarialSearch.quiescence), off by default. The 
+	 * root splitting and lazy SMP searches never do.
+	 * @param bUseQuiescenceP1
+	 * @param bUseQuiescenceP2
+	 */
+	public void setQuiescence(boolean bUseQuiescenceP1, boolean bUseQuiescenceP2){
+		this.bUseQuiescence[0] = bUseQuiescenceP1;
+		this.bUseQuiescence[1] = bUseQuiescenceP2;
+	}
+	
+	/**
+	 * Sets whether each player's alpha beta searches prune forward (see 
+	 * AdversarialSearch.setForwardPruning), off by default. The root splitting 
+	 * and lazy SMP searches never do.
+	 * @param bUseForwardPruningP1
+	 * @param bUseForwardPruningP2
+	 */
+	public void setForwardPruning(boolean bUseForwardPruningP1, boolean bUseForwardPruningP2){
+		this.bUseForwardPruning[0] = bUseForwardPruningP1;
+		this.bUseForwardPruning[1] = bUseForwardPruningP2;
+	}
+	
+	/**
+	 * Has both players solve the rest of the game exactly (see EndgameSolver) once 
+	 * this few grid spaces are empty, instead of searching to their depth. Zero (the 
+	 * default) never solves. The root splitting search never does.
+	 * @param endgameThreshold
+	 */
+	public void setEndgameThreshold(int endgameThreshold){
+		this.endgameThreshold = endgameThreshold;
+	}
+	
+	/**
+	 * Sets the playouts of each Monte Carlo tree search move, when there is no game time budget
+	 * @param monteCarloPlayouts
+	 */
+	public void setMonteCarloPlayouts(long monteCarloPlayouts){
+		this.monteCarloPlayouts = monteCarloPlayouts;
+	}
+	
+	/**
+	 * Gives alpha beta players a fixed amount of time for a whole game, instead of
+	 * a fixed search depth. Zero (the default) restores fixed depth searches.
+	 * @param gameTimeBudgetMillis
+	 */
+	public void setGameTimeBudget(long gameTimeBudgetMillis){
+		this.gameTimeBudgetMillis = gameTimeBudgetMillis;
+	}
+	
 	/**
 	 * 
 	 * @param state
-	 * @param p1UseAlphaBeta
-	 * @param p2UseAlphaBeta
+	 * @param p1Engine
+	 * @param p2Engine
 	 * @param mmDepth
 	 * @param abDepth
 	 * @param sleepDuration
 	 */
-	public void testMiniMaxAdversaryMoves(GameStateNode state, boolean p1UseAlphaBeta, boolean p2UseAlphaBeta, int mmDepth, int abDepth, int sleepDuration) {
-		this.folderName = "./src/main/resources/savedGameplay/" + this.puzzleName + "/";
-		if(p1UseAlphaBeta){this.folderName += "ABvs";}else{this.folderName += "MMvs";}
-		if(p2UseAlphaBeta){this.folderName += "AB/";}else{this.folderName += "MM/";}
+	public void testMiniMaxAdversaryMoves(GameStateNode state, SearchEngine p1Engine, SearchEngine p2Engine, int mmDepth, int abDepth, int sleepDuration) {
+		state.getPlayer1().setEngine(p1Engine);
+		state.getPlayer2().setEngine(p2Engine);
+		this.folderName = "./src/main/resources/savedGameplay/" + this.puzzleName + "/" + p1Engine.getAbbreviation() + "vs" + p2Engine.getAbbreviation() + "/";
+		new File(this.folderName).mkdirs();
 		try {
 			this.durationWriterP1 = new PrintWriter(this.folderName + "move_durations_p1.txt", "UTF-8");
 			this.durationWriterP2 = new PrintWriter(this.folderName + "move_durations_p2.txt", "UTF-8");
 			this.expandedNodesWriterP1 = new PrintWriter(this.folderName + "move_expanded_nodes_p1.txt", "UTF-8");
 			this.expandedNodesWriterP2 = new PrintWriter(this.folderName + "move_expanded_nodes_p2.txt", "UTF-8");
 			this.summaryWriter = new PrintWriter(this.folderName + "summary.txt", "UTF-8");
+			for(int playerIndex = 0; playerIndex < 2; playerIndex++){
+				this.mtdfPassesWriters[playerIndex] = null;
+				if(state.getPlayer(playerIndex).getEngine() == SearchEngine.MTDF){
+					this.mtdfPassesWriters[playerIndex] = new PrintWriter(this.folderName + "move_mtdf_passes_p" + (playerIndex+1) + ".txt", "UTF-8");
+				}
+				this.playoutsWriters[playerIndex] = null;
+				if(state.getPlayer(playerIndex).getEngine() == SearchEngine.MCTS){
+					this.playoutsWriters[playerIndex] = new PrintWriter(this.folderName + "move_playouts_p" + (playerIndex+1) + ".txt", "UTF-8");
+				}
+			}
 		} catch (FileNotFoundException e) {
 			// TODO Auto-generated catch block
 			e.printStackTrace();
@@ -118,6 +363,31 @@ public class TestRunner {
 			// TODO Auto-generated catch block
 			e.printStackTrace();
 		}
+		this.bHasPreviousScore = new boolean[2];
+		this.transpositionTableP1 = new TranspositionTable();
+		this.transpositionTableP2 = new TranspositionTable();
+		this.tableProbes = new long[2];
+		this.tableHits = new long[2];
+		this.tableCutoffs = new long[2];
+		this.cutoffs = new long[2];
+		this.firstMoveCutoffs = new long[2];
+		this.remainingTimeMillis[0] = this.gameTimeBudgetMillis;
+		this.remainingTimeMillis[1] = this.gameTimeBudgetMillis;
+		this.lazySMPNodes = new long[2];
+		this.lazySMPMillis = new long[2];
+		for(int playerIndex = 0; playerIndex < 2; playerIndex++){
+			//each player keeps its own solver table for the whole game, like its transposition table
+			this.endgameSolvers[playerIndex] = (this.endgameThreshold > 0) ? new EndgameSolver(this.endgameThreshold) : null;
+			//a Monte Carlo player grows its tree with every search thread
+			this.monteCarloSearches[playerIndex] = null;
+			if(state.getPlayer(playerIndex).getEngine() == SearchEngine.MCTS){
+				this.monteCarloSearches[playerIndex] = new MonteCarloTreeSearch(this.numSearchThreads);
+			}
+		}
+		if(this.numSearchThreads > 1){
+			this.parallelSearchP1 = new ParallelRootSearch(this.numSearchThreads, this.heuristics[0]);
+			this.parallelSearchP2 = new ParallelRootSearch(this.numSearchThreads, this.heuristics[1]);
+		}
 		long startTime = System.currentTimeMillis();
 		
 		
@@ -134,13 +404,13 @@ public class TestRunner {
 			//player1 moves on even count, player2 on odd
 			if( moveCount%2 == 0){
 				//System.out.println("Begin Move #" + (moveCount+1) + "\t\t [Player 1] :");
-				changingState = getPostSearchedMoveState(changingState, true, p1UseAlphaBeta, mmDepth, abDepth);
+				changingState = getPostSearchedMoveState(changingState, true, mmDepth, abDepth);
 				moveDuration = System.currentTimeMillis() - moveStartTime;
 				this.durationWriterP1.println(moveDuration);
 			}
 			else{
 				//System.out.println("Begin Move #" + (moveCount+1) + "\t\t [Player 2] :");
-				changingState = getPostSearchedMoveState(changingState, false, p2UseAlphaBeta, mmDepth, abDepth);
+				changingState = getPostSearchedMoveState(changingState, false, mmDepth, abDepth);
 				moveDuration = System.currentTimeMillis() - moveStartTime;
 				this.durationWriterP2.println(moveDuration);
 			}
@@ -152,7 +422,7 @@ public class TestRunner {
 			sleep(sleepDuration);
 			moveCount++;
 		}
-		System.out.println("\nA-B: [p1,p2] = [" + p1UseAlphaBeta + ", " + p2UseAlphaBeta + "],\tMM-Depth: " + mmDepth + "\tAB-Depth: " + abDepth );
+		System.out.println("\nEngines: [p1,p2] = [" + p1Engine + ", " + p2Engine + "],\tMM-Depth: " + mmDepth + "\tAB-Depth: " + abDepth );
 		this.printGameResults(changingState, startTime);
 		
 		this.durationWriterP1.close();
@@ -160,6 +430,23 @@ public class TestRunner {
 		this.expandedNodesWriterP1.close();
 		this.expandedNodesWriterP2.close();
 		this.summaryWriter.close();
+		for(int playerIndex = 0; playerIndex < 2; playerIndex++){
+			if(this.mtdfPassesWriters[playerIndex] != null){
+				this.mtdfPassesWriters[playerIndex].close();
+			}
+			if(this.playoutsWriters[playerIndex] != null){
+				this.playoutsWriters[playerIndex].close();
+			}
+		}
+		if(this.numSearchThreads > 1){
+			this.parallelSearchP1.shutdown();
+			this.parallelSearchP2.shutdown();
+		}
+		for(int playerIndex = 0; playerIndex < 2; playerIndex++){
+			if(this.monteCarloSearches[playerIndex] != null){
+				this.monteCarloSearches[playerIndex].shutdown();
+			}
+		}
 	}
 	
 	
@@ -171,6 +458,767 @@ public class TestRunner {
 		this.summaryWriter.println("Player ["+ state.getPlayer2().getPlayerID() + "],\tscore: " + state.getPlayer2().getCurrentScore() );
 		this.summaryWriter.println("Winning Player: Player [" + state.getLeadingPlayer().getPlayerID() + "]" );
 		this.summaryWriter.println("Total game duration: " + (System.currentTimeMillis() - startTime) );
+		for(int playerIndex = 0; playerIndex < 2; playerIndex++){
+			double hitRate = 0;
+			double cutoffRate = 0;
+			if(this.tableProbes[playerIndex] > 0){
+				hitRate = (double) this.tableHits[playerIndex] / this.tableProbes[playerIndex];
+				cutoffRate = (double) this.tableCutoffs[playerIndex] / this.tableProbes[playerIndex];
+			}
+			this.summaryWriter.println("Transposition table [player" + (playerIndex+1) + "],\thit rate: " + hitRate + ",\tcutoff rate: " + cutoffRate);
+			double orderingQuality = 0;
+			if(this.cutoffs[playerIndex] > 0){
+				orderingQuality = (double) this.firstMoveCutoffs[playerIndex] / this.cutoffs[playerIndex];
+			}
+			this.summaryWriter.println("Move ordering [player" + (playerIndex+1) + "],\tfirst move cutoff rate: " + orderingQuality);
+			if(this.lazySMPMillis[playerIndex] > 0){
+				double nodesPerSecondPerThread = this.lazySMPNodes[playerIndex] * 1000.0 / this.lazySMPMillis[playerIndex];
+				this.summaryWriter.println("Lazy SMP [player" + (playerIndex+1) + "],\tthreads: " + this.numSearchThreads + ",\tnodes per second per thread: " + nodesPerSecondPerThread);
+			}
+		}
+	}
+	
+	/**
+	 * Plays a fixed depth alpha beta game on every board in the folder and compares
+	 * the number of moves generated in each position with the number generated when
+	 * every space next to the mover also got a blitz, whether it conquered anything or not.
+	 * @param boardFolderName
+	 * @param abDepth
+	 */
+	public void reportBranchingFactors(String boardFolderName, int abDepth){
+		PrintWriter branchingWriter = this.openReport("branching_factors.txt");
+		for(File boardFile : this.listBoardFiles(boardFolderName)){
+			GameStateNode state = this.newGameState(boardFile);
+			
+			long numMoves = 0;
+			long numUndeduplicatedMoves = 0;
+			int numPositions = 0;
+			boolean player1Move = true;
+			while(!state.isLeafNode()){
+				Player mover = player1Move ? state.getPlayer1() : state.getPlayer2();
+				mover.setMaximizingPlayer(true);
+				state.getOpponent(mover).setMaximizingPlayer(false);
+				numMoves += state.getAllowableMoves(mover).size();
+				BitBoard bitBoard = state.getBoardState().getBitBoard();
+				int playerIndex = state.getPlayerIndex(mover);
+				for(int gridSpaceIndex = 0; gridSpaceIndex < bitBoard.getNumGridSpaces(); gridSpaceIndex++){
+					if(bitBoard.getOccupant(gridSpaceIndex) == -1){
+						numUndeduplicatedMoves++;
+						if(bitBoard.hasNeighborOccupiedBy(gridSpaceIndex, playerIndex)){
+							numUndeduplicatedMoves++;
+						}
+					}
+				}
+				numPositions++;
+				
+				SearchResult result = new AdversarialSearch(state, 0, abDepth, true).bestMove(state, new SearchLimits(abDepth + 1));
+				state.makeMove(result.getBestMove());
+				player1Move = !player1Move;
+			}
+			
+			double branchingFactor = (double) numMoves / numPositions;
+			double undeduplicatedBranchingFactor = (double) numUndeduplicatedMoves / numPositions;
+			String line = "Board: " + boardFile.getName() + ",\tbranching factor: " + undeduplicatedBranchingFactor + " -> " + branchingFactor 
+					+ ",\treduction: " + (1 - branchingFactor / undeduplicatedBranchingFactor);
+			System.out.println(line);
+			if(branchingWriter != null){
+				branchingWriter.println(line);
+			}
+		}
+		if(branchingWriter != null){
+			branchingWriter.close();
+		}
+	}
+	
+	/**
+	 * Measures the bytes allocated by alpha beta searches of a state, with the JVM's 
+	 * per thread allocation counter. The first search grows the per ply move buffers, 
+	 * the repeated searches show the steady state, which should allocate nothing.
+	 * @param state - state to search, with player1 to move
+	 * @param abDepth
+	 */
+	public void reportSearchAllocation(GameStateNode state, int abDepth){
+		state.getPlayer1().setMaximizingPlayer(true);
+		state.getPlayer2().setMaximizingPlayer(false);
+		com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long threadID = Thread.currentThread().getId();
+		TranspositionTable transpositionTable = new TranspositionTable();
+		AdversarialSearch abSearch = new AdversarialSearch(state, 0, abDepth, true, transpositionTable);
+		for(int searchIndex = 0; searchIndex < 3; searchIndex++){
+			//start each search from an empty table, so it searches the whole tree again
+			transpositionTable.clear();
+			long allocatedBytes = threadBean.getThreadAllocatedBytes(threadID);
+			abSearch.conductSearch();
+			allocatedBytes = threadBean.getThreadAllocatedBytes(threadID) - allocatedBytes;
+			System.out.println("Search #" + (searchIndex+1) + ",\tAB-Depth: " + abDepth + ",\tnodes: " + abSearch.getNumExpandedNodes() + ",\tallocated bytes: " + allocatedBytes);
+		}
+	}
+	
+	/**
+	 * Plays a fixed depth alpha beta game on every board in the folder, and searches every 
+	 * position of it with each of the alpha beta engines (ie: principal variation search) 
+	 * from an empty transposition table. Records the nodes each engine expanded, relative 
+	 * to plain alpha beta, and checks that every engine scored each position the same. 
+	 * MTD(f) is seeded with the score of the moving player's previous position, and 
+	 * its passes are counted too.
+	 * @param boardFolderName
+	 * @param abDepth
+	 */
+	public void compareEngines(String boardFolderName, int abDepth){
+		PrintWriter engineWriter = this.openReport("engine_node_counts.txt");
+		//in declaration order, so plain alpha beta comes first and is the reference
+		ArrayList<SearchEngine> engines = new ArrayList<SearchEngine>();
+		for(SearchEngine engine : SearchEngine.values()){
+			if(engine.usesAlphaBeta()){
+				engines.add(engine);
+			}
+		}
+		long[] totalNodes = new long[engines.size()];
+		TranspositionTable transpositionTable = new TranspositionTable();
+		for(File boardFile : this.listBoardFiles(boardFolderName)){
+			GameStateNode state = this.newGameState(boardFile);
+			
+			long[] boardNodes = new long[engines.size()];
+			int[] scoreMismatches = new int[engines.size()];
+			int numMTDFPasses = 0;
+			int numPositions = 0;
+			int[] previousScores = new int[2];
+			boolean[] bHasPreviousScore = new boolean[2];
+			int playerIndex = 0;
+			while(!state.isLeafNode()){
+				state.getPlayer(playerIndex).setMaximizingPlayer(true);
+				state.getPlayer(1 - playerIndex).setMaximizingPlayer(false);
+				SearchResult referenceResult = null;
+				for(int engineIndex = 0; engineIndex < engines.size(); engineIndex++){
+					transpositionTable.clear();
+					AdversarialSearch search = new AdversarialSearch(state, 0, abDepth, engines.get(engineIndex), transpositionTable, new ScoreDifferenceHeuristic());
+					if(bHasPreviousScore[playerIndex]){
+						search.setFirstGuess(previousScores[playerIndex]);
+					}
+					SearchResult result = search.bestMove(state, new SearchLimits(abDepth + 1));
+					boardNodes[engineIndex] += result.getNumExpandedNodes();
+					numMTDFPasses += search.getNumMTDFPasses();
+					if(referenceResult == null){
+						referenceResult = result;
+					}
+					else if(result.getScore() != referenceResult.getScore()){
+						scoreMismatches[engineIndex]++;
+					}
+				}
+				previousScores[playerIndex] = referenceResult.getScore();
+				bHasPreviousScore[playerIndex] = true;
+				numPositions++;
+				state.makeMove(referenceResult.getBestMove());
+				playerIndex = 1 - playerIndex;
+			}
+			
+			for(int engineIndex = 0; engineIndex < engines.size(); engineIndex++){
+				totalNodes[engineIndex] += boardNodes[engineIndex];
+				String line = "Board: " + boardFile.getName() + ",\tAB-Depth: " + abDepth + ",\tengine: " + engines.get(engineIndex) + ",\texpanded nodes: " + boardNodes[engineIndex] 
+						+ ",\trelative to alpha beta: " + ((double) boardNodes[engineIndex] / boardNodes[0]) + ",\tscore mismatches: " + scoreMismatches[engineIndex];
+				if(engines.get(engineIndex) == SearchEngine.MTDF){
+					line += ",\tmean passes: " + ((double) numMTDFPasses / numPositions);
+				}
+				System.out.println(line);
+				if(engineWriter != null){
+					engineWriter.println(line);
+				}
+			}
+		}
+		for(int engineIndex = 0; engineIndex < engines.size(); engineIndex++){
+			String line = "All boards,\tAB-Depth: " + abDepth + ",\tengine: " + engines.get(engineIndex) + ",\texpanded nodes: " + totalNodes[engineIndex] 
+					+ ",\trelative to alpha beta: " + ((double) totalNodes[engineIndex] / totalNodes[0]);
+			System.out.println(line);
+			if(engineWriter != null){
+				engineWriter.println(line);
+			}
+		}
+		if(engineWriter != null){
+			engineWriter.close();
+		}
+	}
+	
+	/**
+	 * Plays every heuristic against the default score difference on every board in the 
+	 * folder, once from each side, with fixed depth alpha beta. The vulnerability based 
+	 * heuristics cost more per node, so alongside each heuristic's results against the 
+	 * default the CPU time of its own searches is recorded, and its strength is reported 
+	 * as the points it wins from the default per CPU second. The default playing itself 
+	 * is included as the reference, its margin is always zero.
+	 * @param boardFolderName
+	 * @param abDepth
+	 */
+	public void compareHeuristics(String boardFolderName, int abDepth){
+		PrintWriter heuristicWriter = this.openReport("heuristic_comparison.txt");
+		Heuristic baseline = new ScoreDifferenceHeuristic();
+		Heuristic[] challengers = {new ScoreDifferenceHeuristic(), new SecuredPortionHeuristic(), new SecuredScoreHeuristic(), new WeightedVulnerabilityHeuristic(), new BlitzThreatHeuristic()};
+		File[] boardFiles = this.listBoardFiles(boardFolderName);
+		
+		for(Heuristic challenger : challengers){
+			long margin = 0;
+			int numGames = 0;
+			int numWins = 0;
+			int numLosses = 0;
+			long[] cpuNanos = new long[2];
+			long[] expandedNodes = new long[2];
+			for(File boardFile : boardFiles){
+				for(int challengerIndex = 0; challengerIndex < 2; challengerIndex++){
+					GameStateNode state = this.newGameState(boardFile);
+					Heuristic[] gameHeuristics = new Heuristic[2];
+					gameHeuristics[challengerIndex] = challenger;
+					gameHeuristics[1 - challengerIndex] = baseline;
+					
+					//tally the challenger's figures in [0] and the default's in [1]
+					long[] gameCpuNanos = new long[2];
+					long[] gameExpandedNodes = new long[2];
+					this.playFixedDepthGame(state, gameHeuristics, new int[]{abDepth, abDepth}, new boolean[2], new boolean[2], gameCpuNanos, gameExpandedNodes);
+					cpuNanos[0] += gameCpuNanos[challengerIndex];
+					cpuNanos[1] += gameCpuNanos[1 - challengerIndex];
+					expandedNodes[0] += gameExpandedNodes[challengerIndex];
+					expandedNodes[1] += gameExpandedNodes[1 - challengerIndex];
+					
+					int gameMargin = state.getPlayer(challengerIndex).getCurrentScore() - state.getPlayer(1 - challengerIndex).getCurrentScore();
+					margin += gameMargin;
+					numGames++;
+					if(gameMargin > 0){
+						numWins++;
+					}
+					else if(gameMargin < 0){
+						numLosses++;
+					}
+				}
+			}
+			
+			double cpuSeconds = Math.max(1, cpuNanos[0]) / 1e9;
+			String line = "Heuristic: " + challenger.getName() + ",\tAB-Depth: " + abDepth + ",\tgames: " + numGames + ",\twins: " + numWins + ",\tlosses: " + numLosses 
+					+ ",\tmean margin: " + ((double) margin / numGames) + ",\tCPU seconds: " + cpuSeconds + " (default: " + (cpuNanos[1] / 1e9) + ")"
+					+ ",\tnodes per CPU second: " + (expandedNodes[0] / cpuSeconds) + ",\tmargin per CPU second: " + (margin / cpuSeconds);
+			System.out.println(line);
+			if(heuristicWriter != null){
+				heuristicWriter.println(line);
+			}
+		}
+		if(heuristicWriter != null){
+			heuristicWriter.close();
+		}
+	}
+	
+	/**
+	 * Plays the quiescence search at the nominal depth below plain alpha beta, and at the 
+	 * same depth, against plain alpha beta on every board in the folder, once as each player. 
+	 * Records the results and the mean CPU time of a move to 
+	 * savedGameplay/quiescence_comparison.txt.
+	 * @param boardFolderName
+	 * @param abDepth - depth of the plain alpha beta player
+	 */
+	public void compareQuiescence(String boardFolderName, int abDepth){
+		PrintWriter quiescenceWriter = this.openReport("quiescence_comparison.txt");
+		for(int quiescenceDepth = Math.max(1, abDepth - 1); quiescenceDepth <= abDepth; quiescenceDepth++){
+			String line = "Quiescence " + this.playSearchOptionGames(boardFolderName, quiescenceDepth, true, false, abDepth);
+			System.out.println(line);
+			if(quiescenceWriter != null){
+				quiescenceWriter.println(line);
+			}
+		}
+		if(quiescenceWriter != null){
+			quiescenceWriter.close();
+		}
+	}
+	
+	/**
+	 * Plays forward pruning at the same nominal depth as plain alpha beta, and a ply deeper, 
+	 * against plain alpha beta on every board in the folder, once as each player. Records 
+	 * the results and the mean CPU time of a move to savedGameplay/forward_pruning_comparison.txt.
+	 * @param boardFolderName
+	 * @param abDepth - depth of the plain alpha beta player
+	 */
+	public void compareForwardPruning(String boardFolderName, int abDepth){
+		PrintWriter pruningWriter = this.openReport("forward_pruning_comparison.txt");
+		for(int pruningDepth = abDepth; pruningDepth <= abDepth + 1; pruningDepth++){
+			String line = "Forward pruning " + this.playSearchOptionGames(boardFolderName, pruningDepth, false, true, abDepth);
+			System.out.println(line);
+			if(pruningWriter != null){
+				pruningWriter.println(line);
+			}
+		}
+		if(pruningWriter != null){
+			pruningWriter.close();
+		}
+	}
+	
+	/**
+	 * Plays a fixed depth alpha beta game on every board in the folder, and solves every 
+	 * position of it with at most maxEmpty empty grid spaces from an empty solver table. 
+	 * Records the time and nodes of each solve next to those of the alpha beta search it 
+	 * would replace, to savedGameplay/endgame_solve_times.txt, to pick the threshold at 
+	 * which the solver takes over.
+	 * @param boardFolderName
+	 * @param maxEmpty - the largest number of empty grid spaces to solve
+	 * @param abDepth
+	 */
+	public void reportEndgameSolveTimes(String boardFolderName, int maxEmpty, int abDepth){
+		PrintWriter solveWriter = this.openReport("endgame_solve_times.txt");
+		EndgameSolver solver = new EndgameSolver(maxEmpty);
+		for(File boardFile : this.listBoardFiles(boardFolderName)){
+			GameStateNode state = this.newGameState(boardFile);
+			TranspositionTable transpositionTable = new TranspositionTable();
+			int playerIndex = 0;
+			while(!state.isLeafNode()){
+				state.getPlayer(playerIndex).setMaximizingPlayer(true);
+				state.getPlayer(1 - playerIndex).setMaximizingPlayer(false);
+				
+				transpositionTable.newSearch();
+				long startTime = System.nanoTime();
+				AdversarialSearch abSearch = new AdversarialSearch(state, 0, abDepth, true, transpositionTable);
+				SearchResult result = abSearch.bestMove(state, new SearchLimits(abDepth + 1));
+				long abNanos = System.nanoTime() - startTime;
+				
+				if(solver.canSolve(state)){
+					solver.clear();
+					startTime = System.nanoTime();
+					SearchResult solved = solver.bestMove(state, new SearchLimits(state.getNumEmptyGridSpaces()));
+					long solveNanos = System.nanoTime() - startTime;
+					String line = "Board: " + boardFile.getName() + ",\tempty: " + state.getNumEmptyGridSpaces() + ",\tsolve ms: " + (solveNanos / 1e6) + ",\tsolve nodes: " + solved.getNumExpandedNodes() 
+							+ ",\tmargin: " + solved.getScore() + ",\tAB-Depth " + abDepth + " ms: " + (abNanos / 1e6) + ",\tAB nodes: " + result.getNumExpandedNodes();
+					System.out.println(line);
+					if(solveWriter != null){
+						solveWriter.println(line);
+					}
+				}
+				
+				state.makeMove(state.getMove(result.getBestMove().getMoveCode(), playerIndex));
+				playerIndex = 1 - playerIndex;
+			}
+		}
+		if(solveWriter != null){
+			solveWriter.close();
+		}
+	}
+	
+	/**
+	 * Plays a fixed depth alpha beta game on every board in the folder, and decides the 
+	 * outcome of every position of it with at most maxEmpty empty grid spaces with a proof 
+	 * number search, from an empty proof table. Positions with at most mmMaxEmpty empty 
+	 * grid spaces are also searched by a full width minimax to the end of the game, to 
+	 * check the outcome and compare the nodes. Records the results to 
+	 * savedGameplay/proof_number_outcomes.txt.
+	 * @param boardFolderName
+	 * @param maxEmpty - the largest number of empty grid spaces to decide
+	 * @param mmMaxEmpty - the largest number of empty grid spaces to search with minimax
+	 * @param abDepth
+	 */
+	public void reportProofNumberOutcomes(String boardFolderName, int maxEmpty, int mmMaxEmpty, int abDepth){
+		PrintWriter outcomeWriter = this.openReport("proof_number_outcomes.txt");
+		ProofNumberSearch proofNumberSearch = new ProofNumberSearch();
+		for(File boardFile : this.listBoardFiles(boardFolderName)){
+			GameStateNode state = this.newGameState(boardFile);
+			TranspositionTable transpositionTable = new TranspositionTable();
+			int playerIndex = 0;
+			while(!state.isLeafNode()){
+				int numEmptyGridSpaces = state.getNumEmptyGridSpaces();
+				if(numEmptyGridSpaces <= maxEmpty){
+					state.getPlayer(playerIndex).setMaximizingPlayer(true);
+					state.getPlayer(1 - playerIndex).setMaximizingPlayer(false);
+					proofNumberSearch.clear();
+					long startTime = System.nanoTime();
+					int outcome = proofNumberSearch.solveOutcome(state, new SearchLimits(numEmptyGridSpaces));
+					long proofNanos = System.nanoTime() - startTime;
+					String line = "Board: " + boardFile.getName() + ",\tempty: " + numEmptyGridSpaces + ",\toutcome: " + ProofNumberSearch.getOutcomeName(outcome) 
+							+ ",\tproof ms: " + (proofNanos / 1e6) + ",\tproof nodes: " + proofNumberSearch.getNumExpandedNodes() + ",\ttable entries: " + proofNumberSearch.getNumStoredEntries();
+					
+					if(numEmptyGridSpaces <= mmMaxEmpty){
+						//full width minimax from player1's point of view
+						state.getPlayer1().setMaximizingPlayer(true);
+						state.getPlayer2().setMaximizingPlayer(false);
+						AdversarialSearch mmSearch = new AdversarialSearch(state, numEmptyGridSpaces, numEmptyGridSpaces, false);
+						startTime = System.nanoTime();
+						int margin = mmSearch.minimax(state, numEmptyGridSpaces, playerIndex == 0);
+						long mmNanos = System.nanoTime() - startTime;
+						line += ",\tMM margin: " + margin + ",\tMM ms: " + (mmNanos / 1e6) + ",\tMM nodes: " + mmSearch.getNumExpandedNodes();
+					}
+					System.out.println(line);
+					if(outcomeWriter != null){
+						outcomeWriter.println(line);
+					}
+				}
+				
+				state.getPlayer(playerIndex).setMaximizingPlayer(true);
+				state.getPlayer(1 - playerIndex).setMaximizingPlayer(false);
+				transpositionTable.newSearch();
+				AdversarialSearch abSearch = new AdversarialSearch(state, 0, abDepth, true, transpositionTable);
+				SearchResult result = abSearch.bestMove(state, new SearchLimits(abDepth + 1));
+				state.makeMove(state.getMove(result.getBestMove().getMoveCode(), playerIndex));
+				playerIndex = 1 - playerIndex;
+			}
+		}
+		if(outcomeWriter != null){
+			outcomeWriter.close();
+		}
+	}
+	
+	/**
+	 * Lists the symmetries found on every board in the folder, and searches the first 
+	 * moves of an alpha beta game on each board twice: with the board's symmetries, and 
+	 * on a copy of the board loaded without them. Records the nodes and time of each 
+	 * search to savedGameplay/symmetry_reduction.txt.
+	 * @param boardFolderName
+	 * @param numMoves - the number of moves from the start of the game to search
+	 * @param abDepth
+	 */
+	public void reportSymmetryReduction(String boardFolderName, int numMoves, int abDepth){
+		PrintWriter symmetryWriter = this.openReport("symmetry_reduction.txt");
+		for(File boardFile : this.listBoardFiles(boardFolderName)){
+			GameBoardFileReader fr = new GameBoardFileReader(boardFile);
+			BoardTopology topology = new BoardTopology(fr.getNumGridRows(), fr.getNumGridCols(), fr.getGridVals());
+			String symmetries = "";
+			for(int symmetry = 0; symmetry < topology.getNumSymmetries(); symmetry++){
+				symmetries += (symmetry > 0 ? ", " : "") + topology.getSymmetryName(symmetry);
+			}
+			String line = "Board: " + boardFile.getName() + ",\tsymmetries: " + topology.getNumSymmetries() + " [" + symmetries + "]";
+			System.out.println(line);
+			if(symmetryWriter != null){
+				symmetryWriter.println(line);
+			}
+			
+			//the same game on both boards, following the moves chosen with the symmetries
+			GameStateNode[] states = new GameStateNode[2];
+			states[0] = this.newGameState(new BoardState(topology));
+			BoardTopology plainTopology = new BoardTopology(fr.getNumGridRows(), fr.getNumGridCols(), fr.getGridVals(), false);
+			states[1] = this.newGameState(new BoardState(plainTopology));
+			int playerIndex = 0;
+			for(int moveCount = 0; moveCount < numMoves && !states[0].isLeafNode(); moveCount++){
+				long[] expandedNodes = new long[2];
+				long[] searchNanos = new long[2];
+				int[] scores = new int[2];
+				SearchResult result = null;
+				for(int stateIndex = 0; stateIndex < 2; stateIndex++){
+					GameStateNode state = states[stateIndex];
+					state.getPlayer(playerIndex).setMaximizingPlayer(true);
+					state.getPlayer(1 - playerIndex).setMaximizingPlayer(false);
+					long startTime = System.nanoTime();
+					AdversarialSearch abSearch = new AdversarialSearch(state, 0, abDepth, true, new TranspositionTable());
+					SearchResult stateResult = abSearch.bestMove(state, new SearchLimits(abDepth + 1));
+					searchNanos[stateIndex] = System.nanoTime() - startTime;
+					expandedNodes[stateIndex] = stateResult.getNumExpandedNodes();
+					scores[stateIndex] = stateResult.getScore();
+					if(stateIndex == 0){
+						result = stateResult;
+					}
+				}
+				line = "Move: " + (moveCount + 1) + ",\tAB-Depth: " + abDepth + ",\tnodes: " + expandedNodes[0] + " (without: " + expandedNodes[1] + ")" 
+						+ ",\tms: " + (searchNanos[0] / 1e6) + " (without: " + (searchNanos[1] / 1e6) + ")" + ",\tnode reduction: " + ((double) expandedNodes[1] / Math.max(1, expandedNodes[0])) 
+						+ ",\tscore: " + scores[0] + " (without: " + scores[1] + ")";
+				System.out.println(line);
+				if(symmetryWriter != null){
+					symmetryWriter.println(line);
+				}
+				int moveCode = result.getBestMove().getMoveCode();
+				for(int stateIndex = 0; stateIndex < 2; stateIndex++){
+					states[stateIndex].makeMove(states[stateIndex].getMove(moveCode, playerIndex));
+				}
+				playerIndex = 1 - playerIndex;
+			}
+		}
+		if(symmetryWriter != null){
+			symmetryWriter.close();
+		}
+	}
+	
+	/**
+	 * Plays a fixed depth alpha beta game on every board in the folder, with each player 
+	 * keeping two transposition tables for the whole game: one which starts a new generation 
+	 * every move, and one which never does, so that its entries are only ever replaced by 
+	 * deeper searches. Every position is searched with both, and the game follows the moves 
+	 * chosen with generations. Records each table's hit rate and the nodes expanded, for 
+	 * every depth and table size, to savedGameplay/table_generations.txt.
+	 * @param boardFolderName
+	 * @param abDepths
+	 * @param tableSizesLog2 - each table holds 2^tableSizeLog2 entries
+	 */
+	public void reportTableGenerations(String boardFolderName, int[] abDepths, int[] tableSizesLog2){
+		PrintWriter generationWriter = this.openReport("table_generations.txt");
+		for(int tableSizeLog2 : tableSizesLog2){
+			for(int abDepth : abDepths){
+				for(File boardFile : this.listBoardFiles(boardFolderName)){
+					GameStateNode state = this.newGameState(boardFile);
+					//[player][0] starts a new generation every move, [player][1] never does
+					TranspositionTable[][] transpositionTables = new TranspositionTable[2][2];
+					for(int playerIndex = 0; playerIndex < 2; playerIndex++){
+						for(int tableIndex = 0; tableIndex < 2; tableIndex++){
+							transpositionTables[playerIndex][tableIndex] = new TranspositionTable(tableSizeLog2);
+						}
+					}
+					long[] tableProbes = new long[2];
+					long[] tableHits = new long[2];
+					long[] expandedNodes = new long[2];
+					int playerIndex = 0;
+					while(!state.isLeafNode()){
+						state.getPlayer(playerIndex).setMaximizingPlayer(true);
+						state.getPlayer(1 - playerIndex).setMaximizingPlayer(false);
+						transpositionTables[playerIndex][0].newSearch();
+						SearchResult result = null;
+						for(int tableIndex = 0; tableIndex < 2; tableIndex++){
+							AdversarialSearch abSearch = new AdversarialSearch(state, 0, abDepth, true, transpositionTables[playerIndex][tableIndex]);
+							SearchResult tableResult = abSearch.bestMove(state, new SearchLimits(abDepth + 1));
+							tableProbes[tableIndex] += abSearch.getNumTableProbes();
+							tableHits[tableIndex] += abSearch.getNumTableHits();
+							expandedNodes[tableIndex] += tableResult.getNumExpandedNodes();
+							if(tableIndex == 0){
+								result = tableResult;
+							}
+						}
+						state.makeMove(state.getMove(result.getBestMove().getMoveCode(), playerIndex));
+						playerIndex = 1 - playerIndex;
+					}
+					
+					String line = "Board: " + boardFile.getName() + ",\tAB-Depth: " + abDepth + ",\ttable entries: 2^" + tableSizeLog2 
+							+ ",\thit rate: " + ((double) tableHits[0] / Math.max(1, tableProbes[0])) + " (without generations: " + ((double) tableHits[1] / Math.max(1, tableProbes[1])) + ")" 
+							+ ",\tnodes: " + expandedNodes[0] + " (without: " + expandedNodes[1] + ")" + ",\tnode reduction: " + ((double) expandedNodes[1] / Math.max(1, expandedNodes[0]));
+					System.out.println(line);
+					if(generationWriter != null){
+						generationWriter.println(line);
+					}
+				}
+			}
+		}
+		if(generationWriter != null){
+			generationWriter.close();
+		}
+	}
+	
+	/**
+	 * Plays a search option against plain alpha beta on every board in the folder, once as each player
+	 * @param boardFolderName
+	 * @param optionDepth - depth of the player using the option
+	 * @param bQuiescence - whether the option player uses a quiescence search
+	 * @param bForwardPruning - whether the option player uses forward pruning
+	 * @param abDepth - depth of the plain alpha beta player
+	 * @return a report of the games, from the option player's point of view
+	 */
+	private String playSearchOptionGames(String boardFolderName, int optionDepth, boolean bQuiescence, boolean bForwardPruning, int abDepth){
+		Heuristic[] gameHeuristics = {new ScoreDifferenceHeuristic(), new ScoreDifferenceHeuristic()};
+		long margin = 0;
+		int numGames = 0;
+		int numWins = 0;
+		int numLosses = 0;
+		int[] numMoves = new int[2];
+		long[] cpuNanos = new long[2];
+		long[] expandedNodes = new long[2];
+		for(File boardFile : this.listBoardFiles(boardFolderName)){
+			for(int optionIndex = 0; optionIndex < 2; optionIndex++){
+				GameStateNode state = this.newGameState(boardFile);
+				int[] abDepths = new int[2];
+				abDepths[optionIndex] = optionDepth;
+				abDepths[1 - optionIndex] = abDepth;
+				boolean[] bGameQuiescence = new boolean[2];
+				bGameQuiescence[optionIndex] = bQuiescence;
+				boolean[] bGameForwardPruning = new boolean[2];
+				bGameForwardPruning[optionIndex] = bForwardPruning;
+				
+				//tally the option player's figures in [0] and plain alpha beta's in [1]
+				long[] gameCpuNanos = new long[2];
+				long[] gameExpandedNodes = new long[2];
+				this.playFixedDepthGame(state, gameHeuristics, abDepths, bGameQuiescence, bGameForwardPruning, gameCpuNanos, gameExpandedNodes);
+				cpuNanos[0] += gameCpuNanos[optionIndex];
+				cpuNanos[1] += gameCpuNanos[1 - optionIndex];
+				expandedNodes[0] += gameExpandedNodes[optionIndex];
+				expandedNodes[1] += gameExpandedNodes[1 - optionIndex];
+				//player1 moves first, so makes the extra move of an odd number of grid spaces
+				int numGridSpaces = state.getBoardState().getNumGridRows() * state.getBoardState().getNumGridCols();
+				numMoves[0] += (optionIndex == 0) ? (numGridSpaces + 1) / 2 : numGridSpaces / 2;
+				numMoves[1] += (optionIndex == 0) ? numGridSpaces / 2 : (numGridSpaces + 1) / 2;
+				
+				int gameMargin = state.getPlayer(optionIndex).getCurrentScore() - state.getPlayer(1 - optionIndex).getCurrentScore();
+				margin += gameMargin;
+				numGames++;
+				if(gameMargin > 0){
+					numWins++;
+				}
+				else if(gameMargin < 0){
+					numLosses++;
+				}
+			}
+		}
+		
+		return "AB-Depth: " + optionDepth + " vs AB-Depth: " + abDepth + ",\tgames: " + numGames + ",\twins: " + numWins + ",\tlosses: " + numLosses 
+				+ ",\tmean margin: " + ((double) margin / numGames) + ",\tmean move CPU ms: " + (cpuNanos[0] / 1e6 / numMoves[0]) + " (plain: " + (cpuNanos[1] / 1e6 / numMoves[1]) + ")"
+				+ ",\tnodes per move: " + (expandedNodes[0] / numMoves[0]) + " (plain: " + (expandedNodes[1] / numMoves[1]) + ")";
+	}
+	
+	/**
+	 * Plays a fixed depth alpha beta game in place on the state, each player keeping its 
+	 * own transposition table, and measures the CPU time of each player's searches.
+	 * @param state - the starting state, left at the end of the game
+	 * @param heuristics - the heuristic of each player
+	 * @param abDepths - the alpha beta depth of each player
+	 * @param bUseQuiescence - whether each player's searches end in a quiescence search
+	 * @param bUseForwardPruning - whether each player's searches prune forward
+	 * @param cpuNanos - accumulates the CPU time of each player's searches
+	 * @param expandedNodes - accumulates the nodes expanded by each player's searches
+	 */
+	private void playFixedDepthGame(GameStateNode state, Heuristic[] heuristics, int[] abDepths, boolean[] bUseQuiescence, boolean[] bUseForwardPruning, long[] cpuNanos, long[] expandedNodes){
+		java.lang.management.ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+		TranspositionTable[] transpositionTables = {new TranspositionTable(), new TranspositionTable()};
+		int playerIndex = 0;
+		while(!state.isLeafNode()){
+			state.getPlayer(playerIndex).setMaximizingPlayer(true);
+			state.getPlayer(1 - playerIndex).setMaximizingPlayer(false);
+			
+			//each search gets its own copy, so the default does not pay to keep a vulnerability map it never reads
+			GameStateNode searchState = state.deepCopyGameStateNode();
+			transpositionTables[playerIndex].newSearch();
+			long moveStartNanos = threadBean.getCurrentThreadCpuTime();
+			AdversarialSearch abSearch = new AdversarialSearch(searchState, 0, abDepths[playerIndex], true, transpositionTables[playerIndex], heuristics[playerIndex]);
+			abSearch.setQuiescenceSearch(bUseQuiescence[playerIndex]);
+			abSearch.setForwardPruning(bUseForwardPruning[playerIndex]);
+			SearchResult result = abSearch.bestMove(searchState, new SearchLimits(abDepths[playerIndex] + 1));
+			cpuNanos[playerIndex] += threadBean.getCurrentThreadCpuTime() - moveStartNanos;
+			expandedNodes[playerIndex] += result.getNumExpandedNodes();
+			
+			state.makeMove(state.getMove(result.getBestMove().getMoveCode(), playerIndex));
+			playerIndex = 1 - playerIndex;
+		}
+	}
+	
+	/**
+	 * Plays the Monte Carlo tree search, with the configured playout budget, against 
+	 * minimax and against alpha beta on every board in the folder, once as each player. 
+	 * Records the results and the CPU time each side spent searching, as win rates per 
+	 * CPU second, to savedGameplay/monte_carlo_comparison.txt.
+	 * @param boardFolderName
+	 * @param mmDepth - depth of the minimax opponent
+	 * @param abDepth - depth of the alpha beta opponent
+	 */
+	public void compareMonteCarlo(String boardFolderName, int mmDepth, int abDepth){
+		PrintWriter monteCarloWriter = this.openReport("monte_carlo_comparison.txt");
+		File[] boardFiles = this.listBoardFiles(boardFolderName);
+		SearchEngine[] opponents = {SearchEngine.MINIMAX, SearchEngine.ALPHA_BETA};
+		for(SearchEngine opponent : opponents){
+			int opponentDepth = (opponent == SearchEngine.MINIMAX) ? mmDepth : abDepth;
+			int numGames = 0;
+			int numWins = 0;
+			int numDraws = 0;
+			long[] cpuNanos = new long[2];
+			for(File boardFile : boardFiles){
+				for(int monteCarloIndex = 0; monteCarloIndex < 2; monteCarloIndex++){
+					GameStateNode state = this.newGameState(boardFile);
+					state.getPlayer(monteCarloIndex).setEngine(SearchEngine.MCTS);
+					state.getPlayer(1 - monteCarloIndex).setEngine(opponent);
+					
+					//tally the Monte Carlo player's CPU time in [0] and the opponent's in [1]
+					long[] gameCpuNanos = new long[2];
+					this.playMonteCarloGame(state, opponentDepth, gameCpuNanos);
+					cpuNanos[0] += gameCpuNanos[monteCarloIndex];
+					cpuNanos[1] += gameCpuNanos[1 - monteCarloIndex];
+					
+					int gameMargin = state.getPlayer(monteCarloIndex).getCurrentScore() - state.getPlayer(1 - monteCarloIndex).getCurrentScore();
+					numGames++;
+					if(gameMargin > 0){
+						numWins++;
+					}
+					else if(gameMargin == 0){
+						numDraws++;
+					}
+				}
+			}
+			
+			//a draw counts as half a win for both sides
+			double winRate = (numWins + 0.5 * numDraws) / numGames;
+			double cpuSeconds = cpuNanos[0] / 1e9;
+			double opponentCpuSeconds = cpuNanos[1] / 1e9;
+			String line = "MCTS-Playouts: " + this.monteCarloPlayouts + " vs " + opponent.getAbbreviation() + "-Depth: " + opponentDepth + ",\tgames: " + numGames 
+					+ ",\twins: " + numWins + ",\tdraws: " + numDraws + ",\tlosses: " + (numGames - numWins - numDraws) + ",\twin rate: " + winRate 
+					+ ",\tCPU s per game: " + (cpuSeconds / numGames) + " (" + opponent.getAbbreviation() + ": " + (opponentCpuSeconds / numGames) + ")"
+					+ ",\twin rate per CPU s: " + (winRate / (cpuSeconds / numGames)) + " (" + opponent.getAbbreviation() + ": " + ((1 - winRate) / (opponentCpuSeconds / numGames)) + ")";
+			System.out.println(line);
+			if(monteCarloWriter != null){
+				monteCarloWriter.println(line);
+			}
+		}
+		if(monteCarloWriter != null){
+			monteCarloWriter.close();
+		}
+	}
+	
+	/**
+	 * Plays a game in place on the state between a Monte Carlo tree search player and a 
+	 * fixed depth minimax or alpha beta player, and measures the CPU time of each player's 
+	 * searches. The Monte Carlo search's time is summed over all of its threads.
+	 * @param state - the starting state, its players' engines decide who searches how, left at the end of the game
+	 * @param opponentDepth - depth of the player that is not a Monte Carlo tree search
+	 * @param cpuNanos - accumulates the CPU time of each player's searches
+	 */
+	private void playMonteCarloGame(GameStateNode state, int opponentDepth, long[] cpuNanos){
+		java.lang.management.ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+		TranspositionTable[] transpositionTables = {new TranspositionTable(), new TranspositionTable()};
+		MonteCarloTreeSearch monteCarloSearch = new MonteCarloTreeSearch(this.numSearchThreads);
+		int playerIndex = 0;
+		while(!state.isLeafNode()){
+			state.getPlayer(playerIndex).setMaximizingPlayer(true);
+			state.getPlayer(1 - playerIndex).setMaximizingPlayer(false);
+			
+			SearchEngine engine = state.getPlayer(playerIndex).getEngine();
+			SearchResult result;
+			if(engine == SearchEngine.MCTS){
+				result = monteCarloSearch.bestMove(state, this.monteCarloPlayouts, Long.MAX_VALUE);
+				cpuNanos[playerIndex] += monteCarloSearch.getSearchCpuNanos();
+			}
+			else{
+				transpositionTables[playerIndex].newSearch();
+				long moveStartNanos = threadBean.getCurrentThreadCpuTime();
+				AdversarialSearch search = new AdversarialSearch(state, opponentDepth, opponentDepth, engine, transpositionTables[playerIndex], new ScoreDifferenceHeuristic());
+				result = search.bestMove(state, new SearchLimits(opponentDepth + 1));
+				cpuNanos[playerIndex] += threadBean.getCurrentThreadCpuTime() - moveStartNanos;
+			}
+			
+			state.makeMove(state.getMove(result.getBestMove().getMoveCode(), playerIndex));
+			playerIndex = 1 - playerIndex;
+		}
+		monteCarloSearch.shutdown();
+	}
+	
+	/**
+	 * Opens a report in the savedGameplay folder
+	 * @param fileName
+	 * @return the writer, or null if the report could not be opened
+	 */
+	private PrintWriter openReport(String fileName){
+		PrintWriter reportWriter = null;
+		try {
+			reportWriter = new PrintWriter("./src/main/resources/savedGameplay/" + fileName, "UTF-8");
+		} catch (FileNotFoundException e) {
+			e.printStackTrace();
+		} catch (UnsupportedEncodingException e) {
+			e.printStackTrace();
+		}
+		return reportWriter;
+	}
+	
+	/**
+	 * @param boardFolderName
+	 * @return the board files in the folder, sorted by name
+	 */
+	private File[] listBoardFiles(String boardFolderName){
+		File[] boardFiles = new File(boardFolderName).listFiles();
+		Arrays.sort(boardFiles);
+		return boardFiles;
+	}
+	
+	/**
+	 * @param boardFile
+	 * @return the start of a game on the board, between two alpha beta players
+	 */
+	private GameStateNode newGameState(File boardFile){
+		GameBoardFileReader fr = new GameBoardFileReader(boardFile);
+		return this.newGameState(new BoardState(fr.getNumGridRows(), fr.getNumGridCols(), fr.getGridVals()));
+	}
+	
+	/**
+	 * @param bs
+	 * @return the start of a game on the board state, between two alpha beta players
+	 */
+	private GameStateNode newGameState(BoardState bs){
+		return new GameStateNode(new Player("player1", SearchEngine.ALPHA_BETA, 0), new Player("player2", SearchEngine.ALPHA_BETA, 0), bs);
 	}
 	
 	private void sleep(int duration){
@@ -197,8 +1245,8 @@ public class TestRunner {
 		GameBoardFileReader fr = new GameBoardFileReader(gameBoardFile);
 		BoardState bs = new BoardState(fr.getNumGridRows(), fr.getNumGridCols(), fr.getGridVals());
 		
-		Player p1 = new Player("player1", false, 0);
-		Player p2 = new Player("player2", false, 0);
+		Player p1 = new Player("player1", SearchEngine.MINIMAX, 0);
+		Player p2 = new Player("player2", SearchEngine.MINIMAX, 0);
 		return new GameStateNode(p1, p2, bs);
 	}
 	
@@ -216,29 +1264,54 @@ public class TestRunner {
 		int mmDepth = 2;
 		int abDepth = 2;
 		int viewMovePauseDuration = 0; //increase to watch each move
+		//tr.setGameTimeBudget(30000); //uncomment to give alpha beta players 30s per game instead of abDepth
+		//tr.setNumSearchThreads(Runtime.getRuntime().availableProcessors()); //uncomment to split alpha beta root moves between threads
+		//tr.setUseLazySMP(true); //uncomment, along with the line above, to search with lazy SMP instead
+		//tr.reportBranchingFactors("./src/main/resources/game_boards", abDepth); //uncomment to compare move generation on every board
+		//tr.reportSearchAllocation(tr.createTestGameState(), 5); //uncomment to check that searches do not allocate
+		//tr.compareHeuristics("./src/main/resources/game_boards", abDepth); //uncomment to compare the heuristics on every board
+		//tr.compareEngines("./src/main/resources/game_boards", abDepth); //uncomment to compare the nodes expanded by each alpha beta engine
+		//tr.compareQuiescence("./src/main/resources/game_boards", abDepth); //uncomment to play quiescence one ply shallower against plain alpha beta
+		//tr.setHeuristics(new WeightedVulnerabilityHeuristic(), new ScoreDifferenceHeuristic()); //uncomment to give player1 a different heuristic
+		//tr.setQuiescence(true, false); //uncomment to give player1 a quiescence search
+		//tr.compareForwardPruning("./src/main/resources/game_boards", abDepth); //uncomment to play forward pruning against plain alpha beta
+		//tr.setForwardPruning(true, false); //uncomment to give player1 forward pruning
+		//tr.reportEndgameSolveTimes("./src/main/resources/game_boards", 16, abDepth); //uncomment to time the endgame solver on every board
+		//tr.setEndgameThreshold(EndgameSolver.DEFAULT_EMPTY_THRESHOLD); //uncomment to have both players solve the end of the game exactly
+		//tr.reportProofNumberOutcomes("./src/main/resources/game_boards", 14, 8, abDepth); //uncomment to decide the end of every board's game with a proof number search
+		//tr.reportSymmetryReduction("./src/main/resources/game_boards", 4, 4); //uncomment to measure what the board symmetries save early in the game
+		//tr.reportTableGenerations("./src/main/resources/game_boards", new int[]{4, 5}, new int[]{20, 12}); //uncomment to compare transposition tables with and without generations
+		//tr.setMonteCarloPlayouts(20000); //uncomment to change the playouts of each Monte Carlo tree search move
+		//tr.compareMonteCarlo("./src/main/resources/game_boards", 2, 3); //uncomment to compare Monte Carlo win rates per CPU second against minimax and alpha beta
 		
 		
 		/*TEST: 
 		 * p1 = minimax, 
 		 * p2 = minimax*/
-		tr.testMiniMaxAdversaryMoves(tr.createTestGameState(), false, false, mmDepth, abDepth, viewMovePauseDuration);
+		tr.testMiniMaxAdversaryMoves(tr.createTestGameState(), SearchEngine.MINIMAX, SearchEngine.MINIMAX, mmDepth, abDepth, viewMovePauseDuration);
 		
 		
 		/*TEST: 
 		 * p1 = minimax, 
 		 * p2 = alpha beta*/
-		tr.testMiniMaxAdversaryMoves(tr.createTestGameState(), false, true, mmDepth, abDepth, viewMovePauseDuration);
+		tr.testMiniMaxAdversaryMoves(tr.createTestGameState(), SearchEngine.MINIMAX, SearchEngine.ALPHA_BETA, mmDepth, abDepth, viewMovePauseDuration);
 		
 		
 		/*TEST: 
 		 * test p1 = alpha beta, 
 		 * p2 = minimax*/
-		tr.testMiniMaxAdversaryMoves(tr.createTestGameState(), true, false, mmDepth, abDepth, viewMovePauseDuration);
+		tr.testMiniMaxAdversaryMoves(tr.createTestGameState(), SearchEngine.ALPHA_BETA, SearchEngine.MINIMAX, mmDepth, abDepth, viewMovePauseDuration);
 		
 		/*TEST: 
 		 * p1 = alpha beta, 
 		 * p2 = alpha beta*/
-		tr.testMiniMaxAdversaryMoves(tr.createTestGameState(), true, true, mmDepth, abDepth, viewMovePauseDuration);
+		tr.testMiniMaxAdversaryMoves(tr.createTestGameState(), SearchEngine.ALPHA_BETA, SearchEngine.ALPHA_BETA, mmDepth, abDepth, viewMovePauseDuration);
+		
+		/*TEST: 
+		 * p1 = MTD(f), 
+		 * p2 = alpha beta*/
+		//tr.testMiniMaxAdversaryMoves(tr.createTestGameState(), SearchEngine.MTDF, SearchEngine.ALPHA_BETA, mmDepth, abDepth, viewMovePauseDuration); //uncomment to also record the MTD(f) passes of each move
+		//tr.testMiniMaxAdversaryMoves(tr.createTestGameState(), SearchEngine.MCTS, SearchEngine.ALPHA_BETA, mmDepth, abDepth, viewMovePauseDuration); //uncomment to play a Monte Carlo tree search against alpha beta
 		
 	}
 
@@ -0,0 +1,182 @@
+/**
+ * TranspositionTable:
+ * 		Caches the results of previously searched game states so that
+ * 		a state reached through a different order of moves (ie: a para
+ * 		drop at A then B vs B then A) does not have to be searched again.
+ *
+ * 		The table is a fixed size array of entries indexed by the low
+ * 		bits of the zobrist hash of a state. Each entry remembers the full
+ * 		hash (to detect collisions), the depth the state was searched to,
+ * 		the resulting score, what kind of bound that score is, and the
+ * 		best move found. Probing and storing never allocate.
+ *
+ * 		Bound types:
+ * 			EXACT 		= 	the score is the true minimax value
+ * 			LOWER_BOUND = 	the search failed high, true value >= score
+ * 			UPPER_BOUND = 	the search failed low, true value <= score
+ *
+ * 	Lock Free Sharing:
+ * 		Everything but the hash is packed into a single 64 bit data word,
+ * 		and each slot is a pair of words in an AtomicLongArray: the hash
+ * 		XOR the data, then the data. A probe only accepts a slot whose two
+ * 		words XOR back to the hash being probed, so if two threads store
+ * 		into a slot at once and a reader sees one word from each, the slot
+ * 		simply misses. The table can therefore be shared by any number of
+ * 		search threads without locks (see LazySMPSearch).
+ *
+ * 		Data word layout, from the low bit up:
+ * 			score 			32 bits
+ * 			depth 			8 bits
+ * 			bound 			2 bits
+ * 			best move + 1 	12 bits, enough for boards of up to MAX_GRID_SPACES (2047) grid spaces
+ * 			generation 		8 bits
+ * 			used flag 		1 bit, so a stored entry is never NO_ENTRY
+ *
+ * 	Generations:
+ * 		A table kept for a whole game fills up with deep entries from earlier
+ * 		moves, most of them for states the game has already moved past. The
+ * 		owner of the table calls newSearch before each move's search, and every
+ * 		entry is stamped with the generation it was stored in. An entry from an
+ * 		earlier generation is always replaced, however deep, while an entry from
+ * 		the current search is only replaced by an equally deep or deeper one.
+ * 		Entries of earlier generations are still probed as usual until then.
+ *
+ * @author dcyoung3
+ */
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class TranspositionTable {
+	public static final byte EXACT = 0;
+	public static final byte LOWER_BOUND = 1;
+	public static final byte UPPER_BOUND = 2;
+	public static final int NO_MOVE = -1;
+	public static final long NO_ENTRY = 0L;
+
+	private static final int DEFAULT_SIZE_LOG2 = 20;
+	private static final int DEPTH_SHIFT = 32;
+	private static final int BOUND_SHIFT = 40;
+	private static final int MOVE_SHIFT = 42;
+	private static final long MOVE_MASK = (1L << 12) - 1;
+	//a move code is twice the grid space index plus one for a blitz (see Move.getMoveCode)
+	public static final int MAX_GRID_SPACES = (int) (MOVE_MASK >>> 1);
+	private static final int GENERATION_SHIFT = 54;
+	private static final int GENERATION_MASK = 0xFF;
+	private static final long USED_FLAG = 1L << 62;
+
+	private int mask;
+	//two words per slot, [2*slot] = hash ^ data, [2*slot+1] = data
+	private AtomicLongArray slots;
+	//stamped on every stored entry, wraps around after 256 searches
+	private volatile int generation;
+
+	/**
+	 * Constructor, creates a table with the default number of entries
+	 */
+	public TranspositionTable(){
+		this(DEFAULT_SIZE_LOG2);
+	}
+
+	/**
+	 * Constructor
+	 * @param sizeLog2 - the table will hold 2^sizeLog2 entries
+	 */
+	public TranspositionTable(int sizeLog2){
+		int size = 1 << sizeLog2;
+		this.mask = size - 1;
+		this.slots = new AtomicLongArray(2 * size);
+	}
+
+	/**
+	 * Looks up a state in the table
+	 * @param hashKey
+	 * @return the packed entry for the state, or NO_ENTRY if the state is not in the table
+	 */
+	public long probe(long hashKey){
+		int slot = ((int) hashKey & this.mask) << 1;
+		long data = this.slots.get(slot + 1);
+		if(data != NO_ENTRY && (this.slots.get(slot) ^ data) == hashKey){
+			return data;
+		}
+		return NO_ENTRY;
+	}
+
+	/**
+	 * Starts a new generation, so that every entry stored until now can be replaced
+	 * by the next search. Called once per move, before any of its searches.
+	 */
+	public void newSearch(){
+		this.generation = (this.generation + 1) & GENERATION_MASK;
+	}
+
+	/**
+	 * Stores the result of a search. An existing entry for a different
+	 * state from the current generation is only replaced by an equally 
+	 * deep or deeper search, since deep results are the most expensive 
+	 * to recompute. Entries from earlier generations are always replaced.
+	 * @param hashKey
+	 * @param depth - remaining depth the state was searched to
+	 * @param score
+	 * @param bound - EXACT, LOWER_BOUND or UPPER_BOUND
+	 * @param bestMove - move code of the best move, or NO_MOVE
+	 * @throws IllegalArgumentException if the best move does not fit in an entry, 
+	 * 			ie: on boards of more than MAX_GRID_SPACES grid spaces
+	 */
+	public void store(long hashKey, int depth, int score, byte bound, int bestMove){
+		if(bestMove + 1 > MOVE_MASK){
+			throw new IllegalArgumentException("move code " + bestMove + " does not fit in a table entry, boards may have at most " + MAX_GRID_SPACES + " grid spaces");
+		}
+		int slot = ((int) hashKey & this.mask) << 1;
+		long oldData = this.slots.get(slot + 1);
+		int generation = this.generation;
+		if(oldData != NO_ENTRY && (this.slots.get(slot) ^ oldData) != hashKey && getGeneration(oldData) == generation && getDepth(oldData) > depth){
+			return;
+		}
+		long data = USED_FLAG
+				| ((long) generation) << GENERATION_SHIFT
+				| ((long) (bestMove + 1) & MOVE_MASK) << MOVE_SHIFT
+				| ((long) bound & 3) << BOUND_SHIFT
+				| ((long) depth & 0xFF) << DEPTH_SHIFT
+				| ((long) score & 0xFFFFFFFFL);
+		this.slots.lazySet(slot + 1, data);
+		this.slots.lazySet(slot, hashKey ^ data);
+	}
+
+	/**
+	 * Empties the table
+	 */
+	public void clear(){
+		for(int slot = 0; slot < this.slots.length(); slot++){
+			this.slots.set(slot, NO_ENTRY);
+		}
+	}
+
+	public static int getDepth(long entry){
+		return (int) (entry >>> DEPTH_SHIFT) & 0xFF;
+	}
+
+	public static int getScore(long entry){
+		return (int) entry;
+	}
+
+	public static byte getBound(long entry){
+		return (byte) ((entry >>> BOUND_SHIFT) & 3);
+	}
+
+	public static int getBestMove(long entry){
+		return (int) ((entry >>> MOVE_SHIFT) & MOVE_MASK) - 1;
+	}
+
+	public static int getGeneration(long entry){
+		return (int) (entry >>> GENERATION_SHIFT) & GENERATION_MASK;
+	}
+
+	public int getGeneration() {
+		return generation;
+	}
+
+	public static void main(String[] args) {
+		// TODO Auto-generated method stub
+
+	}
+
+}
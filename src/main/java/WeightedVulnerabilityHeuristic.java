@@ -0,0 +1,55 @@
+/**
+ * WeightedVulnerabilityHeuristic:
+ * 		The score difference, with a small penalty for the moving player's 
+ * 		vulnerable points. Mostly plays like the score difference, but 
+ * 		prefers the more secure of two otherwise equal states.
+ * 
+ * @author dcyoung3
+ */
+public class WeightedVulnerabilityHeuristic implements Heuristic {
+	
+	private static final float DEFAULT_WEIGHT = 0.1f;
+	
+	private float weight;
+	
+	/**
+	 * Constructor, with the default weight
+	 */
+	public WeightedVulnerabilityHeuristic(){
+		this(DEFAULT_WEIGHT);
+	}
+	
+	/**
+	 * Constructor
+	 * @param weight - the fraction of each vulnerable point taken off the mover's score
+	 */
+	public WeightedVulnerabilityHeuristic(float weight){
+		this.weight = weight;
+	}
+	
+	public int evaluate(GameStateNode state, boolean bIsMaxNode){
+		Player maxPlayer = state.getMaximizingPlayer();
+		Player minPlayer = state.getMinimizingPlayer();
+		int scoreDifference = maxPlayer.getCurrentScore() - minPlayer.getCurrentScore();
+		if(bIsMaxNode){
+			int maxPlyrVulnPoints = state.getBoardState().getVulnerablePoints(maxPlayer.getPlayerIndex());
+			return scoreDifference - (int) (maxPlyrVulnPoints * this.weight);
+		}
+		int minPlyrVulnPoints = state.getBoardState().getVulnerablePoints(minPlayer.getPlayerIndex());
+		return scoreDifference + (int) (minPlyrVulnPoints * this.weight);
+	}
+	
+	public String getName(){
+		return "WeightedVulnerability";
+	}
+	
+	public float getWeight() {
+		return weight;
+	}
+	
+	public static void main(String[] args) {
+		// TODO Auto-generated method stub
+
+	}
+
+}
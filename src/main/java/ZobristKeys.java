@@ -0,0 +1,68 @@
+/**
+ * ZobristKeys:
+ * 		Holds the random 64 bit keys used to zobrist hash a game state.
+ * 		Every (grid space, player) pair is assigned a key, and the hash
+ * 		of a board is the XOR of the keys of all occupied grid spaces.
+ * 		Since XOR is its own inverse, occupying or vacating a grid space
+ * 		only requires a single XOR to keep the hash up to date.
+ *
+ * 		Keys are generated from a fixed seed so that two boards of the
+ * 		same size always hash identical positions to the same value.
+ *
+ * @author dcyoung3
+ */
+import java.util.Random;
+
+public class ZobristKeys {
+	private static final long SEED = 440L;
+
+	private long[][] gridSpaceKeys;
+	private long sideToMoveKey;
+	private long maximizingPlayerKey;
+
+	/**
+	 * Constructor
+	 * @param numGridSpaces - the total number of grid spaces on the board
+	 */
+	public ZobristKeys(int numGridSpaces){
+		Random random = new Random(SEED);
+		this.gridSpaceKeys = new long[numGridSpaces][2];
+		for(int gridSpaceIndex = 0; gridSpaceIndex < numGridSpaces; gridSpaceIndex++){
+			this.gridSpaceKeys[gridSpaceIndex][0] = random.nextLong();
+			this.gridSpaceKeys[gridSpaceIndex][1] = random.nextLong();
+		}
+		this.sideToMoveKey = random.nextLong();
+		this.maximizingPlayerKey = random.nextLong();
+	}
+
+	/**
+	 * @param gridSpaceIndex - row major index of the grid space
+	 * @param playerIndex - 0 for player1, 1 for player2
+	 * @return the key for the specified player occupying the specified grid space
+	 */
+	public long getGridSpaceKey(int gridSpaceIndex, int playerIndex){
+		return this.gridSpaceKeys[gridSpaceIndex][playerIndex];
+	}
+
+	/**
+	 * @return key mixed in when player2 is the side to move
+	 */
+	public long getSideToMoveKey(){
+		return this.sideToMoveKey;
+	}
+
+	/**
+	 * Search values are reported relative to the maximizing player, so
+	 * the identity of that player has to be part of the key as well.
+	 * @return key mixed in when player2 is the maximizing player
+	 */
+	public long getMaximizingPlayerKey(){
+		return this.maximizingPlayerKey;
+	}
+
+	public static void main(String[] args) {
+		// TODO Auto-generated method stub
+
+	}
+
+}